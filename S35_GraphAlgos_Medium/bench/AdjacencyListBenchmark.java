@@ -0,0 +1,128 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks of building the word graph, the pairwise build against the bucket build
+ * <p>
+ *     Word lists are generated five letter words, about half made by changing one letter
+ *     of an earlier word so they link up like a real dictionary.  The pairwise build is
+ *     only run up to 20,000 words since it grows with n^2, the bucket build goes on to
+ *     a million.
+ * </p>
+ * <p>
+ *     The parallel build runs on pools of 1 to 32 threads.  Its time on 1 thread over its
+ *     time on n is the speedup, which only means something on a machine with n cores.
+ * </p>
+ * Runs on Bench, compile with the test classes for PairwiseBuild and give it -Xmx4g.  Pick
+ * lists with {@code size=1000 large=100000}, pools with {@code threads=1,4}, or operations
+ * with {@code op=pairwise,buckets}.
+ *
+ * @author augward
+ */
+public class AdjacencyListBenchmark {
+
+    // Static cases only, no reason to create one
+    private AdjacencyListBenchmark() {
+    }
+
+
+    /**
+     * Makes distinct five letter words with a fixed seed.
+     *
+     * @param size number of words
+     * @return String array of words
+     */
+    static String[] generate(int size) {
+        Random random = new Random(35);
+        Set<String> words = new LinkedHashSet<>();
+        List<String> made = new ArrayList<>();
+        while (words.size() < size) {
+            char[] word = new char[5];
+            if (!made.isEmpty() && random.nextBoolean()) {
+                // A neighbor of an earlier word.
+                made.get(random.nextInt(made.size())).getChars(0, 5, word, 0);
+                word[random.nextInt(5)] = (char) ('a' + random.nextInt(26));
+            } else {
+                for (int p = 0; p < word.length; p++) {
+                    word[p] = (char) ('a' + random.nextInt(26));
+                }
+            }
+            if (words.add(new String(word))) {
+                made.add(new String(word));
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+
+    /**
+     * Returns the cases for lists small enough for both builds.
+     *
+     * @param words the list to build from
+     * @return names and work in the order they run
+     */
+    static Map<String, Supplier<?>> cases(String[] words) {
+        Map<String, Supplier<?>> cases = new LinkedHashMap<>();
+        cases.put("pairwise", () -> PairwiseBuild.map(words));
+        cases.put("buckets", () -> WordGraph.build(words, null));
+        return cases;
+    }
+
+    /**
+     * Returns the cases for lists only the bucket build can handle.
+     *
+     * @param words the list to build from
+     * @return names and work in the order they run
+     */
+    static Map<String, Supplier<?>> largeCases(String[] words) {
+        Map<String, Supplier<?>> cases = new LinkedHashMap<>();
+        cases.put("bucketsLarge", () -> WordGraph.build(words, null));
+        return cases;
+    }
+
+    /**
+     * Returns the cases for the parallel build on one pool.
+     *
+     * @param words the list to build from
+     * @param pool the pool to build on
+     * @return names and work in the order they run
+     */
+    static Map<String, Supplier<?>> parallelCases(String[] words, ForkJoinPool pool) {
+        Map<String, Supplier<?>> cases = new LinkedHashMap<>();
+        cases.put("parallelBucketsLarge", () -> WordGraph.build(words, pool));
+        return cases;
+    }
+
+
+    /**
+     * Runs every case for every list and pool size, or those picked by the arguments.
+     *
+     * @param args size=..., large=..., threads=... and op=..., see Bench
+     */
+    public static void main(String[] args) {
+        for (int size : Bench.ints(args, "size", 1000, 5757, 20000)) {
+            Bench.run("size=" + size, cases(generate(size)), args);
+        }
+
+        for (int size : Bench.ints(args, "large", 100000, 1000000)) {
+            String[] words = generate(size);
+            Bench.run("size=" + size, largeCases(words), args);
+            for (int threads : Bench.ints(args, "threads", 1, 2, 4, 8, 16, 32)) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    Bench.run("size=" + size + " threads=" + threads, parallelCases(words, pool), args);
+                } finally {
+                    // Stops the pool's threads before the next size starts its own.
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Creates an adjacency list based off a document of given words
@@ -11,14 +12,26 @@ import java.util.*;
  *     have only one letter difference.  Can also make several types
  *     of lists for varying purposes.
  * </p>
+ * <p>
+ *     The graph is kept as a WordGraph, words as int ids with their neighbors packed in
+ *     int arrays, so traversals never hash a String past the starting word.  The map
+ *     of words to neighbors is only made if getWordsMap asks for it.
+ * </p>
  * Relies on java.io and .util imports
  *
  * @author augward
  */
 public class AdjacencyList {
-    // The list of words and the map that links them together
+    // The list of words and the graph that links them together
     private final String[] wordsList;
-    private final HashMap<String, String[]> wordsMap = new HashMap<>();
+    private final WordGraph graph;
+
+    // Map view of the graph and its connected networks, made on first use
+    private HashMap<String, String[]> wordsMap;
+    private Components components;
+
+    // Traverser DFS, BFS and largestSet share, made on first use and only touched under the lock
+    private Traverser shared;
 
     /**
      * Constructs an adjacency list and list of words with a given file input
@@ -26,6 +39,53 @@ public class AdjacencyList {
      * @param filePath the String path of a file for .io
      */
     public AdjacencyList(String filePath) {
+        this(readWords(filePath));
+    }
+
+    /**
+     * Constructs an adjacency list from words already in memory, in the order given
+     *
+     * @param words the words of the graph, one per node
+     */
+    public AdjacencyList(List<String> words) {
+        wordsList = words.toArray(new String[0]);
+        graph = WordGraph.build(wordsList, null);
+    }
+
+    /**
+     * Constructs an adjacency list with a given file input, built across a thread pool
+     *
+     * @param filePath the String path of a file for .io
+     * @param pool the ForkJoinPool to build on, can be shared with the rest of an application
+     */
+    public AdjacencyList(String filePath, ForkJoinPool pool) {
+        this(readWords(filePath), pool);
+    }
+
+    /**
+     * Constructs an adjacency list from words already in memory, built across a thread pool
+     * The result is identical to the serial build, neighbors in the same order
+     *
+     * @param words the words of the graph, one per node
+     * @param pool the ForkJoinPool to build on, can be shared with the rest of an application
+     */
+    public AdjacencyList(List<String> words, ForkJoinPool pool) {
+        if (pool == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        wordsList = words.toArray(new String[0]);
+        graph = WordGraph.build(wordsList, pool);
+    }
+
+
+    /**
+     * Reads every line of a file as a word, trimmed
+     *
+     * @param filePath the String path of a file for .io
+     * @return List of words in file order
+     */
+    private static List<String> readWords(String filePath) {
         List<String> linesList = new ArrayList<>();
 
         // BuffereReader that reads in each line from the file and adds them to a list
@@ -37,20 +97,7 @@ public class AdjacencyList {
         } catch (IOException e) {
             System.err.println("Error reading file: " + e.getMessage());
         }
-        linesList.toArray(new String[0]);
-
-        // Builds the map that represents the adjacency list
-        List<String> differLists = new ArrayList<>();
-        for (String firstList : linesList) {
-            for (String secondList : linesList) {
-                if (differByOne(firstList, secondList)) {
-                    differLists.add(secondList);
-                }
-            }
-            wordsMap.put(firstList, differLists.toArray(new String[0]));
-            differLists.clear();
-        }
-        wordsList = linesList.toArray(new String[0]);
+        return linesList;
     }
 
 
@@ -65,10 +112,14 @@ public class AdjacencyList {
 
     /**
      * Returns a map of words and their neighbors
+     * Made from the graph the first time it is asked for, changes to it don't reach the graph
      *
      * @return Hashmap wordsMap
      */
-    public HashMap<String, String[]> getWordsMap() {
+    public synchronized HashMap<String, String[]> getWordsMap() {
+        if (wordsMap == null) {
+            wordsMap = graph.toMap();
+        }
         return wordsMap;
     }
 
@@ -85,7 +136,7 @@ public class AdjacencyList {
         for (String word : wordsList) {
             sb.append(word);
             sb.append(" | ");
-            sb.append(Arrays.toString(wordsMap.get(word)));
+            sb.append(Arrays.toString(graph.neighborWords(graph.id(word))));
             sb.append("\n");
         }
 
@@ -93,25 +144,6 @@ public class AdjacencyList {
     }
 
 
-    /**
-     * Method used to check if two words are neighbors, (differ char by 1)
-     *
-     * @param firstList first word to check
-     * @param secondList second word to check against
-     * @return whether the two words are neighbors
-     */
-    private static boolean differByOne(String firstList, String secondList) {
-        int differCount = 0;
-        for (int i = 0; i < firstList.length(); i++) {
-            if (firstList.charAt(i) != secondList.charAt(i)) {
-                differCount++;
-            }
-        }
-
-        return differCount == 1;
-    }
-
-
     /**
      * Checks how many words have no edges or neighbors
      *
@@ -119,8 +151,8 @@ public class AdjacencyList {
      */
     public int noEdgeCount() {
         int noEdges = 0;
-        for (String word : wordsList) {
-            if (wordsMap.get(word).length == 0) {
+        for (int i = 0; i < wordsList.length; i++) {
+            if (graph.degree(graph.listId(i)) == 0) {
                 noEdges++;
             }
         }
@@ -137,17 +169,15 @@ public class AdjacencyList {
     public String[] mostEdgesWords() {
         int mostEdges = 0;
         // Finds the max number of edges in list
-        for (String word : wordsList) {
-            if (wordsMap.get(word).length > mostEdges) {
-                mostEdges = wordsMap.get(word).length;
-            }
+        for (int i = 0; i < wordsList.length; i++) {
+            mostEdges = Math.max(mostEdges, graph.degree(graph.listId(i)));
         }
 
         // Finds the words that have the max number of edges
         List<String> mostEdgesList = new ArrayList<>();
-        for (String word : wordsList) {
-            if (wordsMap.get(word).length == mostEdges) {
-                mostEdgesList.add(word);
+        for (int i = 0; i < wordsList.length; i++) {
+            if (graph.degree(graph.listId(i)) == mostEdges) {
+                mostEdgesList.add(wordsList[i]);
             }
         }
 
@@ -164,8 +194,8 @@ public class AdjacencyList {
         double totalEdges = 0.0;
         double totalVertices = wordsList.length;
 
-        for (String word : wordsList) {
-            totalEdges += wordsMap.get(word).length;
+        for (int i = 0; i < wordsList.length; i++) {
+            totalEdges += graph.degree(graph.listId(i));
         }
 
         return totalEdges / totalVertices;
@@ -173,36 +203,39 @@ public class AdjacencyList {
 
 
     /**
-     * Runs a DFS from a starting word
-     * Completed by using resources such as Wiki's algorithms
+     * Returns a traverser that runs DFS and BFS over this list reusing its buffers
+     * DFS and BFS here share one behind a lock, a thread traversing many times can keep its own
      *
-     * @param start starting word for the network
-     * @return a List of words reached by DFS algorithm
+     * @return a new Traverser, for one thread
      */
-    public List<String> DFS(String start) {
-        List<String> order = new ArrayList<>();
-
-        if (!wordsMap.containsKey(start)) {return order;}
-
-        Deque<String> stack = new ArrayDeque<>();
-        Set<String> discovered = new HashSet<>();
-
-        stack.push(start);
-        while (!stack.isEmpty()) {
-            String v = stack.pop();
+    public Traverser traverser() {
+        return new Traverser(graph);
+    }
 
-            if (discovered.contains(v)) {continue;}
 
-            discovered.add(v);
-            order.add(v);
+    /**
+     * Returns the connected networks of the graph, found with union-find
+     * Made the first time it is asked for and kept, it never changes after
+     *
+     * @return Components of this list
+     */
+    public synchronized Components components() {
+        if (components == null) {
+            components = new Components(graph);
+        }
+        return components;
+    }
 
-            String[] neighbors = wordsMap.get(v);
 
-            for (String neighbor : neighbors) {
-                stack.push(neighbor);
-            }
-        }
-        return order;
+    /**
+     * Runs a DFS from a starting word
+     * Completed by using resources such as Wiki's algorithms
+     *
+     * @param start starting word for the network
+     * @return a List of words reached by DFS algorithm
+     */
+    public synchronized List<String> DFS(String start) {
+        return sharedTraverser().DFS(start);
     }
 
 
@@ -213,31 +246,8 @@ public class AdjacencyList {
      * @param root starting word for the network
      * @return a List of words reached by BFS algorithm
      */
-    public List<String> BFS(String root) {
-        List<String> order = new ArrayList<>();
-
-        if (!wordsMap.containsKey(root)) {return order;}
-
-        Queue<String> queue = new ArrayDeque<>();
-        Set<String> explored = new HashSet<>();
-
-        explored.add(root);
-        queue.add(root);
-
-        while (!queue.isEmpty()) {
-            String v = queue.remove();
-            order.add(v);
-
-            String[] neighbors = wordsMap.get(v);
-
-            for (String neighbor : neighbors) {
-                if (!explored.contains(neighbor)) {
-                    explored.add(neighbor);
-                    queue.add(neighbor);
-                }
-            }
-        }
-        return order;
+    public synchronized List<String> BFS(String root) {
+        return sharedTraverser().BFS(root);
     }
 
 
@@ -246,31 +256,27 @@ public class AdjacencyList {
      *
      * @return List of words that are all connected
      */
-    public List<String> largestSet() {
-        // Creates a map of words that haven't been searched.
-        HashMap<String, Boolean> searched = new HashMap<>();
-        for (String word : wordsList) {
-            searched.put(word, false);
+    public synchronized List<String> largestSet() {
+        // Union-find picks the biggest network, then one DFS from its first word gives the order
+        Components components = components();
+        int largest = components.largest();
+        if (largest < 0) {
+            return new ArrayList<>();
         }
 
-        List<String> largestSet = new ArrayList<>();
-        int size = 0;
-
-        // Loop that skips already searched words and builds the biggest connected network
-        for (String word : wordsList) {
-            if (searched.get(word) == true) {continue;}
-
-            List<String> currentSet = DFS(word);
+        return sharedTraverser().DFS(graph.word(components.firstId(largest)));
+    }
 
-            for (String subWord : currentSet) {
-                searched.put(subWord, true);
-            }
 
-            if  (currentSet.size() > size) {
-                largestSet = currentSet;
-                size = currentSet.size();
-            }
+    /**
+     * Returns the traverser DFS, BFS and largestSet share, callers hold the lock
+     *
+     * @return the shared Traverser
+     */
+    private Traverser sharedTraverser() {
+        if (shared == null) {
+            shared = new Traverser(graph);
         }
-        return largestSet;
+        return shared;
     }
 }
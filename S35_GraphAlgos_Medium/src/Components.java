@@ -0,0 +1,192 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The connected networks of an AdjacencyList, found with union-find
+ * <p>
+ *     Every edge of the graph is passed to a UnionFind once, no traversal and no word
+ *     lists, then the roots are numbered and the members of each network laid out back
+ *     to back in int arrays.  Building is O(E * alpha(n)) plus O(n), after that sizes and
+ *     members are array reads.
+ * </p>
+ * <p>
+ *     Networks are numbered in the order their first word appears in the list, the same
+ *     order a DFS from every unsearched word finds them in, and members are in list order.
+ *     A word repeated in the list is one member.
+ * </p>
+ * Get one from AdjacencyList.components.  Nothing changes after it is built, so it is safe to share.
+ *
+ * @author augward
+ */
+public final class Components {
+    // The graph the networks are of
+    private final WordGraph graph;
+
+    // Network number of each word id
+    private final int[] componentOf;
+
+    // Word ids of each network back to back, memberStart has one more entry than there are networks
+    private final int[] memberStart;
+    private final int[] members;
+
+
+    /**
+     * Finds the networks of a graph, used by AdjacencyList
+     *
+     * @param graph the graph to split up
+     */
+    Components(WordGraph graph) {
+        this.graph = graph;
+        int size = graph.size();
+
+        // Unions each edge once, from its lower id, the targets are listed both ways
+        UnionFind sets = new UnionFind(size);
+        int[] targets = graph.targets();
+        for (int id = 0; id < size; id++) {
+            for (int n = graph.neighborStart(id); n < graph.neighborEnd(id); n++) {
+                if (targets[n] > id) {
+                    sets.union(id, targets[n]);
+                }
+            }
+        }
+
+        // Numbers the roots by their lowest id, which is the first word of the network in the list
+        int count = sets.count();
+        componentOf = new int[size];
+        int[] numberOf = new int[size];
+        Arrays.fill(numberOf, -1);
+        memberStart = new int[count + 1];
+        int next = 0;
+        for (int id = 0; id < size; id++) {
+            int root = sets.find(id);
+            if (numberOf[root] < 0) {
+                numberOf[root] = next++;
+            }
+            componentOf[id] = numberOf[root];
+            memberStart[componentOf[id] + 1]++;
+        }
+
+        // Lays the members out back to back, ids rising within each
+        for (int c = 0; c < count; c++) {
+            memberStart[c + 1] += memberStart[c];
+        }
+        members = new int[size];
+        int[] fill = Arrays.copyOf(memberStart, count);
+        for (int id = 0; id < size; id++) {
+            members[fill[componentOf[id]]++] = id;
+        }
+    }
+
+
+    /**
+     * Returns the number of networks, a word with no neighbors is a network of its own
+     *
+     * @return network count
+     */
+    public int count() {
+        return memberStart.length - 1;
+    }
+
+    /**
+     * Returns the network a word is in
+     *
+     * @param word the word to look up
+     * @return int network number, or -1 if the word isn't in the graph
+     */
+    public int componentOf(String word) {
+        int id = graph.id(word);
+        return (id < 0) ? -1 : componentOf[id];
+    }
+
+    /**
+     * Checks if two words are connected by some path of one letter changes
+     *
+     * @param first one word
+     * @param second the other word
+     * @return whether both are in the graph and in the same network
+     */
+    public boolean sameComponent(String first, String second) {
+        int a = componentOf(first);
+        return a >= 0 && a == componentOf(second);
+    }
+
+    /**
+     * Returns the number of distinct words in a network
+     *
+     * @param component network number
+     * @return int size
+     */
+    public int size(int component) {
+        checkComponent(component);
+        return memberStart[component + 1] - memberStart[component];
+    }
+
+    /**
+     * Returns the size of every network
+     *
+     * @return int array of sizes, indexed by network number
+     */
+    public int[] sizes() {
+        int[] sizes = new int[count()];
+        for (int c = 0; c < sizes.length; c++) {
+            sizes[c] = memberStart[c + 1] - memberStart[c];
+        }
+        return sizes;
+    }
+
+    /**
+     * Returns the words of a network
+     *
+     * @param component network number
+     * @return List of words in list order
+     */
+    public List<String> members(int component) {
+        checkComponent(component);
+        List<String> words = new ArrayList<>(size(component));
+        for (int m = memberStart[component]; m < memberStart[component + 1]; m++) {
+            words.add(graph.word(members[m]));
+        }
+        return words;
+    }
+
+    /**
+     * Returns the biggest network, the first one found if several tie
+     *
+     * @return int network number, or -1 if the graph has no words
+     */
+    public int largest() {
+        int best = -1;
+        int size = 0;
+        for (int c = 0; c < count(); c++) {
+            if (memberStart[c + 1] - memberStart[c] > size) {
+                best = c;
+                size = memberStart[c + 1] - memberStart[c];
+            }
+        }
+        return best;
+    }
+
+
+    /**
+     * Returns the id of the first word of a network in the list
+     *
+     * @param component network number
+     * @return int word id
+     */
+    int firstId(int component) {
+        return members[memberStart[component]];
+    }
+
+    /**
+     * Checks that a network number is in range
+     *
+     * @param component network number
+     */
+    private void checkComponent(int component) {
+        if (component < 0 || component >= count()) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("no component " + component + ", there are " + count());
+        }
+    }
+}
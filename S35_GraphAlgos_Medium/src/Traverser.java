@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs DFS and BFS over an AdjacencyList again and again without allocating per call
+ * <p>
+ *     Holds a VisitedSet and the stack and order buffers a traversal needs, and reuses
+ *     them every call, the visited set is emptied in time of the words the last call
+ *     reached.  Orders are the same as AdjacencyList.DFS and BFS.  The variants taking
+ *     a List add to it, so a caller that clears and passes the same list allocates
+ *     nothing once the buffers have grown.
+ * </p>
+ * Get one from AdjacencyList.traverser.  Not safe to share between threads, make one per thread.
+ *
+ * @author augward
+ */
+public final class Traverser {
+    // The graph walked and the words reached so far
+    private final WordGraph graph;
+    private final VisitedSet visited;
+
+    // DFS stack, and the ids in the order they are reached, which is also the BFS queue
+    private int[] stack = new int[16];
+    private int[] order = new int[16];
+
+
+    /**
+     * Constructs a traverser over a graph, used by AdjacencyList
+     *
+     * @param graph the graph to walk
+     */
+    Traverser(WordGraph graph) {
+        this.graph = graph;
+        this.visited = new VisitedSet(graph.size());
+    }
+
+
+    /**
+     * Runs a DFS from a starting word
+     *
+     * @param start starting word for the network
+     * @return a List of words reached by DFS algorithm
+     */
+    public List<String> DFS(String start) {
+        List<String> words = new ArrayList<>();
+        DFS(start, words);
+        return words;
+    }
+
+    /**
+     * Runs a DFS from a starting word, adding the words reached to a list
+     *
+     * @param start starting word for the network
+     * @param words list the words are added to, in the order they are reached
+     * @return number of words reached, 0 if start isn't in the graph
+     */
+    public int DFS(String start, List<String> words) {
+        visited.clear();
+        int id = graph.id(start);
+        if (id < 0) {return 0;}
+
+        int count = depthFirst(id);
+        addWords(0, count, words);
+        return count;
+    }
+
+    /**
+     * Runs a BFS from a starting word
+     *
+     * @param root starting word for the network
+     * @return a List of words reached by BFS algorithm
+     */
+    public List<String> BFS(String root) {
+        List<String> words = new ArrayList<>();
+        BFS(root, words);
+        return words;
+    }
+
+    /**
+     * Runs a BFS from a starting word, adding the words reached to a list
+     *
+     * @param root starting word for the network
+     * @param words list the words are added to, in the order they are reached
+     * @return number of words reached, 0 if root isn't in the graph
+     */
+    public int BFS(String root, List<String> words) {
+        visited.clear();
+        int id = graph.id(root);
+        if (id < 0) {return 0;}
+
+        int count = breadthFirst(id);
+        addWords(0, count, words);
+        return count;
+    }
+
+
+    /**
+     * Runs a DFS over word ids, writing the order from the start of the order buffer
+     * Neighbors are pushed in list order, the last one is searched first.
+     *
+     * @param start id of the starting word
+     * @return number of ids written
+     */
+    private int depthFirst(int start) {
+        int[] targets = graph.targets();
+        int top = 0;
+        int count = 0;
+
+        stack[top++] = start;
+        while (top > 0) {
+            int v = stack[--top];
+
+            if (!visited.add(v)) {continue;}
+
+            if (count == order.length) {
+                order = Arrays.copyOf(order, count * 2);
+            }
+            order[count++] = v;
+
+            int first = graph.neighborStart(v);
+            int end = graph.neighborEnd(v);
+            if (top + end - first > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + end - first));
+            }
+            for (int n = first; n < end; n++) {
+                stack[top++] = targets[n];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runs a BFS over word ids, writing the order from the start of the order buffer
+     *
+     * @param root id of the starting word
+     * @return number of ids written
+     */
+    private int breadthFirst(int root) {
+        int[] targets = graph.targets();
+        // Each word is queued at most once, so the order doubles as the queue
+        int head = 0;
+        int tail = 0;
+
+        visited.add(root);
+        order[tail++] = root;
+
+        while (head < tail) {
+            int v = order[head++];
+
+            for (int n = graph.neighborStart(v); n < graph.neighborEnd(v); n++) {
+                if (visited.add(targets[n])) {
+                    if (tail == order.length) {
+                        order = Arrays.copyOf(order, tail * 2);
+                    }
+                    order[tail++] = targets[n];
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Adds a run of the order buffer to a list as words
+     *
+     * @param from first position
+     * @param to position after the last
+     * @param words list to add to
+     */
+    private void addWords(int from, int to, List<String> words) {
+        for (int i = from; i < to; i++) {
+            words.add(graph.word(order[i]));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Disjoint sets of int ids, merged by union and looked up by find
+ * <p>
+ *     Each id points at a parent, and the root of a tree names its set.  Union hangs the
+ *     shorter tree under the taller one by rank, and find points every id on its path
+ *     straight at the root, so any run of m operations on n ids costs O(m * alpha(n)),
+ *     alpha being the inverse Ackermann function, under 5 for any n that fits in memory.
+ * </p>
+ * Not safe to share between threads, find changes parents as it goes.
+ *
+ * @author augward
+ */
+final class UnionFind {
+    // Parent of each id, a root is its own parent
+    private final int[] parent;
+
+    // Upper bound on the height of each root's tree, never past log2 n so a byte holds it
+    private final byte[] rank;
+
+    // Number of sets left
+    private int count;
+
+
+    /**
+     * Constructs n sets of one id each, ids 0 to size - 1
+     *
+     * @param size number of ids
+     */
+    UnionFind(int size) {
+        if (size < 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("size cannot be negative");
+        }
+        parent = new int[size];
+        rank = new byte[size];
+        for (int id = 0; id < size; id++) {
+            parent[id] = id;
+        }
+        count = size;
+    }
+
+
+    /**
+     * Returns the number of sets left
+     *
+     * @return set count
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Finds the root of an id's set, pointing every id on the way straight at it
+     *
+     * @param id the id to look up
+     * @return int id of the root
+     */
+    int find(int id) {
+        int root = id;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+
+        // Second pass compresses the path
+        while (parent[id] != root) {
+            int next = parent[id];
+            parent[id] = root;
+            id = next;
+        }
+        return root;
+    }
+
+    /**
+     * Merges the sets of two ids, the lower ranked root goes under the higher
+     *
+     * @param first one id
+     * @param second the other id
+     * @return true if they were in different sets
+     */
+    boolean union(int first, int second) {
+        int a = find(first);
+        int b = find(second);
+        if (a == b) {
+            return false;
+        }
+
+        if (rank[a] < rank[b]) {
+            parent[a] = b;
+        } else if (rank[a] > rank[b]) {
+            parent[b] = a;
+        } else {
+            parent[b] = a;
+            rank[a]++;
+        }
+        count--;
+        return true;
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * A set of word ids for traversals, one bit per id, that empties in time of what was added
+ * <p>
+ *     Bits live in a long[], so a set over n words takes n / 8 bytes.  Each long that
+ *     goes from 0 to non 0 is noted in a list, and clear only zeroes those, so a
+ *     traversal that reached a handful of words is cheap to undo even on a huge graph.
+ * </p>
+ * Not safe to share between threads, each traversal needs its own.
+ *
+ * @author augward
+ */
+final class VisitedSet {
+    // One bit per id, id >>> 6 picks the long
+    private final long[] bits;
+
+    // Indexes of the longs that are not 0, count of them in use
+    private final int[] touched;
+    private int touchedCount;
+
+
+    /**
+     * Constructs an empty set for ids 0 to size - 1
+     *
+     * @param size number of ids
+     */
+    VisitedSet(int size) {
+        if (size < 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("size cannot be negative");
+        }
+        bits = new long[(size + 63) >>> 6];
+        touched = new int[bits.length];
+    }
+
+
+    /**
+     * Adds an id
+     *
+     * @param id the id to add
+     * @return true if it wasn't in the set yet
+     */
+    boolean add(int id) {
+        int word = id >>> 6;
+        long mask = 1L << id;
+        long old = bits[word];
+        if ((old & mask) != 0) {
+            return false;
+        }
+        if (old == 0) {
+            touched[touchedCount++] = word;
+        }
+        bits[word] = old | mask;
+        return true;
+    }
+
+    /**
+     * Empties the set, only touching the longs that were set
+     */
+    void clear() {
+        for (int t = 0; t < touchedCount; t++) {
+            bits[touched[t]] = 0;
+        }
+        touchedCount = 0;
+    }
+}
@@ -0,0 +1,380 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The word graph of an AdjacencyList in compressed sparse row form
+ * <p>
+ *     Every distinct word gets an int id, in the order it first appears in the list.
+ *     The neighbors of id v are targets[offsets[v]] up to targets[offsets[v + 1]], in
+ *     list order, so a traversal step is an array read instead of a String hash and
+ *     an edge costs 4 bytes instead of a String reference in its own array.  Words are
+ *     found by id through an open addressing table of ints, no boxed keys.
+ * </p>
+ * Built from wildcard buckets, with or without a ForkJoinPool.
+ *
+ * @author augward
+ */
+final class WordGraph {
+    // Words per task of a parallel build, smaller ranges cost more to hand out than they save
+    private static final int PARALLEL_RANGE = 2048;
+
+    // Distinct words by id, and the id of each entry of the list the graph was built from
+    private final String[] words;
+    private final int[] listIds;
+
+    // Neighbor ids of every word back to back, offsets has one more entry than there are words
+    private final int[] offsets;
+    private final int[] targets;
+
+    // Open addressing table of id + 1 by word hash, 0 for an empty slot
+    private final int[] slots;
+
+
+    /**
+     * Constructs a graph from finished arrays, used by build
+     *
+     * @param words distinct words by id
+     * @param listIds id of each list entry
+     * @param offsets start of each word's neighbors in targets
+     * @param targets neighbor ids
+     * @param slots lookup table of the words
+     */
+    private WordGraph(String[] words, int[] listIds, int[] offsets, int[] targets, int[] slots) {
+        this.words = words;
+        this.listIds = listIds;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.slots = slots;
+    }
+
+
+    /**
+     * Returns the number of distinct words
+     *
+     * @return word count
+     */
+    int size() {
+        return words.length;
+    }
+
+    /**
+     * Returns the word of an id
+     *
+     * @param id word id
+     * @return String word
+     */
+    String word(int id) {
+        return words[id];
+    }
+
+    /**
+     * Returns the id of a word
+     *
+     * @param word the word to look up, may be null
+     * @return int id, or -1 if the word is null or isn't in the graph
+     */
+    int id(String word) {
+        if (word == null) {return -1;}
+
+        int mask = slots.length - 1;
+        for (int s = spread(word.hashCode()) & mask; slots[s] != 0; s = (s + 1) & mask) {
+            if (words[slots[s] - 1].equals(word)) {
+                return slots[s] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the id of an entry of the list the graph was built from
+     *
+     * @param index position in the list
+     * @return int id
+     */
+    int listId(int index) {
+        return listIds[index];
+    }
+
+    /**
+     * Returns the number of neighbors of a word, repeats of a repeated word included
+     *
+     * @param id word id
+     * @return int degree
+     */
+    int degree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * Returns the start of a word's neighbors in targets()
+     *
+     * @param id word id
+     * @return first index of its neighbors
+     */
+    int neighborStart(int id) {
+        return offsets[id];
+    }
+
+    /**
+     * Returns the end of a word's neighbors in targets()
+     *
+     * @param id word id
+     * @return index after its last neighbor
+     */
+    int neighborEnd(int id) {
+        return offsets[id + 1];
+    }
+
+    /**
+     * Returns every neighbor id back to back, not a copy, so traversals read it directly
+     *
+     * @return int array of neighbor ids
+     */
+    int[] targets() {
+        return targets;
+    }
+
+    /**
+     * Returns the neighbors of a word as words
+     *
+     * @param id word id
+     * @return String array of neighbors in list order
+     */
+    String[] neighborWords(int id) {
+        String[] neighbors = new String[degree(id)];
+        for (int n = 0; n < neighbors.length; n++) {
+            neighbors[n] = words[targets[offsets[id] + n]];
+        }
+        return neighbors;
+    }
+
+    /**
+     * Makes the map of each word and its neighbors, put in list order
+     *
+     * @return HashMap of words to neighbors
+     */
+    HashMap<String, String[]> toMap() {
+        HashMap<String, String[]> map = new HashMap<>();
+        for (int id : listIds) {
+            map.put(words[id], neighborWords(id));
+        }
+        return map;
+    }
+
+
+    /**
+     * Builds the graph of a list of words with wildcard buckets
+     * <p>
+     *     Each word is filed under one key per letter, the word with that letter blanked
+     *     out, "a_cde" and so on.  Words that share a key differ at that letter only, so
+     *     the neighbors of a word are the other words in its buckets, found with n * L
+     *     hash lookups instead of n^2 comparisons.  Neighbors are kept in list order,
+     *     the same as the pairwise build, and words of different lengths are never neighbors.
+     * </p>
+     * With a pool the keys are made and the neighbors gathered by ranges of words at
+     * once.  Bucket numbers then depend on timing, but the members of a bucket are still
+     * laid out in list order, so the graph comes out the same as the serial one.
+     *
+     * @param list the words of the graph, repeats allowed
+     * @param pool the ForkJoinPool to build on, null to build on the calling thread
+     * @return WordGraph of the list
+     */
+    static WordGraph build(String[] list, ForkJoinPool pool) {
+        // Numbers the distinct words in order of first appearance
+        int capacity = 2;
+        while (capacity < list.length * 2) {
+            capacity <<= 1;
+        }
+        int[] slots = new int[capacity];
+        int[] listIds = new int[list.length];
+        String[] words = new String[list.length];
+        int[] firstIndex = new int[list.length];
+        int wordCount = 0;
+        for (int i = 0; i < list.length; i++) {
+            int s = spread(list[i].hashCode()) & (capacity - 1);
+            while (slots[s] != 0 && !words[slots[s] - 1].equals(list[i])) {
+                s = (s + 1) & (capacity - 1);
+            }
+            if (slots[s] == 0) {
+                words[wordCount] = list[i];
+                firstIndex[wordCount] = i;
+                slots[s] = ++wordCount;
+            }
+            listIds[i] = slots[s] - 1;
+        }
+        words = Arrays.copyOf(words, wordCount);
+
+        // Key slots of list entry i run from keyStart[i] to keyStart[i + 1], one per letter.
+        int[] keyStart = new int[list.length + 1];
+        for (int i = 0; i < list.length; i++) {
+            keyStart[i + 1] = keyStart[i] + list[i].length();
+        }
+
+        // Numbers each distinct key, and notes the bucket of every key slot
+        int[] bucketOf = new int[keyStart[list.length]];
+        int bucketCount;
+        if (pool == null) {
+            HashMap<String, Integer> bucketIds = new HashMap<>();
+            for (int i = 0; i < list.length; i++) {
+                for (int p = 0; p < list[i].length(); p++) {
+                    int next = bucketIds.size();
+                    Integer id = bucketIds.putIfAbsent(wildcardKey(list[i], p), next);
+                    bucketOf[keyStart[i] + p] = (id == null) ? next : id;
+                }
+            }
+            bucketCount = bucketIds.size();
+        } else {
+            ConcurrentHashMap<String, Integer> bucketIds = new ConcurrentHashMap<>();
+            AtomicInteger next = new AtomicInteger();
+            forRanges(pool, list.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    for (int p = 0; p < list[i].length(); p++) {
+                        bucketOf[keyStart[i] + p] = bucketIds.computeIfAbsent(wildcardKey(list[i], p),
+                                key -> next.getAndIncrement());
+                    }
+                }
+            });
+            bucketCount = next.get();
+        }
+
+        // Lays the buckets out back to back, members of each in list order
+        int[] bucketStart = new int[bucketCount + 1];
+        for (int bucket : bucketOf) {
+            bucketStart[bucket + 1]++;
+        }
+        for (int b = 0; b < bucketCount; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        int[] members = new int[bucketOf.length];
+        int[] fill = Arrays.copyOf(bucketStart, bucketCount);
+        for (int i = 0; i < list.length; i++) {
+            for (int k = keyStart[i]; k < keyStart[i + 1]; k++) {
+                members[fill[bucketOf[k]]++] = i;
+            }
+        }
+
+        // Gathers the neighbors of each word from the buckets of its first entry, each range on its own
+        int[][] neighbors = new int[wordCount][];
+        WordRange gather = (from, to) -> {
+            int[] found = new int[16];
+            for (int i = from; i < to; i++) {
+                int id = listIds[i];
+                if (firstIndex[id] != i) {continue;}
+
+                int count = 0;
+                for (int k = keyStart[i]; k < keyStart[i + 1]; k++) {
+                    int bucket = bucketOf[k];
+                    for (int m = bucketStart[bucket]; m < bucketStart[bucket + 1]; m++) {
+                        // Skips the word itself and any repeat of it in the list.
+                        if (listIds[members[m]] == id) {continue;}
+
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = members[m];
+                    }
+                }
+                // Sorted back into list order, then turned into ids
+                Arrays.sort(found, 0, count);
+                int[] ids = new int[count];
+                for (int n = 0; n < count; n++) {
+                    ids[n] = listIds[found[n]];
+                }
+                neighbors[id] = ids;
+            }
+        };
+        if (pool == null) {
+            gather.run(0, list.length);
+        } else {
+            forRanges(pool, list.length, gather);
+        }
+
+        // Packs the neighbor lists back to back
+        int[] offsets = new int[wordCount + 1];
+        for (int id = 0; id < wordCount; id++) {
+            offsets[id + 1] = offsets[id] + neighbors[id].length;
+        }
+        int[] targets = new int[offsets[wordCount]];
+        for (int id = 0; id < wordCount; id++) {
+            System.arraycopy(neighbors[id], 0, targets, offsets[id], neighbors[id].length);
+        }
+        return new WordGraph(words, listIds, offsets, targets, slots);
+    }
+
+    /**
+     * Mixes the high bits of a hash into the low ones, which pick the slot
+     *
+     * @param hash String hashCode
+     * @return spread hash
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Makes the wildcard key of a word with one letter blanked out
+     * The position leads the key, so keys blanked at different letters never match
+     *
+     * @param word the word to blank
+     * @param position index of the letter to blank
+     * @return String key of the bucket
+     */
+    private static String wildcardKey(String word, int position) {
+        char[] key = new char[word.length() + 1];
+        key[0] = (char) position;
+        word.getChars(0, word.length(), key, 1);
+        key[position + 1] = '_';
+        return new String(key);
+    }
+
+    /**
+     * Runs work on every range of words from 0 to count, split across a pool
+     *
+     * @param pool the ForkJoinPool to run on
+     * @param count number of words
+     * @param work what to do with one range
+     */
+    private static void forRanges(ForkJoinPool pool, int count, WordRange work) {
+        pool.invoke(new RangeTask(work, 0, count));
+    }
+
+
+    /**
+     * Work on the list entries from (inclusive) to (exclusive)
+     */
+    @FunctionalInterface
+    private interface WordRange {
+        void run(int from, int to);
+    }
+
+    /**
+     * One range of list entries, halved until it is no longer than PARALLEL_RANGE
+     */
+    @SuppressWarnings("serial")
+    private static final class RangeTask extends RecursiveAction {
+        private final WordRange work;
+        private final int from;
+        private final int to;
+
+        RangeTask(WordRange work, int from, int to) {
+            this.work = work;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_RANGE) {
+                work.run(from, to);
+                return;
+            }
+
+            int middle = from + (to - from) / 2;
+            invokeAll(new RangeTask(work, from, middle), new RangeTask(work, middle, to));
+        }
+    }
+}
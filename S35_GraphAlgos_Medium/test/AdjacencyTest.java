@@ -140,4 +140,225 @@ class AdjacencyTest {
             if (isTemp) Files.deleteIfExists(file);
         }
     }
+
+
+
+    @Test
+    void testBucketBuildMatchesPairwise() throws IOException {
+        Path file = resolveWordFile();
+        boolean isTemp = !file.toAbsolutePath().toString().endsWith(PROJECT_PATH);
+
+        try {
+            AdjacencyList ALT = new AdjacencyList(file.toString());
+            assertMapsEqual(PairwiseBuild.map(ALT.getWordsList()), ALT.getWordsMap());
+        } finally {
+            if (isTemp) Files.deleteIfExists(file);
+        }
+
+        // Dense random words from a small alphabet, with repeats, keep neighbors in list order
+        List<String> words = randomWords(new Random(35), 2000, 4, 6);
+        words.add(words.get(0));
+
+        AdjacencyList random2000 = new AdjacencyList(words);
+        assertEquals(words.size(), random2000.getWordsList().length);
+        assertMapsEqual(PairwiseBuild.map(words.toArray(new String[0])), random2000.getWordsMap());
+
+        // Words of other lengths are never neighbors
+        AdjacencyList mixed = new AdjacencyList(List.of("cat", "cot", "cats", "cots", "co"));
+        assertEquals("[cot]", Arrays.toString(mixed.getWordsMap().get("cat")));
+        assertEquals("[cats]", Arrays.toString(mixed.getWordsMap().get("cots")));
+        assertEquals(0, mixed.getWordsMap().get("co").length);
+    }
+
+    @Test
+    void testParallelBuildMatchesSerial() {
+        // Enough words for many ranges, with repeats
+        List<String> words = randomWords(new Random(22), 20000, 5, 8);
+
+        AdjacencyList serial = new AdjacencyList(words);
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            AdjacencyList parallel = new AdjacencyList(words, pool);
+            assertArrayEquals(serial.getWordsList(), parallel.getWordsList());
+            assertMapsEqual(serial.getWordsMap(), parallel.getWordsMap());
+            assertEquals(serial.largestSet(), parallel.largestSet());
+            assertEquals(serial.toString(), parallel.toString());
+
+            AdjacencyList small = new AdjacencyList(Arrays.asList(WORDS), pool);
+            assertEquals("[ached, acted, acned, acnes, acres, acmes, aches, acked]", small.largestSet().toString());
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new AdjacencyList(words, null));
+    }
+
+    @Test
+    void testGraphWithRepeatsAndMissingWords() {
+        // "cot" appears twice, it is one node but both entries count in the list statistics
+        AdjacencyList ALT = new AdjacencyList(List.of("cat", "cot", "dog", "cot", "cut"));
+
+        assertEquals("[cot, cat, cut]", ALT.BFS("cot").toString());
+        assertEquals("[cat, cut, cot]", ALT.DFS("cat").toString());
+        assertEquals("[cot, cot, cut]", Arrays.toString(ALT.getWordsMap().get("cat")));
+        assertEquals("[cat, cut]", Arrays.toString(ALT.mostEdgesWords()));
+        assertEquals(1, ALT.noEdgeCount());
+        assertEquals(2.0, ALT.averageEdgeCount());
+        assertEquals("[cat, cut, cot]", ALT.largestSet().toString());
+
+        assertTrue(ALT.DFS("cow").isEmpty());
+        assertTrue(ALT.BFS("cow").isEmpty());
+        assertTrue(ALT.DFS(null).isEmpty());
+        assertTrue(ALT.BFS(null).isEmpty());
+        assertEquals(0, ALT.traverser().DFS(null, new ArrayList<>()));
+
+        // The map is made once and kept
+        assertSame(ALT.getWordsMap(), ALT.getWordsMap());
+        assertEquals(4, ALT.getWordsMap().size());
+    }
+
+    @Test
+    void testTraverserReuse() {
+        List<String> words = randomWords(new Random(24), 3000, 4, 7);
+        AdjacencyList ALT = new AdjacencyList(words);
+
+        // Same orders as a fresh traverser, call after call on one kept here and on the list's shared one
+        Traverser traverser = ALT.traverser();
+        List<String> reused = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String word = words.get(i * 7);
+            List<String> expected = ALT.traverser().DFS(word);
+            assertEquals(expected, traverser.DFS(word));
+            assertEquals(expected, ALT.DFS(word));
+
+            reused.clear();
+            int count = traverser.BFS(word, reused);
+            assertEquals(ALT.traverser().BFS(word), reused);
+            assertEquals(ALT.BFS(word), reused);
+            assertEquals(reused.size(), count);
+        }
+        assertEquals(0, traverser.DFS("zzzz", reused));
+        assertTrue(traverser.BFS("zzzz").isEmpty());
+    }
+
+    @Test
+    void testVisitedSet() {
+        VisitedSet visited = new VisitedSet(200);
+        assertTrue(visited.add(0));
+        assertTrue(visited.add(63));
+        assertTrue(visited.add(64));
+        assertTrue(visited.add(199));
+        assertFalse(visited.add(63));
+        assertFalse(visited.add(64));
+        assertTrue(visited.add(65));
+
+        // Every id is new again after a clear, the ones added before included
+        visited.clear();
+        for (int id = 0; id < 200; id++) {
+            assertTrue(visited.add(id));
+        }
+        assertFalse(visited.add(63));
+
+        assertThrows(IllegalArgumentException.class, () -> new VisitedSet(-1));
+    }
+
+    @Test
+    void testComponents() {
+        AdjacencyList small = new AdjacencyList(Arrays.asList(WORDS));
+        Components components = small.components();
+        assertSame(components, small.components());
+
+        // 15 words on their own, the rest in networks, the first word found leads each
+        int[] sizes = components.sizes();
+        assertEquals(39, Arrays.stream(sizes).sum());
+        assertEquals(15, Arrays.stream(sizes).filter(size -> size == 1).count());
+        int largest = components.largest();
+        assertEquals(8, components.size(largest));
+        assertEquals("[ached, aches, acked, acmes, acned, acnes, acres, acted]", components.members(largest).toString());
+        assertEquals(0, components.componentOf("aargh"));
+        assertEquals(-1, components.componentOf("zzzzz"));
+
+        assertTrue(components.sameComponent("ached", "acted"));
+        assertTrue(components.sameComponent("abaca", "abaca"));
+        assertFalse(components.sameComponent("ached", "abaca"));
+        assertFalse(components.sameComponent("zzzzz", "zzzzz"));
+        assertThrows(IllegalArgumentException.class, () -> components.size(-1));
+        assertThrows(IllegalArgumentException.class, () -> components.members(sizes.length));
+
+        // Against DFS on a graph with many networks and repeated words
+        List<String> words = randomWords(new Random(25), 2000, 4, 9);
+        AdjacencyList ALT = new AdjacencyList(words);
+        Components networks = ALT.components();
+        Set<String> seen = new HashSet<>();
+        int found = 0;
+        for (String word : words) {
+            if (!seen.add(word)) {continue;}
+            List<String> reached = ALT.DFS(word);
+            int component = networks.componentOf(word);
+            assertEquals(reached.size(), networks.size(component));
+            assertEquals(new HashSet<>(reached), new HashSet<>(networks.members(component)));
+            assertTrue(networks.sameComponent(word, reached.get(reached.size() - 1)));
+            if (reached.get(0).equals(networks.members(component).get(0))) {
+                found++;
+            }
+            seen.addAll(reached);
+        }
+        assertEquals(networks.count(), found);
+        assertEquals(ALT.DFS(networks.members(networks.largest()).get(0)), ALT.largestSet());
+
+        assertTrue(new AdjacencyList(List.of()).largestSet().isEmpty());
+        assertEquals(-1, new AdjacencyList(List.of()).components().largest());
+    }
+
+    @Test
+    void testUnionFind() {
+        UnionFind sets = new UnionFind(10);
+        assertEquals(10, sets.count());
+        assertTrue(sets.union(0, 1));
+        assertTrue(sets.union(2, 3));
+        assertTrue(sets.union(1, 3));
+        assertFalse(sets.union(0, 2));
+        assertEquals(sets.find(0), sets.find(3));
+        assertNotEquals(sets.find(0), sets.find(4));
+        assertEquals(7, sets.count());
+        assertEquals(sets.find(0), sets.find(2));
+
+        // A long chain still finds one root for every id
+        UnionFind chain = new UnionFind(100000);
+        for (int id = 1; id < 100000; id++) {
+            chain.union(id - 1, id);
+        }
+        assertEquals(1, chain.count());
+        assertEquals(chain.find(0), chain.find(99999));
+
+        assertThrows(IllegalArgumentException.class, () -> new UnionFind(-1));
+    }
+
+    /**
+     * Makes random words, repeats likely when the alphabet is small
+     *
+     * @param random source of letters, seeded by the test
+     * @param count number of words
+     * @param length letters in each word
+     * @param letters size of the alphabet, starting at 'a'
+     * @return List of words in the order made
+     */
+    private static List<String> randomWords(Random random, int count, int length, int letters) {
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            char[] word = new char[length];
+            for (int p = 0; p < word.length; p++) {
+                word[p] = (char) ('a' + random.nextInt(letters));
+            }
+            words.add(new String(word));
+        }
+        return words;
+    }
+
+    private static void assertMapsEqual(Map<String, String[]> expected, Map<String, String[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (String word : expected.keySet()) {
+            assertArrayEquals(expected.get(word), actual.get(word), word);
+        }
+    }
 }
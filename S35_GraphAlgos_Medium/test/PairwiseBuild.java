@@ -0,0 +1,57 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The original O(n^2) adjacency build, comparing every pair of words
+ * Kept out of AdjacencyList, the tests check the bucket build against it and the benchmark times both
+ *
+ * @author augward
+ */
+final class PairwiseBuild {
+
+    // Static reference build only, no reason to create one
+    private PairwiseBuild() {
+    }
+
+
+    /**
+     * Builds the map that represents the adjacency list by comparing every pair of words
+     *
+     * @param words the words of the graph
+     * @return HashMap of each word and its neighbors
+     */
+    static HashMap<String, String[]> map(String[] words) {
+        HashMap<String, String[]> map = new HashMap<>();
+
+        List<String> differLists = new ArrayList<>();
+        for (String firstList : words) {
+            for (String secondList : words) {
+                if (differByOne(firstList, secondList)) {
+                    differLists.add(secondList);
+                }
+            }
+            map.put(firstList, differLists.toArray(new String[0]));
+            differLists.clear();
+        }
+        return map;
+    }
+
+    /**
+     * Method used to check if two words are neighbors, (differ char by 1)
+     *
+     * @param firstList first word to check
+     * @param secondList second word to check against
+     * @return whether the two words are neighbors
+     */
+    private static boolean differByOne(String firstList, String secondList) {
+        int differCount = 0;
+        for (int i = 0; i < firstList.length(); i++) {
+            if (firstList.charAt(i) != secondList.charAt(i)) {
+                differCount++;
+            }
+        }
+
+        return differCount == 1;
+    }
+}
@@ -0,0 +1,137 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Plain timing harness the benchmarks in this folder run on, no libraries needed.
+ * <p>
+ *     Each case is run for a warmup period so the JIT has compiled it, then timed over
+ *     ROUNDS rounds of at least ROUND_MILLIS each.  One line is printed per case, the
+ *     mean and best round in microseconds per operation, and the bytes the calling
+ *     thread allocated per operation.  Every result is written to a volatile sink so
+ *     the JIT can't drop the work that made it.
+ * </p>
+ * <p>
+ *     Parameters are given as key=value arguments, several values split by commas,
+ *     {@code size=8,64 op=add,multiply}, and default to every value.  Timing can be
+ *     changed with -Dbench.warmup, -Dbench.round (both in ms) and -Dbench.rounds.
+ *     Allocation on other threads, a pool's workers, is not counted.
+ * </p>
+ *
+ * @author augward
+ */
+final class Bench {
+    // Warmup per case, length of a measured round, and rounds per case.
+    private static final long WARMUP_MILLIS = Long.getLong("bench.warmup", 2000);
+    private static final long ROUND_MILLIS = Long.getLong("bench.round", 1000);
+    private static final int ROUNDS = Integer.getInteger("bench.rounds", 5);
+
+    // Allocated bytes of the calling thread, a HotSpot extension of ThreadMXBean.
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Every result is written here, so it escapes and has to be computed.
+    static volatile Object sink;
+
+    // Static entry points only, no reason to create one.
+    private Bench() {
+    }
+
+
+    /**
+     * Runs the cases picked by the op argument, all of them without one.
+     *
+     * @param params the parameters of this run, printed after each case name
+     * @param cases case names and the work of one operation each, in the order to run
+     * @param args the command line arguments
+     */
+    static void run(String params, Map<String, Supplier<?>> cases, String[] args) {
+        List<String> only = Arrays.asList(strings(args, "op"));
+        for (Map.Entry<String, Supplier<?>> entry : cases.entrySet()) {
+            if (only.isEmpty() || only.contains(entry.getKey())) {
+                run(entry.getKey() + " " + params, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Warms up and times one case, then prints its line.
+     *
+     * @param name what to print the result under
+     * @param work one operation
+     */
+    static void run(String name, Supplier<?> work) {
+        round(work, WARMUP_MILLIS);
+
+        double best = Double.MAX_VALUE;
+        long ops = 0;
+        long nanos = 0;
+        long bytes = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long[] round = round(work, ROUND_MILLIS);
+            best = Math.min(best, (double) round[1] / round[0]);
+            ops += round[0];
+            nanos += round[1];
+            bytes += round[2];
+        }
+        System.out.printf("%-44s %14.3f us/op  best %14.3f  %12d B/op  (%d ops)%n",
+                name, nanos / 1000.0 / ops, best / 1000.0, bytes / ops, ops);
+    }
+
+    /**
+     * Runs one operation over and over until a time is up, at least once.
+     *
+     * @param work one operation
+     * @param millis how long to keep going
+     * @return long array of operations done, nanoseconds taken and bytes allocated
+     */
+    private static long[] round(Supplier<?> work, long millis) {
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long deadline = start + millis * 1000000;
+        long ops = 0;
+        long now;
+        do {
+            sink = work.get();
+            ops++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return new long[]{ops, now - start, THREADS.getCurrentThreadAllocatedBytes() - allocated};
+    }
+
+
+    /**
+     * Reads a parameter given as key=a,b,c.
+     *
+     * @param args the command line arguments
+     * @param key name of the parameter
+     * @param defaults values when it isn't given
+     * @return String array of its values
+     */
+    static String[] strings(String[] args, String key, String... defaults) {
+        for (String arg : args) {
+            if (arg.startsWith(key + "=")) {
+                return arg.substring(key.length() + 1).split(",");
+            }
+        }
+        return defaults;
+    }
+
+    /**
+     * Reads a whole number parameter given as key=1,2,3.
+     *
+     * @param args the command line arguments
+     * @param key name of the parameter
+     * @param defaults values when it isn't given
+     * @return int array of its values
+     */
+    static int[] ints(String[] args, String key, int... defaults) {
+        String[] values = strings(args, key);
+        if (values.length == 0) {
+            return defaults;
+        }
+        return Arrays.stream(values).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks for MatrixBatch against the same work done with Matrix objects.
+ * <p>
+ *     Each operation works through COUNT small matrices of the given size, so the
+ *     times are per batch.  The Matrix versions pay for an object and the argument
+ *     checks on every product, which is what the batched kernels avoid.
+ * </p>
+ * Runs on Bench, compile with the test classes for TestMatrices.  Pick sizes with
+ * {@code size=2,3} or operations with {@code op=batchMultiply,matrixMultiply}.
+ *
+ * @author augward
+ */
+public class MatrixBatchBenchmark {
+    // Matrices per batch.
+    private static final int COUNT = 10000;
+
+    // Rows and columns of every matrix in the batch.
+    private final int size;
+
+    // Batches packed in arrays, and the same matrices as objects.
+    private final double[] left;
+    private final double[] right;
+    private final double[] out;
+    private final Matrix[] leftMatrices;
+    private final Matrix[] rightMatrices;
+
+
+    /**
+     * Builds the batches for a size with fixed seeds.
+     *
+     * @param size rows and columns of each matrix
+     */
+    MatrixBatchBenchmark(int size) {
+        this.size = size;
+        int area = size * size;
+        left = TestMatrices.uniform(COUNT * area, 55);
+        right = TestMatrices.uniform(COUNT * area, 56);
+        out = new double[COUNT * area];
+
+        leftMatrices = new Matrix[COUNT];
+        rightMatrices = new Matrix[COUNT];
+        for (int m = 0; m < COUNT; m++) {
+            leftMatrices[m] = toMatrix(left, m * area);
+            rightMatrices[m] = toMatrix(right, m * area);
+        }
+    }
+
+    /**
+     * Copies one matrix of a batch into a Matrix.
+     *
+     * @param batch array holding the batch
+     * @param offset index of the matrix
+     * @return Matrix with the same elements
+     */
+    private Matrix toMatrix(double[] batch, int offset) {
+        double[][] data = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(batch, offset + i * size, data[i], 0, size);
+        }
+        return new Matrix(data);
+    }
+
+    /**
+     * Returns every case, one whole batch each.
+     *
+     * @return names and work in the order they run
+     */
+    Map<String, Supplier<?>> cases() {
+        Map<String, Supplier<?>> cases = new LinkedHashMap<>();
+        cases.put("batchMultiply", () -> {
+            MatrixBatch.multiply(size, left, 0, right, 0, out, 0, COUNT);
+            return out;
+        });
+        cases.put("matrixMultiply", () -> {
+            Matrix last = null;
+            for (int m = 0; m < COUNT; m++) {
+                last = leftMatrices[m].multiply(rightMatrices[m]);
+            }
+            return last;
+        });
+        cases.put("batchAdd", () -> {
+            MatrixBatch.add(size, left, 0, right, 0, out, 0, COUNT);
+            return out;
+        });
+        cases.put("matrixAdd", () -> {
+            Matrix last = null;
+            for (int m = 0; m < COUNT; m++) {
+                last = leftMatrices[m].add(rightMatrices[m]);
+            }
+            return last;
+        });
+        cases.put("batchInvert", () -> {
+            MatrixBatch.invert(size, left, 0, out, 0, COUNT);
+            return out;
+        });
+        cases.put("matrixInverse", () -> {
+            Matrix last = null;
+            for (int m = 0; m < COUNT; m++) {
+                last = leftMatrices[m].inverse();
+            }
+            return last;
+        });
+        return cases;
+    }
+
+
+    /**
+     * Runs every case for every size, or those picked by the arguments.
+     *
+     * @param args size=... and op=..., see Bench
+     */
+    public static void main(String[] args) {
+        for (int size : Bench.ints(args, "size", 2, 3, 4)) {
+            Bench.run("size=" + size, new MatrixBatchBenchmark(size).cases(), args);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks for the Matrix class, used to catch performance regressions.
+ * <p>
+ *     Measures time and allocation per operation across sizes and shapes.
+ *     SQUARE is size x size, TALL is size x size/4 and WIDE is size/4 x size.
+ *     multiply always uses a right hand side that fits, cols x rows, so TALL
+ *     produces a size x size result and WIDE a size/4 x size/4 one.
+ * </p>
+ * Runs on Bench, compile with the test classes for TestMatrices.  The largest sizes take
+ * a while, narrow them with {@code size=8,64}, or pick operations with {@code op=add,multiply}.
+ *
+ * @author augward
+ */
+public class MatrixBenchmark {
+    // Operands, left is rows x cols, same is an equal copy and right is cols x rows.
+    private final Matrix left;
+    private final Matrix same;
+    private final Matrix other;
+    private final Matrix right;
+
+    // Target of the in place benchmarks, addInPlace grows it by at most 1 per element each time.
+    private final Matrix target;
+    private final Matrix identity;
+
+    // Square operand and output for power, any shape.
+    private final Matrix square;
+    private final Matrix powerOutput;
+
+    // Single precision copies of left, other and right, to compare against the double versions.
+    private final FloatMatrix floatLeft;
+    private final FloatMatrix floatOther;
+    private final FloatMatrix floatRight;
+
+
+    /**
+     * Builds the operands for a size and shape with fixed seeds.
+     *
+     * @param size largest dimension
+     * @param shape SQUARE, TALL or WIDE
+     */
+    MatrixBenchmark(int size, String shape) {
+        int rows = size;
+        int cols = size;
+        if (shape.equals("TALL")) {
+            cols = Math.max(1, size / 4);
+        } else if (shape.equals("WIDE")) {
+            rows = Math.max(1, size / 4);
+        }
+
+        left = TestMatrices.uniform(rows, cols, 55);
+        other = TestMatrices.uniform(rows, cols, 56);
+        right = TestMatrices.uniform(cols, rows, 57);
+        same = left.copy();
+        target = left.copy();
+        identity = Matrix.identity(cols);
+        square = TestMatrices.uniform(size, size, 58).scalarMultiply(1.0 / size);
+        powerOutput = new Matrix(size, size);
+        floatLeft = FloatMatrix.from(left);
+        floatOther = FloatMatrix.from(other);
+        floatRight = FloatMatrix.from(right);
+    }
+
+    /**
+     * Returns every case, one operation each.
+     *
+     * @return names and work in the order they run
+     */
+    Map<String, Supplier<?>> cases() {
+        Map<String, Supplier<?>> cases = new LinkedHashMap<>();
+        cases.put("add", () -> left.add(other));
+        cases.put("addInPlace", () -> {
+            target.addInPlace(other);
+            return target;
+        });
+        cases.put("scalarMultiply", () -> left.scalarMultiply(1.0001));
+        cases.put("multiply", () -> left.multiply(right));
+        cases.put("multiplyInPlace", () -> {
+            // Multiplying by the identity keeps the shape and the values, but does the full work.
+            target.multiplyInPlace(identity);
+            return target;
+        });
+        // 5 multiplies by squaring, against 10 for repeated multiplyInPlace.
+        cases.put("powerInto", () -> {
+            square.powerInto(11, powerOutput);
+            return powerOutput;
+        });
+        cases.put("floatAdd", () -> floatLeft.add(floatOther));
+        cases.put("floatMultiply", () -> floatLeft.multiply(floatRight));
+        cases.put("subMatrix", () -> left.subMatrix(1, 1, Math.max(1, left.getRows() / 2), Math.max(1, left.getCols() / 2)));
+        // Worst case for equals, every element has to be compared.
+        cases.put("equalsSame", () -> left.equals(same));
+        cases.put("toString", left::toString);
+        return cases;
+    }
+
+
+    /**
+     * Runs every case for every size and shape, or those picked by the arguments.
+     *
+     * @param args size=..., shape=... and op=..., see Bench
+     */
+    public static void main(String[] args) {
+        for (int size : Bench.ints(args, "size", 8, 64, 512, 4096)) {
+            for (String shape : Bench.strings(args, "shape", "SQUARE", "TALL", "WIDE")) {
+                Bench.run("size=" + size + " " + shape, new MatrixBenchmark(size, shape).cases(), args);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Scaling benchmarks for the parallel element-wise operations.
+ * <p>
+ *     Works on 4096 x 2560 matrices, a little over 10^7 elements, with pools of 1 to 32
+ *     threads.  The time for 1 thread over the time for n is the speedup, it only means
+ *     something on a machine with at least n cores.  Element-wise work is bound by memory
+ *     bandwidth, so the speedup levels off once the memory channels are saturated, which
+ *     on most machines comes before the core count does.
+ * </p>
+ * Runs on Bench, compile with the test classes for TestMatrices and give it -Xmx2g.  Pick
+ * pool sizes with {@code threads=1,4} or operations with {@code op=add,serialAdd}.
+ *
+ * @author augward
+ */
+public class ParallelElementwiseBenchmark {
+    private static final int ROWS = 4096;
+    private static final int COLS = 2560;
+
+    // Operands, shared by every pool size.
+    private final Matrix left;
+    private final Matrix other;
+    private final Matrix target;
+
+
+    /**
+     * Builds the operands with fixed seeds.
+     */
+    ParallelElementwiseBenchmark() {
+        left = TestMatrices.uniform(ROWS, COLS, 55);
+        other = TestMatrices.uniform(ROWS, COLS, 56);
+        target = left.copy();
+    }
+
+    /**
+     * Returns every case, one operation each.
+     *
+     * @param pool the pool the parallel cases run on
+     * @return names and work in the order they run
+     */
+    Map<String, Supplier<?>> cases(ForkJoinPool pool) {
+        Map<String, Supplier<?>> cases = new LinkedHashMap<>();
+        cases.put("add", () -> left.add(other, pool));
+        cases.put("addInPlace", () -> {
+            // Adding then subtracting keeps the values bounded over many operations.
+            target.addInPlace(other, pool);
+            target.subtractInPlace(other, pool);
+            return target;
+        });
+        cases.put("scalarMultiplyInPlace", () -> {
+            target.scalarMultiplyInPlace(-1, pool);
+            return target;
+        });
+        // Baseline without the pool, to compare with threads = 1.
+        cases.put("serialAdd", () -> left.add(other));
+        return cases;
+    }
+
+
+    /**
+     * Runs every case for every pool size, or those picked by the arguments.
+     *
+     * @param args threads=... and op=..., see Bench
+     */
+    public static void main(String[] args) {
+        ParallelElementwiseBenchmark benchmark = new ParallelElementwiseBenchmark();
+        for (int threads : Bench.ints(args, "threads", 1, 2, 4, 8, 16, 32)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Bench.run("threads=" + threads, benchmark.cases(pool), args);
+            } finally {
+                // Stops the pool's threads before the next size starts its own.
+                pool.shutdown();
+            }
+        }
+    }
+}
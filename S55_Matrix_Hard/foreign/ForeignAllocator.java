@@ -0,0 +1,91 @@
+import jdk.incubator.foreign.MemoryAccess;
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+
+/**
+ * Off-heap storage for MatrixArena built on the incubating foreign memory API.
+ * <p>
+ *     Every storage is a native memory segment owned by one shared resource scope,
+ *     so a single segment can be bigger than 2GB and close frees all of it straight
+ *     away.  Any thread may use the segments, and accesses after close throw
+ *     IllegalStateException.  On JDK 17 native segments still count against
+ *     {@code -XX:MaxDirectMemorySize}, like direct buffers.
+ * </p>
+ * Lives in its own source folder since it needs {@code --add-modules jdk.incubator.foreign}
+ * to compile and run.  Without the module MatrixArena never loads it.
+ *
+ * @author augward
+ */
+public final class ForeignAllocator implements NativeAllocator {
+    // Owns every segment, closing it frees them all.
+    private final ResourceScope scope = ResourceScope.newSharedScope();
+
+    @Override
+    public String name() {
+        return "foreign";
+    }
+
+    @Override
+    public MatrixStorage allocate(int size) {
+        if (size <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("size cannot be negative or 0");
+        }
+        // Native segments start zeroed.
+        return new ForeignStorage(MemorySegment.allocateNative((long) size * Double.BYTES, Double.BYTES, scope), size);
+    }
+
+    @Override
+    public void close() {
+        if (scope.isAlive()) {
+            scope.close();
+        }
+    }
+
+
+    /**
+     * Storage over one native segment, in native byte order.
+     */
+    private static final class ForeignStorage implements MatrixStorage {
+        private final MemorySegment segment;
+        private final int size;
+
+        /**
+         * Wraps a segment of doubles.
+         *
+         * @param segment native memory, size * 8 bytes
+         * @param size number of elements
+         */
+        ForeignStorage(MemorySegment segment, int size) {
+            this.segment = segment;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public double get(int index) {
+            return MemoryAccess.getDoubleAtIndex(segment, index);
+        }
+
+        @Override
+        public void set(int index, double value) {
+            MemoryAccess.setDoubleAtIndex(segment, index, value);
+        }
+
+        @Override
+        public void get(int index, double[] dest, int destOffset, int length) {
+            MemorySegment.ofArray(dest).asSlice((long) destOffset * Double.BYTES, (long) length * Double.BYTES)
+                    .copyFrom(segment.asSlice((long) index * Double.BYTES, (long) length * Double.BYTES));
+        }
+
+        @Override
+        public void set(int index, double[] src, int srcOffset, int length) {
+            segment.asSlice((long) index * Double.BYTES, (long) length * Double.BYTES)
+                    .copyFrom(MemorySegment.ofArray(src).asSlice((long) srcOffset * Double.BYTES, (long) length * Double.BYTES));
+        }
+    }
+}
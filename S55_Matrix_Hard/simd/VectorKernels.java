@@ -0,0 +1,79 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD backend for ElementKernels built on the incubating Vector API.
+ * <p>
+ *     Each loop works a full hardware vector of doubles at a time, then finishes
+ *     the leftover tail with scalar code.  Lane-wise add, subtract, multiply and fma
+ *     round exactly like their scalar forms, so results match ScalarKernels bit for bit.
+ * </p>
+ * Lives in its own source folder since it needs {@code --add-modules jdk.incubator.vector}
+ * to compile and run.  Without the module ElementKernels never loads it.
+ *
+ * @author augward
+ */
+public final class VectorKernels implements KernelBackend {
+    // Widest vector shape the CPU supports, 4 doubles for AVX2 and 8 for AVX-512.
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public String name() {
+        return "vector" + SPECIES.length();
+    }
+
+    @Override
+    public void add(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, x, xOffset + i);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, y, yOffset + i);
+            a.add(b).intoArray(out, outOffset + i);
+        }
+        for (; i < length; i++) {
+            out[outOffset + i] = x[xOffset + i] + y[yOffset + i];
+        }
+    }
+
+    @Override
+    public void subtract(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, x, xOffset + i);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, y, yOffset + i);
+            a.sub(b).intoArray(out, outOffset + i);
+        }
+        for (; i < length; i++) {
+            out[outOffset + i] = x[xOffset + i] - y[yOffset + i];
+        }
+    }
+
+    @Override
+    public void scale(double[] x, int xOffset, double scalar, double[] out, int outOffset, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, x, xOffset + i).mul(scalar).intoArray(out, outOffset + i);
+        }
+        for (; i < length; i++) {
+            out[outOffset + i] = x[xOffset + i] * scalar;
+        }
+    }
+
+    @Override
+    public void fma(double a, double[] x, int xOffset, double[] out, int outOffset, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, a);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector b = DoubleVector.fromArray(SPECIES, x, xOffset + i);
+            DoubleVector c = DoubleVector.fromArray(SPECIES, out, outOffset + i);
+            factor.fma(b, c).intoArray(out, outOffset + i);
+        }
+        for (; i < length; i++) {
+            out[outOffset + i] = Math.fma(a, x[xOffset + i], out[outOffset + i]);
+        }
+    }
+}
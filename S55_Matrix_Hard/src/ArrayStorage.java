@@ -0,0 +1,90 @@
+/**
+ * Matrix storage backed by one contiguous double array on the heap.
+ * <p>
+ *     This is the default storage for every Matrix.  Unlike a double[][], rows are
+ *     not separate objects, so walking from one row to the next never chases a pointer
+ *     and the whole matrix is a single allocation.
+ * </p>
+ *
+ * @author augward
+ */
+public final class ArrayStorage implements MatrixStorage {
+    // Elements, final since the size of a storage never changes.
+    private final double[] array;
+
+    // Writes recorded through modified, lets Matrix cache its hash.
+    private long modCount;
+
+
+    /**
+     * Constructs a storage of given size, where all values are 0.
+     *
+     * @param size the number of elements to hold
+     */
+    public ArrayStorage(int size) {
+        if (size <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("size cannot be negative or 0");
+        }
+        array = new double[size];
+    }
+
+    /**
+     * Constructs a storage around an existing array, without copying it.
+     *
+     * @param array the elements to wrap
+     */
+    public ArrayStorage(double[] array) {
+        if (array == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("array must not be null");
+        }
+        this.array = array;
+    }
+
+
+    /**
+     * Returns the backing array, so kernels can loop over it directly.
+     * Writes straight to it should be followed by modified, or a cached hash goes stale.
+     *
+     * @return array
+     */
+    public double[] array() {
+        return array;
+    }
+
+    @Override
+    public int size() {
+        return array.length;
+    }
+
+    @Override
+    public double get(int index) {
+        return array[index];
+    }
+
+    @Override
+    public void set(int index, double value) {
+        array[index] = value;
+    }
+
+    @Override
+    public void get(int index, double[] dest, int destOffset, int length) {
+        System.arraycopy(array, index, dest, destOffset, length);
+    }
+
+    @Override
+    public void set(int index, double[] src, int srcOffset, int length) {
+        System.arraycopy(src, srcOffset, array, index, length);
+    }
+
+    @Override
+    public long modCount() {
+        return modCount;
+    }
+
+    @Override
+    public void modified() {
+        modCount++;
+    }
+}
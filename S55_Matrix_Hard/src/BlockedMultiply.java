@@ -0,0 +1,145 @@
+/**
+ * Cache-blocked multiplication kernel used by the Matrix class.
+ * <p>
+ *     Multiplies with an i-k-j loop order so the innermost loop walks a row of the
+ *     second matrix and a row of the output, instead of striding down a column.
+ *     The loops are then tiled so a block of the second matrix stays in L1/L2 cache
+ *     while it is reused for a band of output rows.
+ * </p>
+ * Each output element still receives its products in increasing k order, as one fused
+ * multiply-add each, so the results are identical to a simple triple loop using Math.fma.
+ * Any rounding a NumericPolicy asks for is left to the caller, after the product is done.
+ * A second matrix whose columns are not contiguous, like a transpose view, is packed into
+ * a plain copy first.
+ *
+ * @author augward
+ */
+public final class BlockedMultiply {
+    // Tile sizes, a 64 x 256 block of doubles is 128KB and sits comfortably in L2.
+    static final int ROW_BLOCK = 64;
+    static final int SHARED_BLOCK = 64;
+    static final int COL_BLOCK = 256;
+
+    // Static kernel only, no reason to create one.
+    private BlockedMultiply() {
+    }
+
+
+    /**
+     * Multiplies a by b and adds the products into c.
+     * Dimensions are expected to be checked by the caller.
+     *
+     * @param a left hand matrix, n x shared
+     * @param b right hand matrix, shared x m
+     * @param c output matrix, n x m, usually all zeros
+     */
+    public static void multiply(Matrix a, Matrix b, Matrix c) {
+        multiply(a, pack(b), c, 0, c.getRows(), 0, c.getCols());
+    }
+
+    /**
+     * Returns b itself when its rows are contiguous array spans, otherwise a packed copy.
+     * Copying costs one pass over b, while the inner loop walks b once per output row.
+     *
+     * @param b right hand matrix
+     * @return matrix with the same elements that the array path can stream through
+     */
+    static Matrix pack(Matrix b) {
+        if (b.hasArrayRows() || b.array() == null) {
+            return b;
+        }
+        return b.copy();
+    }
+
+    /**
+     * Multiplies a by b for one rectangular tile of the output, c[rowStart..rowEnd)[colStart..colEnd).
+     * Tiles never overlap, so separate threads can fill separate tiles of the same output.
+     *
+     * @param a left hand matrix, n x shared
+     * @param b right hand matrix, shared x m
+     * @param c output matrix, n x m
+     * @param rowStart first output row, inclusive
+     * @param rowEnd last output row, exclusive
+     * @param colStart first output column, inclusive
+     * @param colEnd last output column, exclusive
+     */
+    public static void multiply(Matrix a, Matrix b, Matrix c,
+                                int rowStart, int rowEnd, int colStart, int colEnd) {
+        double[] aData = a.array();
+        double[] bData = b.array();
+        double[] cData = c.array();
+        if (aData == null || !b.hasArrayRows() || !c.hasArrayRows()) {
+            multiplyStorage(a, b, c, rowStart, rowEnd, colStart, colEnd);
+            return;
+        }
+
+        int shared = b.getRows();
+        int aCol = a.colStride();
+        int bStride = b.rowStride();
+
+        for (int ii = rowStart; ii < rowEnd; ii += ROW_BLOCK) {
+            int iEnd = Math.min(ii + ROW_BLOCK, rowEnd);
+
+            for (int kk = 0; kk < shared; kk += SHARED_BLOCK) {
+                int kEnd = Math.min(kk + SHARED_BLOCK, shared);
+
+                for (int jj = colStart; jj < colEnd; jj += COL_BLOCK) {
+                    int jEnd = Math.min(jj + COL_BLOCK, colEnd);
+
+                    for (int i = ii; i < iEnd; i++) {
+                        int aRow = a.rowStart(i);
+                        int cRow = c.rowStart(i);
+
+                        for (int k = kk; k < kEnd; k++) {
+                            // Hoisted out of the inner loop, it only changes with k.
+                            double aik = aData[aRow + k * aCol];
+                            int bRow = b.offset() + k * bStride;
+
+                            // c row segment += aik * b row segment, vectorized when the backend allows.
+                            ElementKernels.fma(aik, bData, bRow + jj, cData, cRow + jj, jEnd - jj);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Same tile multiply as above through the MatrixStorage interface, for storage without a heap array
+     * or rows that are not contiguous.  Keeps the same loop order so results match the array path.
+     *
+     * @param a left hand matrix, n x shared
+     * @param b right hand matrix, shared x m
+     * @param c output matrix, n x m
+     * @param rowStart first output row, inclusive
+     * @param rowEnd last output row, exclusive
+     * @param colStart first output column, inclusive
+     * @param colEnd last output column, exclusive
+     */
+    private static void multiplyStorage(Matrix a, Matrix b, Matrix c,
+                                        int rowStart, int rowEnd, int colStart, int colEnd) {
+        int shared = b.getRows();
+
+        for (int ii = rowStart; ii < rowEnd; ii += ROW_BLOCK) {
+            int iEnd = Math.min(ii + ROW_BLOCK, rowEnd);
+
+            for (int kk = 0; kk < shared; kk += SHARED_BLOCK) {
+                int kEnd = Math.min(kk + SHARED_BLOCK, shared);
+
+                for (int jj = colStart; jj < colEnd; jj += COL_BLOCK) {
+                    int jEnd = Math.min(jj + COL_BLOCK, colEnd);
+
+                    for (int i = ii; i < iEnd; i++) {
+                        for (int k = kk; k < kEnd; k++) {
+                            double aik = a.get(i, k);
+
+                            for (int j = jj; j < jEnd; j++) {
+                                c.set(i, j, Math.fma(aik, b.get(k, j), c.get(i, j)));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
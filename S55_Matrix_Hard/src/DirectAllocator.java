@@ -0,0 +1,181 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Off-heap storage from direct byte buffers, the allocator MatrixArena falls back on.
+ * <p>
+ *     Works on any JVM, no modules needed.  A direct buffer holds at most 2GB, so storage
+ *     is split into chunks of 2^27 doubles (1GB) like MappedStorage.  Direct memory is
+ *     capped by {@code -XX:MaxDirectMemorySize}, which defaults to the heap size, so raise
+ *     it to hold matrices bigger than {@code -Xmx}.
+ * </p>
+ * <p>
+ *     Buffers can't be freed on demand.  close drops every reference to them so the
+ *     garbage collector releases the memory, and makes the storage throw from then on.
+ *     Close only once no other thread is using the arena's matrices.
+ * </p>
+ *
+ * @author augward
+ */
+final class DirectAllocator implements NativeAllocator {
+    // log2 of the doubles per chunk.
+    private final int shift;
+
+    // Every storage handed out, closed with the allocator.
+    private final List<DirectStorage> allocated = new ArrayList<>();
+    private boolean closed;
+
+
+    /**
+     * Constructs an allocator with 1GB chunks.
+     */
+    DirectAllocator() {
+        this(MappedStorage.CHUNK_SHIFT);
+    }
+
+    /**
+     * Constructs an allocator with a chosen chunk size.
+     * Smaller chunks let tests cross chunk boundaries without gigabyte buffers.
+     *
+     * @param shift log2 of the doubles per chunk
+     */
+    DirectAllocator(int shift) {
+        if (shift < 0 || shift > MappedStorage.CHUNK_SHIFT) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("shift must be between 0 and " + MappedStorage.CHUNK_SHIFT);
+        }
+        this.shift = shift;
+    }
+
+    @Override
+    public String name() {
+        return "direct";
+    }
+
+    @Override
+    public synchronized MatrixStorage allocate(int size) {
+        if (closed) {
+            // Signals that a method has been invoked at an illegal or inappropriate time.
+            throw new IllegalStateException("matrix arena is closed");
+        }
+        DirectStorage storage = new DirectStorage(size, shift);
+        allocated.add(storage);
+        return storage;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (DirectStorage storage : allocated) {
+            storage.close();
+        }
+        allocated.clear();
+    }
+
+
+    /**
+     * Storage over chunks of direct buffers, in native byte order.
+     */
+    private static final class DirectStorage implements MatrixStorage {
+        // Number of elements.
+        private final int size;
+
+        // log2 of the doubles per chunk, and the mask that finds a position inside one.
+        private final int shift;
+        private final int mask;
+
+        // Each chunk as a double view, null once closed.
+        private DoubleBuffer[] chunks;
+
+
+        /**
+         * Allocates zeroed chunks for a number of doubles.
+         *
+         * @param size number of elements
+         * @param shift log2 of the doubles per chunk
+         */
+        DirectStorage(int size, int shift) {
+            if (size <= 0) {
+                // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+                throw new IllegalArgumentException("size cannot be negative or 0");
+            }
+            this.size = size;
+            this.shift = shift;
+            this.mask = (1 << shift) - 1;
+
+            int count = (int) (((long) size + mask) >>> shift);
+            chunks = new DoubleBuffer[count];
+            for (int c = 0; c < count; c++) {
+                long first = (long) c << shift;
+                int length = (int) Math.min(1L << shift, size - first);
+                chunks[c] = ByteBuffer.allocateDirect(length * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+            }
+        }
+
+        /**
+         * Drops the chunks, the garbage collector frees them once nothing else holds them.
+         */
+        void close() {
+            chunks = null;
+        }
+
+        /**
+         * Returns the chunks, checking the storage is still open.
+         *
+         * @return DoubleBuffer chunks
+         */
+        private DoubleBuffer[] chunks() {
+            DoubleBuffer[] current = chunks;
+            if (current == null) {
+                // Signals that a method has been invoked at an illegal or inappropriate time.
+                throw new IllegalStateException("matrix arena is closed");
+            }
+            return current;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public double get(int index) {
+            return chunks()[index >>> shift].get(index & mask);
+        }
+
+        @Override
+        public void set(int index, double value) {
+            chunks()[index >>> shift].put(index & mask, value);
+        }
+
+        @Override
+        public void get(int index, double[] dest, int destOffset, int length) {
+            DoubleBuffer[] current = chunks();
+            // Copies one chunk at a time, a run may straddle a boundary.
+            while (length > 0) {
+                int inChunk = index & mask;
+                int n = Math.min(length, mask + 1 - inChunk);
+                current[index >>> shift].get(inChunk, dest, destOffset, n);
+                index += n;
+                destOffset += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void set(int index, double[] src, int srcOffset, int length) {
+            DoubleBuffer[] current = chunks();
+            while (length > 0) {
+                int inChunk = index & mask;
+                int n = Math.min(length, mask + 1 - inChunk);
+                current[index >>> shift].put(inChunk, src, srcOffset, n);
+                index += n;
+                srcOffset += n;
+                length -= n;
+            }
+        }
+    }
+}
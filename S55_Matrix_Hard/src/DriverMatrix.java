@@ -1,3 +1,5 @@
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.Arrays;
 
 /**
@@ -7,26 +9,29 @@ import java.util.Arrays;
  */
 
 public class DriverMatrix {
-    public static void main(String[] args) {
+    // Streams matrices to the console instead of building each one's toString first.
+    private static final MatrixWriter WRITER = new MatrixWriter();
+
+    public static void main(String[] args) throws IOException {
         // Test Matrix Constructors
         Matrix m1 = new Matrix(new double[][] {{1, 2, 3}, {4, 5, 6}});
         Matrix m2 = new Matrix(new double[][] {{7, 8, 9}, {10, 11, 12}});
 
-        System.out.println("Matrix 1:\n" + m1);
-        System.out.println("Matrix 2:\n" + m2);
+        print("Matrix 1:", m1);
+        print("Matrix 2:", m2);
         System.out.println();
 
         // Test Matrix Addition
         Matrix result1 = m1.add(m2);
-        System.out.println("Result 1; m1 + m2:\n" + result1);
+        print("Result 1; m1 + m2:", result1);
 
         Matrix result2 = Matrix.add(m1, m2);
-        System.out.println("Result 2; m1 + m2:\n" + result2);
+        print("Result 2; m1 + m2:", result2);
         System.out.println();
 
         m1.addInPlace(m2);
-        System.out.println("Matrix 1 changed:\n" + m1);
-        System.out.println("Matrix 2 normal:\n" + m2);
+        print("Matrix 1 changed:", m1);
+        print("Matrix 2 normal:", m2);
         System.out.println();
 
 
@@ -34,8 +39,8 @@ public class DriverMatrix {
         Matrix m3 = new Matrix(3, 4);
         Matrix m4 = Matrix.identity(3);
 
-        System.out.println("Matrix 3:\n" + m3);
-        System.out.println("Matrix 4:\n" + m4);
+        print("Matrix 3:", m3);
+        print("Matrix 4:", m4);
         System.out.println();
 
         m3.setElement(1, 2, 3);
@@ -43,7 +48,7 @@ public class DriverMatrix {
         m3.setElement(2, 1, 6);
         m3.setElement(3, 4, 7);
 
-        System.out.println("Matrix 3 updated:\n" + m3);
+        print("Matrix 3 updated:", m3);
         System.out.println("Matrix 3 Rows, Cols, Data: " + m3.getRows() + ", " + m3.getCols() + ", " + Arrays.deepToString(m3.getData()));
         System.out.println("Matrix 3 Element (3,4): " + m3.getElement(3, 4));
 
@@ -52,42 +57,57 @@ public class DriverMatrix {
 
         // Test Matrix SubMatrix
         Matrix m5 = m3.subMatrix(1,1,2,3);
-        System.out.println("Matrix 5; sub matrix:\n" + m5);
+        print("Matrix 5; sub matrix:", m5);
         System.out.println("Matrix 5 Rows & Cols: " + m5.getRows() + ", " + m5.getCols());
         System.out.println();
 
         // Test Matrix Subtraction
         Matrix result3 = m1.subtract(m2);
-        System.out.println("Result 3; m1 - m2:\n" + result3);
+        print("Result 3; m1 - m2:", result3);
 
         Matrix result4 = Matrix.subtract(m1, m2);
-        System.out.println("Result 4; m1 - m2:\n" + result4);
+        print("Result 4; m1 - m2:", result4);
         System.out.println();
 
         m1.subtractInPlace(m2);
-        System.out.println("Matrix 1 changed:\n" + m1);
-        System.out.println("Matrix 2 normal:\n" + m2);
+        print("Matrix 1 changed:", m1);
+        print("Matrix 2 normal:", m2);
         System.out.println();
 
         // Test Matrix Scalar Multiplication
         Matrix result5a = m1.scalarMultiply(2);
         Matrix result5b = Matrix.scalarMultiply(result5a,2);
-        System.out.println("Result 5; m1 * 2 * 2:\n" + result5b);
+        print("Result 5; m1 * 2 * 2:", result5b);
 
         m1.scalarMultiplyInPlace(3);
-        System.out.println("Matrix 1; m1 * 3:\n" + m1);
+        print("Matrix 1; m1 * 3:", m1);
         System.out.println();
 
         // Test Matrix Multiplication
         Matrix result6 = m1.multiply(m4);
-        System.out.println("Result 6; m1 * m4:\n" + result6);
+        print("Result 6; m1 * m4:", result6);
 
         m4.setElement(1, 2, 3);
         Matrix result7 = Matrix.multiply(m1, m4);
-        System.out.println("Result 7; m1 * m4:\n" + result7);
+        print("Result 7; m1 * m4:", result7);
 
         m4.setElement(1, 2, 4);
         m1.multiplyInPlace(m4);
-        System.out.println("Matrix 1; m1 * m4:\n" + m1);
+        print("Matrix 1; m1 * m4:", m1);
+    }
+
+    /**
+     * Prints a label, then the matrix on the lines below it.
+     *
+     * @param label what the matrix is
+     * @param matrix the matrix to print
+     * @throws IOException if the console cannot be written
+     */
+    private static void print(String label, Matrix matrix) throws IOException {
+        PrintWriter out = new PrintWriter(System.out);
+        out.println(label);
+        WRITER.write(matrix, out);
+        out.println();
+        out.flush();
     }
 }
@@ -0,0 +1,117 @@
+/**
+ * Element-wise loops over contiguous spans of double arrays.
+ * <p>
+ *     Matrix calls these once per row, or once for the whole matrix when its rows are
+ *     packed back to back.  The output span may be the same as an input span, which is
+ *     how the in place operations reuse them.
+ * </p>
+ * <p>
+ *     The loops themselves come from a KernelBackend chosen once, when this class loads.
+ *     VectorKernels is used when the jdk.incubator.vector module is present and the class
+ *     was compiled, otherwise ScalarKernels.  Setting the system property
+ *     {@code matrix.vector=false} forces the scalar loops.
+ * </p>
+ *
+ * @author augward
+ */
+public final class ElementKernels {
+    // Final so the JIT sees one implementation and can inline straight through it.
+    private static final KernelBackend BACKEND = selectBackend();
+
+    // Static kernels only, no reason to create one.
+    private ElementKernels() {
+    }
+
+
+    /**
+     * Picks the fastest backend that can run in this JVM.
+     *
+     * @return the Vector API backend when it can be loaded, the scalar one otherwise
+     */
+    private static KernelBackend selectBackend() {
+        boolean wanted = !"false".equalsIgnoreCase(System.getProperty("matrix.vector"));
+        boolean available = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+        if (wanted && available) {
+            try {
+                // Loaded by name so this class still compiles and runs without the incubator module.
+                return (KernelBackend) Class.forName("VectorKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Falls through to the scalar loops, VectorKernels was not compiled in.
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    /**
+     * Returns the name of the backend in use, "scalar" or "vector" and its lane count.
+     *
+     * @return backend name
+     */
+    public static String backendName() {
+        return BACKEND.name();
+    }
+
+
+    /**
+     * Adds two spans into an output span, out = x + y.
+     *
+     * @param x first array
+     * @param xOffset start of the span in x
+     * @param y second array
+     * @param yOffset start of the span in y
+     * @param out output array
+     * @param outOffset start of the span in out
+     * @param length number of elements in each span
+     */
+    public static void add(double[] x, int xOffset, double[] y, int yOffset,
+                           double[] out, int outOffset, int length) {
+        BACKEND.add(x, xOffset, y, yOffset, out, outOffset, length);
+    }
+
+    /**
+     * Subtracts two spans into an output span, out = x - y.
+     *
+     * @param x first array
+     * @param xOffset start of the span in x
+     * @param y second array
+     * @param yOffset start of the span in y
+     * @param out output array
+     * @param outOffset start of the span in out
+     * @param length number of elements in each span
+     */
+    public static void subtract(double[] x, int xOffset, double[] y, int yOffset,
+                                double[] out, int outOffset, int length) {
+        BACKEND.subtract(x, xOffset, y, yOffset, out, outOffset, length);
+    }
+
+    /**
+     * Multiplies a span by a scalar into an output span, out = x * scalar.
+     *
+     * @param x input array
+     * @param xOffset start of the span in x
+     * @param scalar factor to be multiplied by
+     * @param out output array
+     * @param outOffset start of the span in out
+     * @param length number of elements in each span
+     */
+    public static void scale(double[] x, int xOffset, double scalar,
+                             double[] out, int outOffset, int length) {
+        BACKEND.scale(x, xOffset, scalar, out, outOffset, length);
+    }
+
+    /**
+     * Adds a scaled span onto an output span with fused multiply-adds, out = fma(a, x, out).
+     *
+     * @param a factor every element of x is multiplied by
+     * @param x input array
+     * @param xOffset start of the span in x
+     * @param out output array, added onto
+     * @param outOffset start of the span in out
+     * @param length number of elements in each span
+     */
+    public static void fma(double a, double[] x, int xOffset,
+                           double[] out, int outOffset, int length) {
+        BACKEND.fma(a, x, xOffset, out, outOffset, length);
+    }
+}
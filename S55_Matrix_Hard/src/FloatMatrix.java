@@ -0,0 +1,646 @@
+/**
+ * Represents a mathematical matrix with single-precision elements.
+ * <p>
+ *     The float sibling of Matrix, with the same shape of API; 1 based positions,
+ *     add, subtract, scalarMultiply and multiply with in place versions, and subMatrix
+ *     and transpose returning views that share storage.  Elements take half the memory
+ *     of a Matrix, so bandwidth bound work like element-wise operations runs about
+ *     twice as fast, at the cost of about 7 significant digits instead of 16.
+ * </p>
+ * <p>
+ *     Elements live in one float array, with an offset and strides like Matrix.  There
+ *     is no NumericPolicy, results are plain float arithmetic.  Products are summed in
+ *     float, in increasing k order.
+ * </p>
+ * Convert with from(Matrix), from(IntMatrix) and toMatrix().
+ *
+ * @author augward
+ */
+
+public class FloatMatrix {
+    // Rows and Columns of Matrix.
+    private final int rows;
+    private final int cols;
+
+    // Flat storage of Matrix Data, shared with any views.
+    private final float[] data;
+
+    // Index of element (1,1) in data, and distance between neighbouring rows and columns.
+    private final int offset;
+    private final int rowStride;
+    private final int colStride;
+
+
+    /**
+     * Constructs a matrix with given rows and columns, where all values are 0.
+     *
+     * @param rows the number of rows in the matrix.
+     * @param cols the number of columns in the matrix.
+     */
+    public FloatMatrix(int rows, int cols) {
+        checkValidDimensions(rows, cols);
+        this.rows = rows;
+        this.cols = cols;
+        this.data = new float[rows * cols];
+        this.offset = 0;
+        this.rowStride = cols;
+        this.colStride = 1;
+    }
+
+    /**
+     * Constructs a matrix from a 2D array, the values are copied in.
+     *
+     * @param data 2D float array of the matrix values
+     */
+    public FloatMatrix(float[][] data) {
+        checkValidData(data);
+        this.rows = data.length;
+        this.cols = data[0].length;
+        checkValidDimensions(rows, cols);
+        this.data = new float[rows * cols];
+        this.offset = 0;
+        this.rowStride = cols;
+        this.colStride = 1;
+
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data[i], 0, this.data, i * cols, cols);
+        }
+    }
+
+    /**
+     * Constructs a view over existing storage, used by subMatrix and transpose.
+     *
+     * @param rows rows of the view
+     * @param cols columns of the view
+     * @param data storage to share
+     * @param offset index of the view's first element
+     * @param rowStride distance between two neighbouring rows
+     * @param colStride distance between two neighbouring columns
+     */
+    private FloatMatrix(int rows, int cols, float[] data, int offset, int rowStride, int colStride) {
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+        this.offset = offset;
+        this.rowStride = rowStride;
+        this.colStride = colStride;
+    }
+
+
+    /**
+     * Converts a double matrix, rounding each element to the nearest float.
+     *
+     * @param matrix the matrix to convert
+     * @return a new FloatMatrix
+     */
+    public static FloatMatrix from(Matrix matrix) {
+        FloatMatrix output = new FloatMatrix(matrix.getRows(), matrix.getCols());
+        for (int i = 0; i < output.rows; i++) {
+            for (int j = 0; j < output.cols; j++) {
+                output.data[i * output.cols + j] = (float) matrix.get(i, j);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Converts an int matrix.  Ints above 2^24 in size round to the nearest float.
+     *
+     * @param matrix the matrix to convert
+     * @return a new FloatMatrix
+     */
+    public static FloatMatrix from(IntMatrix matrix) {
+        FloatMatrix output = new FloatMatrix(matrix.getRows(), matrix.getCols());
+        for (int i = 0; i < output.rows; i++) {
+            for (int j = 0; j < output.cols; j++) {
+                output.data[i * output.cols + j] = matrix.get(i, j);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Converts to a double matrix, every float is exactly representable.
+     *
+     * @return a new Matrix
+     */
+    public Matrix toMatrix() {
+        Matrix output = new Matrix(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                output.set(i, j, get(i, j));
+            }
+        }
+        return output;
+    }
+
+
+    /**
+     * Returns the number of rows in matrix.
+     *
+     * @return int rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns in matrix.
+     *
+     * @return int columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Returns a copy of the data as a 2D array.
+     *
+     * @return float[][] of the matrix values
+     */
+    public float[][] getData() {
+        float[][] copy = new float[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                copy[i][j] = get(i, j);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns an element from a certain row and column.
+     *
+     * @param rows the desired row to call from
+     * @param cols the desired column to call from
+     * @return float element from data
+     */
+    public float getElement(int rows, int cols) {
+        checkValidPosition(rows, cols);
+        return get(rows - 1, cols - 1);
+    }
+
+    /**
+     * Sets an element at a desired row and column.
+     *
+     * @param rows the desired row to set at
+     * @param cols the desired column to set at
+     * @param newElement float element to be inserted
+     */
+    public void setElement(int rows, int cols, float newElement) {
+        checkValidPosition(rows, cols);
+        set(rows - 1, cols - 1, newElement);
+    }
+
+    /**
+     * Reads an element without bounds checks, used by kernels.
+     *
+     * @param i row, 0 based
+     * @param j column, 0 based
+     * @return float element
+     */
+    float get(int i, int j) {
+        return data[offset + i * rowStride + j * colStride];
+    }
+
+    /**
+     * Writes an element without bounds checks, used by kernels.
+     *
+     * @param i row, 0 based
+     * @param j column, 0 based
+     * @param value float element to store
+     */
+    void set(int i, int j, float value) {
+        data[offset + i * rowStride + j * colStride] = value;
+    }
+
+    /**
+     * Checks if the rows sit back to back in storage, so the whole matrix is one span.
+     *
+     * @return whether the matrix is a single contiguous span
+     */
+    private boolean isContiguous() {
+        return colStride == 1 && (rowStride == cols || rows == 1);
+    }
+
+    /**
+     * Checks if writing into this matrix could change elements of another before they are read.
+     *
+     * @param other matrix that will be read while this one is written
+     * @return whether other should be copied before the write
+     */
+    private boolean overlapsDifferently(FloatMatrix other) {
+        return data == other.data
+                && (offset != other.offset || rowStride != other.rowStride || colStride != other.colStride);
+    }
+
+
+    /**
+     * Helper method to make sure data inside matrix is valid.
+     *
+     * @param data 2D float array that contains matrix values
+     */
+    public void checkValidData(float[][] data) {
+        if (data == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("data must not be null");
+        }
+        if ((data.length == 0) || (data[0] == null) || (data[0].length == 0)) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("data length must not be 0");
+        }
+
+        for (float[] row : data) {
+            if (row == null) {
+                // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+                throw new IllegalArgumentException("data[i] must not be null");
+            }
+            if (row.length != data[0].length) {
+                // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+                throw new IllegalArgumentException("data[i] length must match data[0] length");
+            }
+        }
+    }
+
+    /**
+     * Helper method to make sure new dimensions are valid.
+     *
+     * @param rows rows that need to be checked
+     * @param cols columns that need to be checked
+     */
+    public void checkValidDimensions(int rows, int cols) {
+        if (rows <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("rows cannot be negative or 0");
+        } else if (cols <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("cols cannot be negative or 0");
+        } else if ((long) rows * cols > Integer.MAX_VALUE) {
+            // Flat storage is indexed by int, so the element count has to fit in one.
+            throw new IllegalArgumentException("rows * cols is too large");
+        }
+    }
+
+    /**
+     * Helper method to make sure that row and column are valid callable positions.
+     *
+     * @param rows row that needs to be checked
+     * @param cols column that needs to be checked
+     */
+    public void checkValidPosition(int rows, int cols) {
+        if (rows <= 0 || rows > this.rows) {
+            // Thrown to indicate that an array has been accessed with an illegal index. The index is either negative or greater than or equal to the size of the array.
+            throw new ArrayIndexOutOfBoundsException("rows is outside bounds");
+        } else if (cols <= 0 || cols > this.cols) {
+            // Thrown to indicate that an array has been accessed with an illegal index. The index is either negative or greater than or equal to the size of the array.
+            throw new ArrayIndexOutOfBoundsException("cols is outside bounds");
+        }
+    }
+
+    /**
+     * Helper method to make sure a second matrix can be multiplied against this one.
+     *
+     * @param rows rows of second matrix, must match this matrix's columns
+     */
+    public void checkMultiplyDimensions(int rows) {
+        if (cols != rows) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("rows and cols are not equal for multiplication");
+        }
+    }
+
+    /**
+     * Helper method to make sure that two matrices have the same dimensions.
+     *
+     * @param rows rows of second matrix for comparison
+     * @param cols columns of second matrix for comparison
+     */
+    public void checkSameDimensions(int rows, int cols) {
+        if ((this.rows != rows) || (this.cols != cols)) {
+            // Throw to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("dimensions are not equal");
+        }
+    }
+
+
+    /**
+     * Compares the matrix with another object, element by element.
+     *
+     * @param obj the object of the comparison
+     * @return boolean if they are equal or not, false for anything but a FloatMatrix
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof FloatMatrix matrix2)) {
+            return false;
+        }
+        if ((rows != matrix2.rows) || (cols != matrix2.cols)) {
+            return false;
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (get(i, j) != matrix2.get(i, j)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash of the dimensions and elements, equal matrices hash the same.
+     *
+     * @return int hash code
+     */
+    @Override
+    public int hashCode() {
+        int hash = 31 * rows + cols;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                // Adding 0 turns -0 into +0, which equals treats the same.
+                hash = 31 * hash + Float.hashCode(get(i, j) + 0.0f);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns an identity matrix of given size.
+     *
+     * @param size the number of rows and columns of the matrix
+     * @return FloatMatrix full of zeros, and 1s along the center diagonal axis
+     */
+    public static FloatMatrix identity(int size) {
+        if (size <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("size is invalid");
+        }
+
+        FloatMatrix identityMatrix = new FloatMatrix(size, size);
+        for (int i = 0; i < size; i++) {
+            identityMatrix.set(i, i, 1);
+        }
+        return identityMatrix;
+    }
+
+    /**
+     * Creates a sub matrix from current matrix, as a view sharing this matrix's storage.
+     *
+     * @param upperRow the upper bound of the sub matrix
+     * @param leftCol the left bound of the sub matrix
+     * @param lowerRow the lower bound of the sub matrix
+     * @param rightCol the right bound of the sub matrix
+     * @return FloatMatrix which is a portion of the original matrix
+     */
+    public FloatMatrix subMatrix(int upperRow, int leftCol, int lowerRow, int rightCol) {
+        checkValidPosition(upperRow, leftCol);
+        checkValidPosition(lowerRow, rightCol);
+
+        int newRows = lowerRow - upperRow + 1;
+        int newCols = rightCol - leftCol + 1;
+        checkValidDimensions(newRows, newCols);
+
+        int newOffset = offset + (upperRow - 1) * rowStride + (leftCol - 1) * colStride;
+        return new FloatMatrix(newRows, newCols, data, newOffset, rowStride, colStride);
+    }
+
+    /**
+     * Returns the transpose of the matrix as a view, rows become columns.
+     *
+     * @return FloatMatrix view with rows and columns swapped
+     */
+    public FloatMatrix transpose() {
+        return new FloatMatrix(cols, rows, data, offset, colStride, rowStride);
+    }
+
+    /**
+     * Returns a copy of the matrix in its own, tightly packed storage.
+     *
+     * @return FloatMatrix with the same elements and no shared storage
+     */
+    public FloatMatrix copy() {
+        FloatMatrix newMatrix = new FloatMatrix(rows, cols);
+        if (isContiguous()) {
+            System.arraycopy(data, offset, newMatrix.data, 0, rows * cols);
+        } else {
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    newMatrix.data[i * cols + j] = get(i, j);
+                }
+            }
+        }
+        return newMatrix;
+    }
+
+    /**
+     * Prints out the matrix representation of the class, each row has its own line.
+     *
+     * @return string representation of the matrix
+     */
+    @Override
+    public String toString() {
+        StringBuilder printedMatrix = new StringBuilder();
+
+        for (int i = 0; i < rows; i++) {
+            printedMatrix.append('[');
+            for (int j = 0; j < cols; j++) {
+                printedMatrix.append(get(i, j));
+                if (j != cols - 1) {
+                    printedMatrix.append(", ");
+                } else {
+                    printedMatrix.append(']');
+                }
+            }
+            if (i != rows - 1) {
+                printedMatrix.append('\n');
+            }
+        }
+        return printedMatrix.toString();
+    }
+
+
+    /**
+     * Returns a new matrix of this matrix and second matrix added.
+     *
+     * @param matrix2 the matrix to add to current
+     * @return a new matrix of both previous added
+     */
+    public FloatMatrix add(FloatMatrix matrix2) {
+        checkSameDimensions(matrix2.rows, matrix2.cols);
+        FloatMatrix output = new FloatMatrix(rows, cols);
+        combine(this, matrix2, 1, output);
+        return output;
+    }
+
+    /**
+     * Changes the current matrix by adding a second one.
+     *
+     * @param matrix2 second matrix to be added
+     */
+    public void addInPlace(FloatMatrix matrix2) {
+        checkSameDimensions(matrix2.rows, matrix2.cols);
+        combine(this, overlapsDifferently(matrix2) ? matrix2.copy() : matrix2, 1, this);
+    }
+
+    /**
+     * Returns a new matrix of this matrix and second matrix subtracted.
+     *
+     * @param matrix2 the matrix to subtract from current
+     * @return a new matrix of both previous subtracted
+     */
+    public FloatMatrix subtract(FloatMatrix matrix2) {
+        checkSameDimensions(matrix2.rows, matrix2.cols);
+        FloatMatrix output = new FloatMatrix(rows, cols);
+        combine(this, matrix2, -1, output);
+        return output;
+    }
+
+    /**
+     * Changes the current matrix by subtracting a second one.
+     *
+     * @param matrix2 second matrix to be subtracted
+     */
+    public void subtractInPlace(FloatMatrix matrix2) {
+        checkSameDimensions(matrix2.rows, matrix2.cols);
+        combine(this, overlapsDifferently(matrix2) ? matrix2.copy() : matrix2, -1, this);
+    }
+
+    /**
+     * Adds or subtracts y from x into out, all three are expected to share dimensions.
+     *
+     * @param x first matrix
+     * @param y second matrix
+     * @param sign 1 to add, -1 to subtract
+     * @param out output matrix, may be x or y
+     */
+    private static void combine(FloatMatrix x, FloatMatrix y, int sign, FloatMatrix out) {
+        if (x.colStride != 1 || y.colStride != 1 || out.colStride != 1) {
+            for (int i = 0; i < out.rows; i++) {
+                for (int j = 0; j < out.cols; j++) {
+                    out.set(i, j, sign > 0 ? x.get(i, j) + y.get(i, j) : x.get(i, j) - y.get(i, j));
+                }
+            }
+            return;
+        }
+
+        // Whole matrix as one span when it can be, otherwise a row at a time.  Separate loops keep them simple to vectorize.
+        boolean flat = x.isContiguous() && y.isContiguous() && out.isContiguous();
+        int spans = flat ? 1 : out.rows;
+        int length = flat ? out.rows * out.cols : out.cols;
+        for (int i = 0; i < spans; i++) {
+            int xs = x.offset + i * x.rowStride;
+            int ys = y.offset + i * y.rowStride;
+            int os = out.offset + i * out.rowStride;
+            if (sign > 0) {
+                for (int j = 0; j < length; j++) {
+                    out.data[os + j] = x.data[xs + j] + y.data[ys + j];
+                }
+            } else {
+                for (int j = 0; j < length; j++) {
+                    out.data[os + j] = x.data[xs + j] - y.data[ys + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a new matrix of this matrix and a scalar multiplied.
+     *
+     * @param scalar the float to multiply against matrix
+     * @return a new matrix of both components multiplied
+     */
+    public FloatMatrix scalarMultiply(float scalar) {
+        FloatMatrix output = new FloatMatrix(rows, cols);
+        scaleInto(this, scalar, output);
+        return output;
+    }
+
+    /**
+     * Changes the current matrix by multiplying it against a scalar.
+     *
+     * @param scalar the number each element is multiplied by
+     */
+    public void scalarMultiplyInPlace(float scalar) {
+        scaleInto(this, scalar, this);
+    }
+
+    /**
+     * Multiplies x by a scalar into out, both are expected to share dimensions.
+     *
+     * @param x input matrix
+     * @param scalar factor to be multiplied by
+     * @param out output matrix, may be x
+     */
+    private static void scaleInto(FloatMatrix x, float scalar, FloatMatrix out) {
+        if (x.colStride != 1 || out.colStride != 1) {
+            for (int i = 0; i < out.rows; i++) {
+                for (int j = 0; j < out.cols; j++) {
+                    out.set(i, j, x.get(i, j) * scalar);
+                }
+            }
+            return;
+        }
+
+        boolean flat = x.isContiguous() && out.isContiguous();
+        int spans = flat ? 1 : out.rows;
+        int length = flat ? out.rows * out.cols : out.cols;
+        for (int i = 0; i < spans; i++) {
+            int xs = x.offset + i * x.rowStride;
+            int os = out.offset + i * out.rowStride;
+            for (int j = 0; j < length; j++) {
+                out.data[os + j] = x.data[xs + j] * scalar;
+            }
+        }
+    }
+
+    /**
+     * Returns a new matrix of this matrix and second matrix multiplied.
+     * Uses the same i-k-j tiling as BlockedMultiply.
+     *
+     * @param matrix2 the matrix to multiply to current
+     * @return a new matrix of both previous multiplied
+     */
+    public FloatMatrix multiply(FloatMatrix matrix2) {
+        checkMultiplyDimensions(matrix2.rows);
+
+        // The inner loop walks rows of the second matrix, so they have to be contiguous.
+        FloatMatrix b = (matrix2.colStride == 1) ? matrix2 : matrix2.copy();
+        int n = rows;
+        int shared = cols;
+        int m = b.cols;
+        FloatMatrix output = new FloatMatrix(n, m);
+        float[] c = output.data;
+
+        for (int ii = 0; ii < n; ii += BlockedMultiply.ROW_BLOCK) {
+            int iEnd = Math.min(ii + BlockedMultiply.ROW_BLOCK, n);
+            for (int kk = 0; kk < shared; kk += BlockedMultiply.SHARED_BLOCK) {
+                int kEnd = Math.min(kk + BlockedMultiply.SHARED_BLOCK, shared);
+                for (int jj = 0; jj < m; jj += BlockedMultiply.COL_BLOCK) {
+                    int jEnd = Math.min(jj + BlockedMultiply.COL_BLOCK, m);
+                    for (int i = ii; i < iEnd; i++) {
+                        int cRow = i * m;
+                        for (int k = kk; k < kEnd; k++) {
+                            float aik = get(i, k);
+                            int bRow = b.offset + k * b.rowStride;
+                            for (int j = jj; j < jEnd; j++) {
+                                c[cRow + j] += aik * b.data[bRow + j];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Allows two matrices to be multiplied in static overall method.
+     *
+     * @param matrix1 first matrix
+     * @param matrix2 second matrix
+     * @return a new matrix of both previous multiplied
+     */
+    public static FloatMatrix multiply(FloatMatrix matrix1, FloatMatrix matrix2) {
+        return matrix1.multiply(matrix2);
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * A set of element-wise loops over contiguous spans of double arrays.
+ * <p>
+ *     ElementKernels picks one backend when it loads, ScalarKernels everywhere,
+ *     or VectorKernels when the jdk.incubator.vector module is available.
+ *     Every backend must give bit for bit the same results.
+ * </p>
+ *
+ * @author augward
+ */
+public interface KernelBackend {
+
+    /**
+     * Returns a short name for the backend, for logging and benchmarks.
+     *
+     * @return name
+     */
+    String name();
+
+    /**
+     * Adds two spans into an output span, out = x + y.
+     *
+     * @param x first array
+     * @param xOffset start of the span in x
+     * @param y second array
+     * @param yOffset start of the span in y
+     * @param out output array
+     * @param outOffset start of the span in out
+     * @param length number of elements in each span
+     */
+    void add(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length);
+
+    /**
+     * Subtracts two spans into an output span, out = x - y.
+     *
+     * @param x first array
+     * @param xOffset start of the span in x
+     * @param y second array
+     * @param yOffset start of the span in y
+     * @param out output array
+     * @param outOffset start of the span in out
+     * @param length number of elements in each span
+     */
+    void subtract(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length);
+
+    /**
+     * Multiplies a span by a scalar into an output span, out = x * scalar.
+     *
+     * @param x input array
+     * @param xOffset start of the span in x
+     * @param scalar factor to be multiplied by
+     * @param out output array
+     * @param outOffset start of the span in out
+     * @param length number of elements in each span
+     */
+    void scale(double[] x, int xOffset, double scalar, double[] out, int outOffset, int length);
+
+    /**
+     * Adds a scaled span onto an output span with fused multiply-adds, out = fma(a, x, out).
+     * This is the inner loop of matrix multiplication.
+     *
+     * @param a factor every element of x is multiplied by
+     * @param x input array
+     * @param xOffset start of the span in x
+     * @param out output array, added onto
+     * @param outOffset start of the span in out
+     * @param length number of elements in each span
+     */
+    void fma(double a, double[] x, int xOffset, double[] out, int outOffset, int length);
+}
@@ -0,0 +1,284 @@
+/**
+ * LU decomposition with partial pivoting, P * A = L * U, of a square matrix.
+ * <p>
+ *     Factors a packed copy with a blocked, right looking algorithm.  A panel of 64
+ *     columns is factored with row pivoting, then the rest of the matrix is updated
+ *     with one rank 64 update, streaming rows of the panel through the fused
+ *     multiply-add kernel while a band of them stays in cache.
+ * </p>
+ * <p>
+ *     L has ones on its diagonal and is stored below the diagonal of U.  A zero pivot
+ *     marks the matrix as singular, determinant then returns 0 and solve throws.
+ * </p>
+ * The factorization is kept, so solve, inverse and determinant reuse it.
+ *
+ * @author augward
+ */
+public final class LUDecomposition implements MatrixDecomposition {
+    // Columns factored per panel before the trailing update.
+    static final int BLOCK = 64;
+
+    // Size of the matrix.
+    private final int n;
+
+    // L below the diagonal and U on and above it, packed row major.
+    private final double[] lu;
+
+    // Row i of P * A is row pivot[i] of A.
+    private final int[] pivot;
+
+    // Whether P is an even number of row swaps, the sign of its determinant.
+    private final boolean evenSwaps;
+
+    // Whether a pivot was exactly zero.
+    private final boolean singular;
+
+    // Policy of the factored matrix, given to every result.
+    private final NumericPolicy policy;
+
+
+    /**
+     * Factors a square matrix.  The matrix itself is not changed.
+     *
+     * @param a the matrix to factor
+     */
+    public LUDecomposition(Matrix a) {
+        if (a == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("matrix must not be null");
+        }
+        if (a.getRows() != a.getCols()) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("matrix must be square");
+        }
+
+        n = a.getRows();
+        lu = a.copy().array();
+        policy = a.getNumericPolicy();
+        pivot = new int[n];
+        for (int i = 0; i < n; i++) {
+            pivot[i] = i;
+        }
+
+        int swaps = 0;
+        boolean zeroPivot = false;
+        for (int k0 = 0; k0 < n; k0 += BLOCK) {
+            int k1 = Math.min(k0 + BLOCK, n);
+
+            // Panel, columns k0 to k1 of every row below k0.  Whole rows are swapped, the
+            // rows below k0 have all had the same updates so far.
+            for (int k = k0; k < k1; k++) {
+                int p = k;
+                double max = Math.abs(lu[k * n + k]);
+                for (int i = k + 1; i < n; i++) {
+                    double value = Math.abs(lu[i * n + k]);
+                    if (value > max) {
+                        max = value;
+                        p = i;
+                    }
+                }
+                if (p != k) {
+                    swapRows(p, k);
+                    swaps++;
+                }
+
+                double d = lu[k * n + k];
+                if (d == 0) {
+                    // The column is already zero below the pivot, nothing to eliminate.
+                    zeroPivot = true;
+                    continue;
+                }
+                for (int i = k + 1; i < n; i++) {
+                    double l = lu[i * n + k] / d;
+                    lu[i * n + k] = l;
+                    if (l != 0 && k + 1 < k1) {
+                        ElementKernels.fma(-l, lu, k * n + k + 1, lu, i * n + k + 1, k1 - k - 1);
+                    }
+                }
+            }
+            if (k1 == n) {
+                break;
+            }
+
+            // Rows of U right of the panel, solved against the panel's unit lower triangle.
+            for (int i = k0 + 1; i < k1; i++) {
+                for (int k = k0; k < i; k++) {
+                    double l = lu[i * n + k];
+                    if (l != 0) {
+                        ElementKernels.fma(-l, lu, k * n + k1, lu, i * n + k1, n - k1);
+                    }
+                }
+            }
+
+            // Trailing update, A22 -= L21 * U12, a band of U12 columns at a time so it stays in cache.
+            for (int jj = k1; jj < n; jj += BlockedMultiply.COL_BLOCK) {
+                int jEnd = Math.min(jj + BlockedMultiply.COL_BLOCK, n);
+                for (int i = k1; i < n; i++) {
+                    for (int k = k0; k < k1; k++) {
+                        double l = lu[i * n + k];
+                        if (l != 0) {
+                            ElementKernels.fma(-l, lu, k * n + jj, lu, i * n + jj, jEnd - jj);
+                        }
+                    }
+                }
+            }
+        }
+
+        evenSwaps = swaps % 2 == 0;
+        singular = zeroPivot;
+    }
+
+    /**
+     * Swaps two whole rows of the factor and their pivot entries.
+     *
+     * @param r1 first row, 0 based
+     * @param r2 second row, 0 based
+     */
+    private void swapRows(int r1, int r2) {
+        for (int j = 0; j < n; j++) {
+            double temp = lu[r1 * n + j];
+            lu[r1 * n + j] = lu[r2 * n + j];
+            lu[r2 * n + j] = temp;
+        }
+        int temp = pivot[r1];
+        pivot[r1] = pivot[r2];
+        pivot[r2] = temp;
+    }
+
+
+    /**
+     * Returns the number of rows of the factored matrix.
+     *
+     * @return int rows
+     */
+    @Override
+    public int getRows() {
+        return n;
+    }
+
+    /**
+     * Returns the number of columns of the factored matrix.
+     *
+     * @return int columns
+     */
+    @Override
+    public int getCols() {
+        return n;
+    }
+
+    /**
+     * Checks if the matrix is singular, a pivot was exactly zero.
+     *
+     * @return whether the matrix has no inverse
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * Returns the unit lower triangular factor L.
+     *
+     * @return Matrix L, n x n
+     */
+    public Matrix getL() {
+        double[] l = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(lu, i * n, l, i * n, i);
+            l[i * n + i] = 1;
+        }
+        return Matrix.packed(n, n, l, policy);
+    }
+
+    /**
+     * Returns the upper triangular factor U.
+     *
+     * @return Matrix U, n x n
+     */
+    public Matrix getU() {
+        double[] u = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(lu, i * n + i, u, i * n + i, n - i);
+        }
+        return Matrix.packed(n, n, u, policy);
+    }
+
+    /**
+     * Returns the permutation matrix P, P * A = L * U.
+     *
+     * @return Matrix P, n x n
+     */
+    public Matrix getP() {
+        double[] p = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            p[i * n + pivot[i]] = 1;
+        }
+        return Matrix.packed(n, n, p, policy);
+    }
+
+    /**
+     * Returns the determinant, the product of U's diagonal with the sign of P.
+     *
+     * @return double determinant, 0 if singular
+     */
+    public double determinant() {
+        if (singular) {
+            return 0;
+        }
+        double det = evenSwaps ? 1 : -1;
+        for (int i = 0; i < n; i++) {
+            det *= lu[i * n + i];
+        }
+        return policy == NumericPolicy.ROUNDED ? NumericPolicy.round(det) : det;
+    }
+
+    /**
+     * Solves A * X = B by permuting B, then forward and back substitution.
+     *
+     * @param b right hand sides, n x m
+     * @return Matrix X, n x m
+     */
+    @Override
+    public Matrix solve(Matrix b) {
+        checkSolvable(b);
+        int m = b.getCols();
+
+        double[] bData = b.copy().array();
+        double[] x = new double[n * m];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(bData, pivot[i] * m, x, i * m, m);
+        }
+
+        TriangularSolve.forwardUnitLower(lu, n, x, m);
+        TriangularSolve.backwardUpper(lu, n, x, m);
+        return Matrix.packed(n, m, x, policy);
+    }
+
+    /**
+     * Returns the inverse, by solving against the identity.
+     *
+     * @return Matrix inverse, n x n
+     */
+    public Matrix inverse() {
+        return solve(Matrix.identity(n));
+    }
+
+    /**
+     * Helper method to make sure a right hand side fits and the matrix can be solved.
+     *
+     * @param b right hand sides
+     */
+    private void checkSolvable(Matrix b) {
+        if (b == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("b must not be null");
+        }
+        if (b.getRows() != n) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("rows of b must match rows of the matrix");
+        }
+        if (singular) {
+            // Thrown when an exceptional arithmetic condition has occurred.
+            throw new ArithmeticException("matrix is singular");
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Matrix storage backed by a memory mapped region of a file.
+ * <p>
+ *     Elements stay in the file and the operating system pages them in as they are
+ *     touched, so a matrix can be bigger than the heap.  A single mapping is limited
+ *     to 2GB, so the region is mapped in chunks of 2^27 doubles (1GB) and an index is
+ *     split into a chunk and a position inside it.
+ * </p>
+ * <p>
+ *     Doubles are little-endian, see MatrixFile for the layout of the file.  Mappings
+ *     are released by the garbage collector once the storage is unreachable, there is
+ *     no way to unmap them sooner.
+ * </p>
+ *
+ * @author augward
+ */
+public final class MappedStorage implements MatrixStorage {
+    // Doubles per chunk is 2^CHUNK_SHIFT.
+    static final int CHUNK_SHIFT = 27;
+
+    // Number of elements.
+    private final int size;
+
+    // log2 of the doubles per chunk, and the mask that finds a position inside one.
+    private final int shift;
+    private final int mask;
+
+    // Each chunk as a mapping, kept to flush it, and as a double view, used to read and write.
+    private final MappedByteBuffer[] mappings;
+    private final DoubleBuffer[] chunks;
+
+
+    /**
+     * Maps a run of doubles from a file channel.
+     * The mappings stay valid after the channel is closed.
+     *
+     * @param channel open channel of the file
+     * @param mode READ_ONLY or READ_WRITE
+     * @param position byte position of the first element
+     * @param size number of elements
+     * @throws IOException if the file cannot be mapped
+     */
+    MappedStorage(FileChannel channel, FileChannel.MapMode mode, long position, int size) throws IOException {
+        this(channel, mode, position, size, CHUNK_SHIFT);
+    }
+
+    /**
+     * Maps a run of doubles from a file channel, with a chosen chunk size.
+     * Smaller chunks let tests cross chunk boundaries without gigabyte files.
+     *
+     * @param channel open channel of the file
+     * @param mode READ_ONLY or READ_WRITE
+     * @param position byte position of the first element
+     * @param size number of elements
+     * @param shift log2 of the doubles per chunk
+     * @throws IOException if the file cannot be mapped
+     */
+    MappedStorage(FileChannel channel, FileChannel.MapMode mode, long position, int size, int shift) throws IOException {
+        if (size <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("size cannot be negative or 0");
+        }
+        if (shift < 0 || shift > CHUNK_SHIFT) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("shift must be between 0 and " + CHUNK_SHIFT);
+        }
+
+        this.size = size;
+        this.shift = shift;
+        this.mask = (1 << shift) - 1;
+
+        int count = (int) (((long) size + mask) >>> shift);
+        mappings = new MappedByteBuffer[count];
+        chunks = new DoubleBuffer[count];
+        for (int c = 0; c < count; c++) {
+            long first = (long) c << shift;
+            long length = Math.min(1L << shift, size - first);
+            mappings[c] = channel.map(mode, position + first * Double.BYTES, length * Double.BYTES);
+            chunks[c] = mappings[c].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+    }
+
+
+    /**
+     * Writes any changes back to the file, for storage mapped READ_WRITE.
+     */
+    public void force() {
+        for (MappedByteBuffer mapping : mappings) {
+            mapping.force();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int index) {
+        return chunks[index >>> shift].get(index & mask);
+    }
+
+    @Override
+    public void set(int index, double value) {
+        chunks[index >>> shift].put(index & mask, value);
+    }
+
+    @Override
+    public void get(int index, double[] dest, int destOffset, int length) {
+        // Copies one chunk at a time, a run may straddle a boundary.
+        while (length > 0) {
+            int inChunk = index & mask;
+            int n = Math.min(length, mask + 1 - inChunk);
+            chunks[index >>> shift].get(inChunk, dest, destOffset, n);
+            index += n;
+            destOffset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    public void set(int index, double[] src, int srcOffset, int length) {
+        while (length > 0) {
+            int inChunk = index & mask;
+            int n = Math.min(length, mask + 1 - inChunk);
+            chunks[index >>> shift].put(inChunk, src, srcOffset, n);
+            index += n;
+            srcOffset += n;
+            length -= n;
+        }
+    }
+}
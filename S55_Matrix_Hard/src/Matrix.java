@@ -1,22 +1,63 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Represents a mathematical matrix with double-precision elements.
  * <p>
- *     A class with no inheritance or composition that represents a 2D
- *     matrix and can preform basic operations on it.
+ *     A class with no inheritance that represents a 2D matrix and can
+ *     preform basic operations on it.  Elements live in a flat MatrixStorage,
+ *     starting at an offset with a fixed stride between rows and between columns.
  *     Two constructors; one that initializes a matrix with zeros given
- *     the row and column sizes, the other takes in an array of doubles.
+ *     the row and column sizes, the other copies in an array of doubles.
+ * </p>
+ * <p>
+ *     subMatrix, transpose, row and column return views, which share the storage
+ *     of the matrix they came from instead of copying it.  Writing through a view
+ *     changes the original and the other way around, copy() detaches one.
+ * </p>
+ * <p>
+ *     Each matrix carries a NumericPolicy, EXACT unless the default is changed.
+ *     Results of operations take on the policy of the matrix they were called on.
  * </p>
+ * Implements MatrixLike, so it can be mixed with a SparseMatrix in arithmetic.
  *
  * @author augward
  */
 
-public class Matrix {
+public class Matrix implements MatrixLike {
+    // Policy given to new matrices, volatile since any thread may change it.
+    private static volatile NumericPolicy defaultPolicy = NumericPolicy.EXACT;
+
+    // Algorithm the static multiply uses, volatile for the same reason.
+    private static volatile MultiplyAlgorithm defaultAlgorithm = MultiplyAlgorithm.BLOCKED;
+
+    // Pool add, subtract and scalarMultiply split large matrices across, null keeps them serial.
+    private static volatile ForkJoinPool elementPool;
+
     // Rows and Columns of Matrix.
     private int rows;
     private int cols;
 
-    // 2D Double Array of Matrix Data, not final due to being assigned to a different array in multiply in place.
-    private double[][] data;
+    // Flat storage of Matrix Data, not final due to being swapped for the product's storage in multiply in place.
+    private MatrixStorage storage;
+
+    // Backing array of the storage when it has one, lets hot loops skip the interface.  Null otherwise.
+    private double[] array;
+
+    // Index of element (1,1) in the storage, and distance between neighbouring rows and columns.
+    private int offset;
+    private int rowStride;
+    private int colStride;
+
+    // How results are rounded and compared, see NumericPolicy.
+    private NumericPolicy policy = defaultPolicy;
+
+    // Last hash worked out, and the storage write count it was taken at.  Null until hashCode is called.
+    private CachedHash cachedHash;
+
+    // One object for both, so a thread reading the cache never sees a hash paired with the wrong count.
+    private record CachedHash(long modCount, int hash) {
+    }
 
 
     /**
@@ -30,20 +71,66 @@ public class Matrix {
 
         this.rows = rows;
         this.cols = cols;
-        data = new double[rows][cols];
+        useStorage(new ArrayStorage(rows * cols), 0, cols, 1);
     }
 
     /**
      * Constructs a matrix with given data array, creates row and column count.
+     * The array is copied in, so later changes to it do not reach the matrix.
      *
      * @param data the array of arrays, holding the doubles of each element.
      */
     public Matrix(double[][] data) {
         checkValidData(data);
+        checkValidDimensions(data.length, data[0].length);
 
         rows = data.length;
         cols = data[0].length;
-        this.data = data;
+        useStorage(new ArrayStorage(rows * cols), 0, cols, 1);
+
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data[i], 0, array, i * cols, cols);
+        }
+    }
+
+    /**
+     * Constructs a row-major matrix over an existing storage, without copying it.
+     *
+     * @param rows the number of rows in the matrix.
+     * @param cols the number of columns in the matrix.
+     * @param storage flat storage holding the elements
+     * @param offset index of the first element in the storage
+     * @param rowStride distance in the storage between the start of two rows
+     */
+    Matrix(int rows, int cols, MatrixStorage storage, int offset, int rowStride) {
+        this(rows, cols, storage, offset, rowStride, 1);
+    }
+
+    /**
+     * Constructs a matrix over an existing storage with any layout, without copying it.
+     *
+     * @param rows the number of rows in the matrix.
+     * @param cols the number of columns in the matrix.
+     * @param storage flat storage holding the elements
+     * @param offset index of the first element in the storage
+     * @param rowStride distance in the storage between two neighbouring rows
+     * @param colStride distance in the storage between two neighbouring columns
+     */
+    Matrix(int rows, int cols, MatrixStorage storage, int offset, int rowStride, int colStride) {
+        checkValidDimensions(rows, cols);
+        if (storage == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("storage must not be null");
+        }
+        if (offset < 0 || rowStride <= 0 || colStride <= 0
+                || offset + (long) (rows - 1) * rowStride + (long) (cols - 1) * colStride >= storage.size()) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("layout does not fit inside storage");
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        useStorage(storage, offset, rowStride, colStride);
     }
 
 
@@ -52,6 +139,7 @@ public class Matrix {
      *
      * @return rows
      */
+    @Override
     public int getRows() {
         return rows;
     }
@@ -62,23 +150,347 @@ public class Matrix {
      *
      * @return cols
      */
+    @Override
     public int getCols() {
         return cols;
     }
 
 
     /**
-     * Returns the matrix's data, 2D array.
+     * Returns a copy of the matrix's data, 2D array.
+     * Changing the returned array does not change the matrix.
      *
      * @return data
      */
     public double[][] getData() {
+        double[][] data = new double[rows][cols];
+
+        for (int i = 0; i < rows; i++) {
+            if (hasArrayRows()) {
+                System.arraycopy(array, rowStart(i), data[i], 0, cols);
+            } else {
+                for (int j = 0; j < cols; j++) {
+                    data[i][j] = get(i, j);
+                }
+            }
+        }
         return data;
     }
 
     // No need to add setters for rows, cols, and data.  Due to it warping matrices established.
 
 
+    /**
+     * Returns the numeric policy of this matrix.
+     *
+     * @return policy
+     */
+    public NumericPolicy getNumericPolicy() {
+        return policy;
+    }
+
+    /**
+     * Sets the numeric policy of this matrix, results made from it will share it.
+     *
+     * @param policy the new policy
+     */
+    public void setNumericPolicy(NumericPolicy policy) {
+        if (policy == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("policy must not be null");
+        }
+        this.policy = policy;
+    }
+
+    /**
+     * Returns the numeric policy new matrices start with.
+     *
+     * @return defaultPolicy
+     */
+    public static NumericPolicy getDefaultNumericPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Sets the numeric policy new matrices start with, EXACT unless changed.
+     *
+     * @param policy the new default policy
+     */
+    public static void setDefaultNumericPolicy(NumericPolicy policy) {
+        if (policy == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("policy must not be null");
+        }
+        defaultPolicy = policy;
+    }
+
+
+    /**
+     * Returns the storage the matrix's elements live in.
+     *
+     * @return storage
+     */
+    MatrixStorage storage() {
+        return storage;
+    }
+
+    /**
+     * Returns the backing array of the storage, or null if the storage is not array backed.
+     *
+     * @return array
+     */
+    double[] array() {
+        return array;
+    }
+
+    /**
+     * Returns the storage index of the matrix's first element.
+     *
+     * @return offset
+     */
+    int offset() {
+        return offset;
+    }
+
+    /**
+     * Returns the distance in the storage between the start of two rows.
+     *
+     * @return rowStride
+     */
+    int rowStride() {
+        return rowStride;
+    }
+
+    /**
+     * Returns the distance in the storage between two neighbouring columns, 1 unless transposed.
+     *
+     * @return colStride
+     */
+    int colStride() {
+        return colStride;
+    }
+
+    /**
+     * Returns the storage index where a row starts.
+     *
+     * @param i row, 0 based
+     * @return storage index of element (i, 0)
+     */
+    int rowStart(int i) {
+        return offset + i * rowStride;
+    }
+
+    /**
+     * Checks if each row is a contiguous span of the heap array, the layout the array kernels need.
+     *
+     * @return whether rows can be handed to the array kernels
+     */
+    boolean hasArrayRows() {
+        return array != null && colStride == 1;
+    }
+
+    /**
+     * Checks if the rows sit back to back in storage, so the whole matrix is one span.
+     *
+     * @return whether the matrix is a single contiguous span
+     */
+    boolean isContiguous() {
+        return colStride == 1 && (rowStride == cols || rows == 1);
+    }
+
+    /**
+     * Reads an element without bounds checks, used by kernels.
+     *
+     * @param i row, 0 based
+     * @param j column, 0 based
+     * @return double element
+     */
+    double get(int i, int j) {
+        return storage.get(offset + i * rowStride + j * colStride);
+    }
+
+    /**
+     * Writes an element without bounds checks, used by kernels.
+     *
+     * @param i row, 0 based
+     * @param j column, 0 based
+     * @param value double element to store
+     */
+    void set(int i, int j, double value) {
+        storage.set(offset + i * rowStride + j * colStride, value);
+    }
+
+    /**
+     * Copies part of a row into an array, used by kernels that work a chunk at a time.
+     *
+     * @param i row, 0 based
+     * @param j first column, 0 based
+     * @param dest array to copy into
+     * @param destOffset position in dest of column j
+     * @param length number of columns
+     */
+    void getRowRange(int i, int j, double[] dest, int destOffset, int length) {
+        if (colStride == 1) {
+            storage.get(rowStart(i) + j, dest, destOffset, length);
+        } else {
+            for (int k = 0; k < length; k++) {
+                dest[destOffset + k] = get(i, j + k);
+            }
+        }
+    }
+
+    /**
+     * Copies an array into part of a row, used by kernels that work a chunk at a time.
+     *
+     * @param i row, 0 based
+     * @param j first column, 0 based
+     * @param src array to copy from
+     * @param srcOffset position in src of column j
+     * @param length number of columns
+     */
+    void setRowRange(int i, int j, double[] src, int srcOffset, int length) {
+        if (colStride == 1) {
+            storage.set(rowStart(i) + j, src, srcOffset, length);
+        } else {
+            for (int k = 0; k < length; k++) {
+                set(i, j + k, src[srcOffset + k]);
+            }
+        }
+        modified();
+    }
+
+    /**
+     * Records a write to the elements, so a cached hash over the storage goes stale.
+     * Views share the storage, so a write through one is seen by all of them.
+     * Kernels that write to the array directly call it once they finish.
+     */
+    void modified() {
+        storage.modified();
+    }
+
+    /**
+     * Points the matrix at a storage and layout, caching its array when it has one.
+     *
+     * @param storage flat storage holding the elements
+     * @param offset index of the first element
+     * @param rowStride distance between two neighbouring rows
+     * @param colStride distance between two neighbouring columns
+     */
+    private void useStorage(MatrixStorage storage, int offset, int rowStride, int colStride) {
+        this.storage = storage;
+        this.array = (storage instanceof ArrayStorage arrayStorage) ? arrayStorage.array() : null;
+        this.cachedHash = null;
+        this.offset = offset;
+        this.rowStride = rowStride;
+        this.colStride = colStride;
+    }
+
+    /**
+     * Creates an empty matrix to hold the result of an operation on this one, with this matrix's policy.
+     *
+     * @param rows rows of the result
+     * @param cols columns of the result
+     * @return Matrix of zeros sharing this matrix's policy
+     */
+    private Matrix newResult(int rows, int cols) {
+        Matrix result = new Matrix(rows, cols);
+        result.policy = policy;
+        return result;
+    }
+
+    /**
+     * Creates a view over this matrix's storage, with this matrix's policy.
+     *
+     * @param rows rows of the view
+     * @param cols columns of the view
+     * @param offset index of the view's first element
+     * @param rowStride distance between two neighbouring rows
+     * @param colStride distance between two neighbouring columns
+     * @return Matrix sharing this matrix's storage and policy
+     */
+    private Matrix newView(int rows, int cols, int offset, int rowStride, int colStride) {
+        Matrix view = new Matrix(rows, cols, storage, offset, rowStride, colStride);
+        view.policy = policy;
+        return view;
+    }
+
+    /**
+     * Wraps a packed row major array in a matrix without copying, then applies the policy.
+     * Used by the decompositions to hand back their results.
+     *
+     * @param rows rows of the matrix
+     * @param cols columns of the matrix
+     * @param data elements, rows * cols long, owned by the new matrix from now on
+     * @param policy policy of the new matrix
+     * @return Matrix over data
+     */
+    static Matrix packed(int rows, int cols, double[] data, NumericPolicy policy) {
+        Matrix matrix = new Matrix(rows, cols, new ArrayStorage(data), 0, cols);
+        matrix.policy = policy;
+        matrix.applyPolicy();
+        return matrix;
+    }
+
+    /**
+     * Rounds every element once if the policy asks for it, used after finishing a product.
+     */
+    void applyPolicy() {
+        if (policy != NumericPolicy.ROUNDED) {
+            return;
+        }
+
+        for (int i = 0; i < rows; i++) {
+            if (hasArrayRows()) {
+                int start = rowStart(i);
+                for (int j = start; j < start + cols; j++) {
+                    array[j] = NumericPolicy.round(array[j]);
+                }
+            } else {
+                for (int j = 0; j < cols; j++) {
+                    set(i, j, NumericPolicy.round(get(i, j)));
+                }
+            }
+        }
+        modified();
+    }
+
+    /**
+     * Checks if writing into this matrix could change elements of another matrix before they are read.
+     * Only happens when both share storage, cover some of the same indexes, and are laid out differently.
+     *
+     * @param other matrix that will be read while this one is written
+     * @return whether other should be copied before the write
+     */
+    boolean overlapsDifferently(Matrix other) {
+        if (storage != other.storage) {
+            return false;
+        }
+        if (offset == other.offset && rowStride == other.rowStride && colStride == other.colStride) {
+            // Same layout, each element is read right before it is written.
+            return false;
+        }
+        return firstIndex() <= other.lastIndex() && other.firstIndex() <= lastIndex();
+    }
+
+    /**
+     * Returns the lowest storage index the matrix touches.
+     *
+     * @return offset
+     */
+    private int firstIndex() {
+        return offset;
+    }
+
+    /**
+     * Returns the highest storage index the matrix touches.
+     *
+     * @return index of the last element
+     */
+    private int lastIndex() {
+        return offset + (rows - 1) * rowStride + (cols - 1) * colStride;
+    }
+
+
     /**
      * Returns an element from a certain row and column.
      *
@@ -86,9 +498,10 @@ public class Matrix {
      * @param cols the desired column to call from
      * @return double element from data
      */
+    @Override
     public double getElement(int rows, int cols) {
         checkValidPosition(rows, cols);
-        return data[rows - 1][cols - 1];
+        return get(rows - 1, cols - 1);
     }
 
     /**
@@ -100,7 +513,8 @@ public class Matrix {
      */
     public void setElement(int rows, int cols, double newElement) {
         checkValidPosition(rows, cols);
-        data[rows - 1][cols - 1] = newElement;
+        set(rows - 1, cols - 1, newElement);
+        modified();
     }
 
 
@@ -114,19 +528,19 @@ public class Matrix {
             // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
             throw new IllegalArgumentException("data must not be null");
         }
-        if ((data.length == 0) || (data[0].length == 0)) {
+        if ((data.length == 0) || (data[0] == null) || (data[0].length == 0)) {
             // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
             throw new IllegalArgumentException("data length must not be 0");
         }
 
-        for (int i = 0; i < rows; i++) {
+        for (int i = 0; i < data.length; i++) {
             if (data[i] == null) {
                 // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
                 throw new IllegalArgumentException("data[i] must not be null");
             }
-            if (data[i].length == 0) {
+            if (data[i].length != data[0].length) {
                 // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
-                throw new IllegalArgumentException("data[i] length must not be 0");
+                throw new IllegalArgumentException("data[i] length must match data[0] length");
             }
         }
     }
@@ -145,6 +559,9 @@ public class Matrix {
         } else if (cols <= 0) {
             // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
             throw new IllegalArgumentException("cols cannot be negative or 0");
+        } else if ((long) rows * cols > Integer.MAX_VALUE) {
+            // Flat storage is indexed by int, so the element count has to fit in one.
+            throw new IllegalArgumentException("rows * cols is too large");
         }
     }
 
@@ -166,6 +583,19 @@ public class Matrix {
     }
 
 
+    /**
+     * Helper method to make sure a second matrix can be multiplied against this one.
+     *
+     * @param rows rows of second matrix, must match this matrix's columns
+     */
+    public void checkMultiplyDimensions(int rows) {
+        if (cols != rows) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("rows and cols are not equal for multiplication");
+        }
+    }
+
+
     /**
      * Helper method to make sure that two matrices have the same dimensions.
      *
@@ -182,114 +612,341 @@ public class Matrix {
 
 
     /**
-     * Compares the matrix with another object.
-     * Compares against object to allow use of Override and ==, but only works with matrices.
+     * Compares the matrix with another object, element by element.
+     * Elements match when they are ==, or both NaN, so a matrix always equals itself.
+     * Two TOLERANCE matrices only need elements within tolerance of each other, use
+     * approxEquals for that with any policy.  A TOLERANCE matrix never equals one of
+     * another policy, the two hash differently.
+     * Rows are compared in bulk with Arrays.mismatch, stopping at the first difference.
      *
      * @param obj the object of the comparison
-     * @return boolean if they are equal or not
+     * @return boolean if they are equal or not, false for anything but a Matrix
      */
     @Override
     public boolean equals(Object obj) {
         // Turns into Matrix class now instead of Object.  Cast due to pattern.
-        if (obj instanceof Matrix matrix2) {
-            // Checks if sizes are equal first, doesn't use checkSameDimensions due to looking for false.
-            if ((rows != matrix2.getRows()) || (cols != matrix2.getCols())) {
-                return false;
+        if (!(obj instanceof Matrix matrix2)) {
+            return false;
+        }
+        // Checks if sizes are equal first, doesn't use checkSameDimensions due to looking for false.
+        if ((rows != matrix2.getRows()) || (cols != matrix2.getCols())) {
+            return false;
+        }
+        if (matrix2 == this || (storage == matrix2.storage && offset == matrix2.offset
+                && rowStride == matrix2.rowStride && colStride == matrix2.colStride)) {
+            // The same elements, whatever the policy.
+            return true;
+        }
+
+        boolean tolerant1 = policy == NumericPolicy.TOLERANCE;
+        boolean tolerant2 = matrix2.policy == NumericPolicy.TOLERANCE;
+        if (tolerant1 != tolerant2) {
+            return false;
+        }
+        if (tolerant1) {
+            return elementsMatch(matrix2, NumericPolicy.TOLERANCE_EPSILON);
+        }
+
+        // Differing cached hashes settle it without touching the elements.
+        CachedHash hash1 = validCachedHash();
+        CachedHash hash2 = matrix2.validCachedHash();
+        if (hash1 != null && hash2 != null && hash1.hash() != hash2.hash()) {
+            return false;
+        }
+
+        // Rows that aren't packed in an array are copied out a row at a time first.
+        double[] buffer1 = hasArrayRows() ? null : new double[cols];
+        double[] buffer2 = matrix2.hasArrayRows() ? null : new double[cols];
+        for (int i = 0; i < rows; i++) {
+            double[] x = array;
+            int xStart = 0;
+            if (buffer1 == null) {
+                xStart = rowStart(i);
+            } else {
+                getRowRange(i, 0, buffer1, 0, cols);
+                x = buffer1;
             }
 
-            // Checks if each element is equivalent.
-            for (int i = 0; i < rows; i++) {
-                for (int j = 0; j < cols; j++) {
-                    if (data[i][j] != matrix2.data[i][j]) {
-                        return false;
-                    }
-                }
+            double[] y = matrix2.array;
+            int yStart = 0;
+            if (buffer2 == null) {
+                yStart = matrix2.rowStart(i);
+            } else {
+                matrix2.getRowRange(i, 0, buffer2, 0, cols);
+                y = buffer2;
             }
-            return true;
 
-        } else {
-            // Thrown to indicate that the code has attempted to cast an object to a subclass of which it is not an instance.
-            throw new ClassCastException("Object is not a Matrix");
+            if (!rowsEqual(x, xStart, y, yStart, cols)) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
-     * Returns an identity matrix of given size.
+     * Compares two runs of elements.  Arrays.mismatch compares bits, which is vectorized,
+     * but tells 0.0 and -0.0 apart, so a mismatch there is checked with == and skipped.
      *
-     * @param size the number of rows and columns of the matrix
-     * @return Matrix full of zeros, and 1s along the center diagonal axis
+     * @param x first array
+     * @param xStart start of the run in x
+     * @param y second array
+     * @param yStart start of the run in y
+     * @param length number of elements
+     * @return whether every pair matches
      */
-    public static Matrix identity(int size) {
-        // Can't use checkValidDimensions due to this being a static class.
-        if (size <= 0) {
-            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
-            throw new IllegalArgumentException("size is invalid");
+    private static boolean rowsEqual(double[] x, int xStart, double[] y, int yStart, int length) {
+        int from = 0;
+        while (from < length) {
+            int k = Arrays.mismatch(x, xStart + from, xStart + length, y, yStart + from, yStart + length);
+            if (k < 0) {
+                return true;
+            }
+            if (x[xStart + from + k] != y[yStart + from + k]) {
+                return false;
+            }
+            from += k + 1;
         }
+        return true;
+    }
 
-        Matrix identityMatrix = new Matrix(size, size);
-        for (int i = 0; i < size; i++) {
-            identityMatrix.data[i][i] = 1;
+    /**
+     * Checks if every element is within a relative tolerance of another matrix's, whatever either policy is.
+     * Elements match when |a - b| is at most epsilon * max(1, |a|, |b|), so epsilon is absolute
+     * for elements below 1 and relative above it.  NaN only matches NaN.
+     *
+     * @param matrix2 the matrix to compare against
+     * @param epsilon largest difference still counted as equal, at least 0
+     * @return boolean if they have the same dimensions and every element is within epsilon
+     */
+    public boolean approxEquals(Matrix matrix2, double epsilon) {
+        if (matrix2 == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("matrix2 must not be null");
         }
-
-        return identityMatrix;
+        if (!(epsilon >= 0)) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("epsilon must be 0 or more");
+        }
+        if ((rows != matrix2.getRows()) || (cols != matrix2.getCols())) {
+            return false;
+        }
+        return elementsMatch(matrix2, epsilon);
     }
 
     /**
-     * Creates a sub matrix from current matrix.
-     * Takes in 4 parameters, which guide the bounds of the smaller matrix.
+     * Compares elements within a tolerance, a row at a time.
      *
-     * @param upperRow the upper bound of the sub matrix
-     * @param lowerRow the lower bound of the sub matrix
-     * @param leftCol the left bound of the sub matrix
-     * @param rightCol the right bound of the sub matrix
-     * @return Matrix which is a portion of the original matrix
+     * @param matrix2 the matrix to compare against, same dimensions as this one
+     * @param epsilon largest scaled difference still counted as equal
+     * @return whether every element is within tolerance
      */
-    public Matrix subMatrix(int upperRow, int leftCol, int lowerRow, int rightCol) {
-        checkValidPosition(upperRow, leftCol);
-        checkValidPosition(lowerRow, rightCol);
+    private boolean elementsMatch(Matrix matrix2, double epsilon) {
+        double[] row1 = new double[cols];
+        double[] row2 = new double[cols];
+        for (int i = 0; i < rows; i++) {
+            getRowRange(i, 0, row1, 0, cols);
+            matrix2.getRowRange(i, 0, row2, 0, cols);
+            for (int j = 0; j < cols; j++) {
+                if (!NumericPolicy.withinTolerance(row1[j], row2[j], epsilon)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash of the dimensions and elements, equal matrices hash the same.
+     * <p>
+     *     The hash is cached for heap matrices and worked out again only after the
+     *     elements change, through this matrix or any view sharing its storage, so a
+     *     matrix can be a key in a memoization cache.  Changing a matrix while it is a
+     *     key in a HashMap loses it, like any mutable key.
+     * </p>
+     * TOLERANCE matrices equal each other when they differ slightly, so they hash on their
+     * dimensions alone, and equals keeps them apart from matrices of the other policies.
+     *
+     * @return int hash code
+     */
+    @Override
+    public int hashCode() {
+        if (policy == NumericPolicy.TOLERANCE) {
+            return 31 * rows + cols;
+        }
+
+        CachedHash cached = validCachedHash();
+        if (cached != null) {
+            return cached.hash();
+        }
+
+        long modCount = storage.modCount();
+        int hash = 31 * rows + cols;
+        double[] buffer = hasArrayRows() ? null : new double[cols];
+        for (int i = 0; i < rows; i++) {
+            double[] x = array;
+            int start = 0;
+            if (buffer == null) {
+                start = rowStart(i);
+            } else {
+                getRowRange(i, 0, buffer, 0, cols);
+                x = buffer;
+            }
+            for (int j = start; j < start + cols; j++) {
+                // Adding 0 turns -0 into +0, which equals treats the same, and Double.hashCode folds every NaN into one.
+                hash = 31 * hash + Double.hashCode(x[j] + 0.0);
+            }
+        }
+
+        if (modCount >= 0) {
+            cachedHash = new CachedHash(modCount, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the cached hash if the elements haven't changed since it was taken.
+     *
+     * @return CachedHash still valid, or null
+     */
+    private CachedHash validCachedHash() {
+        CachedHash cached = cachedHash;
+        long modCount = storage.modCount();
+        return (cached != null && modCount >= 0 && cached.modCount() == modCount) ? cached : null;
+    }
+
+    /**
+     * Returns an identity matrix of given size.
+     *
+     * @param size the number of rows and columns of the matrix
+     * @return Matrix full of zeros, and 1s along the center diagonal axis
+     */
+    public static Matrix identity(int size) {
+        // Can't use checkValidDimensions due to this being a static class.
+        if (size <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("size is invalid");
+        }
+
+        Matrix identityMatrix = new Matrix(size, size);
+        for (int i = 0; i < size; i++) {
+            identityMatrix.set(i, i, 1);
+        }
+
+        return identityMatrix;
+    }
+
+    /**
+     * Creates a sub matrix from current matrix.
+     * Takes in 4 parameters, which guide the bounds of the smaller matrix.
+     * The sub matrix is a view, it shares this matrix's storage instead of copying, so it takes O(1) time.
+     *
+     * @param upperRow the upper bound of the sub matrix
+     * @param lowerRow the lower bound of the sub matrix
+     * @param leftCol the left bound of the sub matrix
+     * @param rightCol the right bound of the sub matrix
+     * @return Matrix which is a portion of the original matrix
+     */
+    public Matrix subMatrix(int upperRow, int leftCol, int lowerRow, int rightCol) {
+        checkValidPosition(upperRow, leftCol);
+        checkValidPosition(lowerRow, rightCol);
 
         // adds 1 to bounds because if bounds are 1 - 3, then it's not 3-1=2, but 3 rows.
         int newRows = lowerRow - upperRow + 1;
         int newCols = rightCol - leftCol + 1;
         checkValidDimensions(newRows, newCols);
 
-        Matrix newMatrix = new Matrix(newRows, newCols);
+        // Starts at the upper left element and keeps this matrix's strides.
+        int newOffset = offset + (upperRow - 1) * rowStride + (leftCol - 1) * colStride;
+        return newView(newRows, newCols, newOffset, rowStride, colStride);
+    }
 
-        for (int i = 0; i < newRows; i++) {
-            // Originally for loop, yellow line unless auto changed.  Due to more efficient copying of arrays.
-            System.arraycopy(data[upperRow + i - 1], leftCol - 1, newMatrix.data[i], 0, newCols);
-        }
-        return newMatrix;
+    /**
+     * Returns the transpose of the matrix as a view, rows become columns, in O(1) time.
+     *
+     * @return Matrix view with rows and columns swapped, sharing this matrix's storage
+     */
+    public Matrix transpose() {
+        // Swapping the strides swaps how rows and columns walk the storage.
+        return newView(cols, rows, offset, colStride, rowStride);
     }
 
     /**
-     * Prints out the matrix representation of the class, each row has its own line.
+     * Returns one row of the matrix as a 1 x cols view.
      *
-     * @return string representation of the matrix
+     * @param row the desired row, 1 based
+     * @return Matrix view of the row, sharing this matrix's storage
+     */
+    public Matrix row(int row) {
+        return subMatrix(row, 1, row, cols);
+    }
+
+    /**
+     * Returns one column of the matrix as a rows x 1 view.
+     *
+     * @param col the desired column, 1 based
+     * @return Matrix view of the column, sharing this matrix's storage
+     */
+    public Matrix column(int col) {
+        return subMatrix(1, col, rows, col);
+    }
+
+    /**
+     * Returns this matrix, it is already dense.
+     *
+     * @return this
      */
     @Override
-    public String toString() {
-        // Allows for quick construction of strings and appends.
-        StringBuilder printedMatrix = new StringBuilder();
+    public Matrix toDense() {
+        return this;
+    }
 
-        for (int i = 0; i < rows; i++) {
-            printedMatrix.append("[");
-            for (int j = 0; j < cols; j++) {
-                // adds single element of matrix and decides whether to add a comma or bracket.
-                printedMatrix.append(data[i][j]);
-                if (j != cols - 1) {
-                    printedMatrix.append(", ");
+    /**
+     * Returns a copy of the matrix in its own, tightly packed storage.
+     * Used to turn a view into an independent matrix.
+     *
+     * @return Matrix with the same elements and no shared storage
+     */
+    public Matrix copy() {
+        Matrix newMatrix = newResult(rows, cols);
+
+        if (isContiguous()) {
+            storage.get(offset, newMatrix.array, 0, rows * cols);
+        } else {
+            for (int i = 0; i < rows; i++) {
+                if (hasArrayRows()) {
+                    // Originally for loop, yellow line unless auto changed.  Due to more efficient copying of arrays.
+                    System.arraycopy(array, rowStart(i), newMatrix.array, i * cols, cols);
+                } else if (colStride == 1) {
+                    storage.get(rowStart(i), newMatrix.array, i * cols, cols);
                 } else {
-                    printedMatrix.append("]");
+                    for (int j = 0; j < cols; j++) {
+                        newMatrix.set(i, j, get(i, j));
+                    }
                 }
             }
-
-            // Next row of matrix
-            if (i != rows - 1) {
-                printedMatrix.append("\n");
-            }
         }
-        return printedMatrix.toString();
+        return newMatrix;
+    }
+
+    /**
+     * Starts a lazy expression from this matrix, for chaining element-wise operations.
+     * Nothing is computed until the expression is evaluated, see MatrixExpression.
+     *
+     * @return MatrixExpression over this matrix
+     */
+    public MatrixExpression lazy() {
+        return MatrixExpression.of(this);
+    }
+
+    /**
+     * Prints out the matrix representation of the class, each row has its own line.
+     *
+     * @return string representation of the matrix
+     */
+    @Override
+    public String toString() {
+        // Same text MatrixWriter streams out, built in memory.  Use a MatrixWriter directly for big matrices.
+        return new MatrixWriter().format(this);
     }
 
 
@@ -301,16 +958,53 @@ public class Matrix {
      */
     public Matrix add(Matrix matrix2) {
         checkSameDimensions(matrix2.getRows(), matrix2.getCols());
-        Matrix output = new Matrix(rows, cols);
+        Matrix output = newResult(rows, cols);
 
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                output.data[i][j] = data[i][j] + matrix2.data[i][j];
-            }
-        }
+        addInto(this, matrix2, output, elementPool);
         return output;
     }
 
+    /**
+     * Returns a new matrix of this matrix and second matrix added, spread across a thread pool.
+     * Stays on the calling thread when the matrix is under ParallelElementwise's threshold.
+     *
+     * @param matrix2 the matrix to add to current
+     * @param pool the ForkJoinPool to run on, can be shared with the rest of an application
+     * @return a new matrix of both previous added
+     */
+    public Matrix add(Matrix matrix2, ForkJoinPool pool) {
+        checkPool(pool);
+        checkSameDimensions(matrix2.getRows(), matrix2.getCols());
+        Matrix output = newResult(rows, cols);
+
+        addInto(this, matrix2, output, pool);
+        return output;
+    }
+
+    /**
+     * Returns a new matrix of this matrix and any MatrixLike added.
+     * A sparse matrix only touches its non-zero elements of the copy.
+     *
+     * @param other the matrix to add to current
+     * @return a new matrix of both previous added
+     */
+    @Override
+    public Matrix add(MatrixLike other) {
+        if (other instanceof Matrix matrix2) {
+            return add(matrix2);
+        }
+        checkSameDimensions(other.getRows(), other.getCols());
+
+        if (other instanceof SparseMatrix sparse) {
+            long started = MatrixMetrics.start();
+            Matrix output = copy();
+            sparse.addInto(output, 1);
+            MatrixMetrics.record(MatrixMetrics.Operation.ADD, rows, cols, sparse.nonZeroCount(), started);
+            return output;
+        }
+        return add(other.toDense());
+    }
+
     /**
      * Allows two matrices to be added in static overall method.
      *
@@ -330,9 +1024,77 @@ public class Matrix {
     public void addInPlace(Matrix matrix2) {
         checkSameDimensions(matrix2.getRows(), matrix2.getCols());
 
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] += matrix2.data[i][j];
+        // A view over this matrix's own storage, like its transpose, has to be read before it is overwritten.
+        addInto(this, overlapsDifferently(matrix2) ? matrix2.copy() : matrix2, this, elementPool);
+    }
+
+    /**
+     * Changes the current matrix by adding a second one, spread across a thread pool.
+     *
+     * @param matrix2 second matrix to be added
+     * @param pool the ForkJoinPool to run on
+     */
+    public void addInPlace(Matrix matrix2, ForkJoinPool pool) {
+        checkPool(pool);
+        checkSameDimensions(matrix2.getRows(), matrix2.getCols());
+
+        addInto(this, overlapsDifferently(matrix2) ? matrix2.copy() : matrix2, this, pool);
+    }
+
+    /**
+     * Adds x and y into out, all three are expected to share dimensions.
+     *
+     * @param x first matrix
+     * @param y second matrix
+     * @param out output matrix, may be x or y
+     * @param pool pool to split large heap matrices across, null for none
+     */
+    private static void addInto(Matrix x, Matrix y, Matrix out, ForkJoinPool pool) {
+        long started = MatrixMetrics.start();
+        addElements(x, y, out, pool);
+        MatrixMetrics.record(MatrixMetrics.Operation.ADD, out.rows, out.cols, (long) out.rows * out.cols, started);
+    }
+
+    /**
+     * Adds x and y into out without recording it with MatrixMetrics.
+     * For the steps of an operation that is recorded as a whole, like the sums inside a Strassen product.
+     *
+     * @param x first matrix
+     * @param y second matrix
+     * @param out output matrix, may be x or y
+     * @param pool pool to split large heap matrices across, null for none
+     */
+    static void addElements(Matrix x, Matrix y, Matrix out, ForkJoinPool pool) {
+        if (!x.hasArrayRows() || !y.hasArrayRows() || !out.hasArrayRows()) {
+            for (int i = 0; i < out.rows; i++) {
+                for (int j = 0; j < out.cols; j++) {
+                    out.set(i, j, x.get(i, j) + y.get(i, j));
+                }
+            }
+        } else if (ParallelElementwise.worthSplitting(out.rows, out.cols, pool)) {
+            ParallelElementwise.forRows(out.rows, out.cols, pool, (start, end) -> addRows(x, y, out, start, end));
+        } else {
+            addRows(x, y, out, 0, out.rows);
+        }
+        out.modified();
+    }
+
+    /**
+     * Adds a band of rows of x and y into out, all three having array rows.
+     *
+     * @param x first matrix
+     * @param y second matrix
+     * @param out output matrix
+     * @param start first row, 0 based
+     * @param end row after the last
+     */
+    private static void addRows(Matrix x, Matrix y, Matrix out, int start, int end) {
+        if (x.isContiguous() && y.isContiguous() && out.isContiguous()) {
+            ElementKernels.add(x.array, x.rowStart(start), y.array, y.rowStart(start),
+                    out.array, out.rowStart(start), (end - start) * out.cols);
+        } else {
+            for (int i = start; i < end; i++) {
+                ElementKernels.add(x.array, x.rowStart(i), y.array, y.rowStart(i), out.array, out.rowStart(i), out.cols);
             }
         }
     }
@@ -346,16 +1108,53 @@ public class Matrix {
      */
     public Matrix subtract(Matrix matrix2) {
         checkSameDimensions(matrix2.getRows(), matrix2.getCols());
-        Matrix output = new Matrix(rows, cols);
+        Matrix output = newResult(rows, cols);
 
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                output.data[i][j] = data[i][j] - matrix2.data[i][j];
-            }
-        }
+        subtractInto(this, matrix2, output, elementPool);
+        return output;
+    }
+
+    /**
+     * Returns a new matrix of this matrix and second matrix subtracted, spread across a thread pool.
+     * Stays on the calling thread when the matrix is under ParallelElementwise's threshold.
+     *
+     * @param matrix2 the matrix to subtract from current
+     * @param pool the ForkJoinPool to run on, can be shared with the rest of an application
+     * @return a new matrix of both previous subtracted
+     */
+    public Matrix subtract(Matrix matrix2, ForkJoinPool pool) {
+        checkPool(pool);
+        checkSameDimensions(matrix2.getRows(), matrix2.getCols());
+        Matrix output = newResult(rows, cols);
+
+        subtractInto(this, matrix2, output, pool);
         return output;
     }
 
+    /**
+     * Returns a new matrix of this matrix and any MatrixLike subtracted.
+     * A sparse matrix only touches its non-zero elements of the copy.
+     *
+     * @param other the matrix to subtract from current
+     * @return a new matrix of both previous subtracted
+     */
+    @Override
+    public Matrix subtract(MatrixLike other) {
+        if (other instanceof Matrix matrix2) {
+            return subtract(matrix2);
+        }
+        checkSameDimensions(other.getRows(), other.getCols());
+
+        if (other instanceof SparseMatrix sparse) {
+            long started = MatrixMetrics.start();
+            Matrix output = copy();
+            sparse.addInto(output, -1);
+            MatrixMetrics.record(MatrixMetrics.Operation.SUBTRACT, rows, cols, sparse.nonZeroCount(), started);
+            return output;
+        }
+        return subtract(other.toDense());
+    }
+
     /**
      * Allows to matrices to be subtracted in static overall method.
      *
@@ -375,9 +1174,77 @@ public class Matrix {
     public void subtractInPlace(Matrix matrix2) {
         checkSameDimensions(matrix2.getRows(), matrix2.getCols());
 
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] -= matrix2.data[i][j];
+        // A view over this matrix's own storage, like its transpose, has to be read before it is overwritten.
+        subtractInto(this, overlapsDifferently(matrix2) ? matrix2.copy() : matrix2, this, elementPool);
+    }
+
+    /**
+     * Changes the current matrix by subtracting a second one, spread across a thread pool.
+     *
+     * @param matrix2 second matrix to be subtracted
+     * @param pool the ForkJoinPool to run on
+     */
+    public void subtractInPlace(Matrix matrix2, ForkJoinPool pool) {
+        checkPool(pool);
+        checkSameDimensions(matrix2.getRows(), matrix2.getCols());
+
+        subtractInto(this, overlapsDifferently(matrix2) ? matrix2.copy() : matrix2, this, pool);
+    }
+
+    /**
+     * Subtracts y from x into out, all three are expected to share dimensions.
+     *
+     * @param x first matrix
+     * @param y second matrix
+     * @param out output matrix, may be x or y
+     * @param pool pool to split large heap matrices across, null for none
+     */
+    private static void subtractInto(Matrix x, Matrix y, Matrix out, ForkJoinPool pool) {
+        long started = MatrixMetrics.start();
+        subtractElements(x, y, out, pool);
+        MatrixMetrics.record(MatrixMetrics.Operation.SUBTRACT, out.rows, out.cols, (long) out.rows * out.cols, started);
+    }
+
+    /**
+     * Subtracts y from x into out without recording it with MatrixMetrics.
+     * For the steps of an operation that is recorded as a whole, like the sums inside a Strassen product.
+     *
+     * @param x first matrix
+     * @param y second matrix
+     * @param out output matrix, may be x or y
+     * @param pool pool to split large heap matrices across, null for none
+     */
+    static void subtractElements(Matrix x, Matrix y, Matrix out, ForkJoinPool pool) {
+        if (!x.hasArrayRows() || !y.hasArrayRows() || !out.hasArrayRows()) {
+            for (int i = 0; i < out.rows; i++) {
+                for (int j = 0; j < out.cols; j++) {
+                    out.set(i, j, x.get(i, j) - y.get(i, j));
+                }
+            }
+        } else if (ParallelElementwise.worthSplitting(out.rows, out.cols, pool)) {
+            ParallelElementwise.forRows(out.rows, out.cols, pool, (start, end) -> subtractRows(x, y, out, start, end));
+        } else {
+            subtractRows(x, y, out, 0, out.rows);
+        }
+        out.modified();
+    }
+
+    /**
+     * Subtracts a band of rows of y from x into out, all three having array rows.
+     *
+     * @param x first matrix
+     * @param y second matrix
+     * @param out output matrix
+     * @param start first row, 0 based
+     * @param end row after the last
+     */
+    private static void subtractRows(Matrix x, Matrix y, Matrix out, int start, int end) {
+        if (x.isContiguous() && y.isContiguous() && out.isContiguous()) {
+            ElementKernels.subtract(x.array, x.rowStart(start), y.array, y.rowStart(start),
+                    out.array, out.rowStart(start), (end - start) * out.cols);
+        } else {
+            for (int i = start; i < end; i++) {
+                ElementKernels.subtract(x.array, x.rowStart(i), y.array, y.rowStart(i), out.array, out.rowStart(i), out.cols);
             }
         }
     }
@@ -389,15 +1256,27 @@ public class Matrix {
      * @param scalar the double to multiply against matrix
      * @return a new matrix of both components multiplied
      */
+    @Override
     public Matrix scalarMultiply(double scalar) {
-        Matrix output = new Matrix(rows, cols);
+        Matrix output = newResult(rows, cols);
 
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                // Multiplying and dividing it by 1,000,000 gets rid of any floating point errors while still allowing accuracy.
-                output.data[i][j] = (double) Math.round((data[i][j] * scalar) * 1000000) / 1000000;
-            }
-        }
+        scaleInto(this, scalar, output, elementPool);
+        return output;
+    }
+
+    /**
+     * Returns a new matrix of this matrix and a scalar multiplied, spread across a thread pool.
+     * Stays on the calling thread when the matrix is under ParallelElementwise's threshold.
+     *
+     * @param scalar the double to multiply against matrix
+     * @param pool the ForkJoinPool to run on, can be shared with the rest of an application
+     * @return a new matrix of both components multiplied
+     */
+    public Matrix scalarMultiply(double scalar, ForkJoinPool pool) {
+        checkPool(pool);
+        Matrix output = newResult(rows, cols);
+
+        scaleInto(this, scalar, output, pool);
         return output;
     }
 
@@ -418,13 +1297,97 @@ public class Matrix {
      * @param scalar the number each element is multiplied by
      */
     public void scalarMultiplyInPlace(double scalar) {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                data[i][j] = (double) Math.round((data[i][j] * scalar) * 1000000) / 1000000; // Stops floating point error for e-6
+        scaleInto(this, scalar, this, elementPool);
+    }
+
+    /**
+     * Changes the current matrix by multiplying it against a scalar, spread across a thread pool.
+     *
+     * @param scalar the number each element is multiplied by
+     * @param pool the ForkJoinPool to run on
+     */
+    public void scalarMultiplyInPlace(double scalar, ForkJoinPool pool) {
+        checkPool(pool);
+        scaleInto(this, scalar, this, pool);
+    }
+
+    /**
+     * Multiplies x by a scalar into out, both are expected to share dimensions.
+     * Rounds afterwards if out's policy asks for it.
+     *
+     * @param x input matrix
+     * @param scalar factor to be multiplied by
+     * @param out output matrix, may be x
+     * @param pool pool to split large heap matrices across, null for none
+     */
+    private static void scaleInto(Matrix x, double scalar, Matrix out, ForkJoinPool pool) {
+        long started = MatrixMetrics.start();
+        if (!x.hasArrayRows() || !out.hasArrayRows()) {
+            for (int i = 0; i < out.rows; i++) {
+                for (int j = 0; j < out.cols; j++) {
+                    out.set(i, j, x.get(i, j) * scalar);
+                }
+            }
+        } else if (ParallelElementwise.worthSplitting(out.rows, out.cols, pool)) {
+            ParallelElementwise.forRows(out.rows, out.cols, pool, (start, end) -> scaleRows(x, scalar, out, start, end));
+        } else {
+            scaleRows(x, scalar, out, 0, out.rows);
+        }
+        out.modified();
+        out.applyPolicy();
+        MatrixMetrics.record(MatrixMetrics.Operation.SCALAR_MULTIPLY, out.rows, out.cols, (long) out.rows * out.cols, started);
+    }
+
+    /**
+     * Multiplies a band of rows of x by a scalar into out, both having array rows.
+     *
+     * @param x input matrix
+     * @param scalar factor to be multiplied by
+     * @param out output matrix
+     * @param start first row, 0 based
+     * @param end row after the last
+     */
+    private static void scaleRows(Matrix x, double scalar, Matrix out, int start, int end) {
+        if (x.isContiguous() && out.isContiguous()) {
+            ElementKernels.scale(x.array, x.rowStart(start), scalar, out.array, out.rowStart(start), (end - start) * out.cols);
+        } else {
+            for (int i = start; i < end; i++) {
+                ElementKernels.scale(x.array, x.rowStart(i), scalar, out.array, out.rowStart(i), out.cols);
             }
         }
     }
 
+    /**
+     * Returns the pool add, subtract and scalarMultiply split large matrices across.
+     *
+     * @return elementPool, null when they stay serial
+     */
+    public static ForkJoinPool getElementPool() {
+        return elementPool;
+    }
+
+    /**
+     * Sets the pool add, subtract and scalarMultiply, in place or not, split large matrices
+     * across when no pool is passed.  Null, the default, keeps them on the calling thread.
+     *
+     * @param pool the ForkJoinPool to run on, or null
+     */
+    public static void setElementPool(ForkJoinPool pool) {
+        elementPool = pool;
+    }
+
+    /**
+     * Helper method to make sure a pool was passed to a parallel operation.
+     *
+     * @param pool the pool to check
+     */
+    private static void checkPool(ForkJoinPool pool) {
+        if (pool == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("pool must not be null");
+        }
+    }
+
 
     /**
      * Returns a new matrix of this matrix and second matrix multiplied.
@@ -433,50 +1396,411 @@ public class Matrix {
      * @return a new matrix of both previous multiplied
      */
     public Matrix multiply(Matrix matrix2) {
-        if (cols != matrix2.getRows()) {
-            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
-            throw new IllegalArgumentException("rows and cols are not equal for multiplication");
+        checkMultiplyDimensions(matrix2.getRows());
+        long started = MatrixMetrics.start();
+
+        Matrix output = newResult(rows, matrix2.getCols());
+
+        // Tiled i-k-j kernel, walks rows of matrix2 instead of its columns to stay in cache.
+        BlockedMultiply.multiply(this, matrix2, output);
+        output.applyPolicy();
+        recordMultiply(output, started);
+        return output;
+    }
+
+    /**
+     * Returns a new matrix of this matrix and any MatrixLike multiplied.
+     * A sparse right hand side is walked row by row, skipping zeros in this matrix.
+     *
+     * @param other the matrix to multiply to current
+     * @return a new matrix of both previous multiplied
+     */
+    @Override
+    public Matrix multiply(MatrixLike other) {
+        if (other instanceof Matrix matrix2) {
+            return multiply(matrix2);
         }
+        checkMultiplyDimensions(other.getRows());
 
-        Matrix output = new Matrix(rows, matrix2.getCols());
+        if (other instanceof SparseMatrix sparse) {
+            return multiplySparse(sparse);
+        }
+        return multiply(other.toDense());
+    }
+
+    /**
+     * Multiplies this dense matrix by a sparse one, output row i += a(i, k) * sparse row k.
+     *
+     * @param sparse the sparse right hand side
+     * @return a new dense matrix of both multiplied
+     */
+    private Matrix multiplySparse(SparseMatrix sparse) {
+        long started = MatrixMetrics.start();
+        Matrix output = newResult(rows, sparse.getCols());
+        int[] rowPointers = sparse.rowPointers();
+        int[] colIndices = sparse.colIndices();
+        double[] values = sparse.values();
 
         for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < matrix2.getCols(); j++) {
-                for (int k = 0; k < cols; k++) {
-                    // Casts it as a double, even if it ends as an int
-                    output.data[i][j] += (double) Math.round((data[i][k] * matrix2.data[k][j]) * 1000000) / 1000000; // Stops floating point error for e-6
+            for (int k = 0; k < cols; k++) {
+                double aik = get(i, k);
+                if (aik == 0) {
+                    continue;
+                }
+                for (int p = rowPointers[k]; p < rowPointers[k + 1]; p++) {
+                    int j = colIndices[p];
+                    output.set(i, j, Math.fma(aik, values[p], output.get(i, j)));
                 }
             }
         }
+        output.applyPolicy();
+        // Counted like a dense product with only the sparse side's non-zeros, 2n per non-zero.
+        MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, output.rows, output.cols,
+                2L * rows * sparse.nonZeroCount(), started);
         return output;
     }
 
     /**
      * Allows two matrices to be multiplied in a static method.
+     * Uses the algorithm set by setMultiplyAlgorithm, BLOCKED unless changed.
      *
      * @param matrix1 first matrix
      * @param matrix2 second matrix
      * @return a new matrix of both previous multiplied
      */
     public static Matrix multiply(Matrix matrix1, Matrix matrix2) {
-        return matrix1.multiply(matrix2);
+        return multiply(matrix1, matrix2, defaultAlgorithm);
+    }
+
+    /**
+     * Allows two matrices to be multiplied in a static method with a chosen algorithm.
+     *
+     * @param matrix1 first matrix
+     * @param matrix2 second matrix
+     * @param algorithm how to multiply, see MultiplyAlgorithm
+     * @return a new matrix of both previous multiplied
+     */
+    public static Matrix multiply(Matrix matrix1, Matrix matrix2, MultiplyAlgorithm algorithm) {
+        if (algorithm == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("algorithm must not be null");
+        }
+
+        boolean square = matrix1.getRows() == matrix1.getCols() && matrix2.getRows() == matrix2.getCols();
+        return switch (algorithm) {
+            case BLOCKED -> matrix1.multiply(matrix2);
+            case PARALLEL -> matrix1.multiply(matrix2, ForkJoinPool.commonPool());
+            case STRASSEN -> square ? matrix1.multiplyStrassen(matrix2) : matrix1.multiply(matrix2);
+            // Strassen only wins once at least one level of recursion is above the cutoff.
+            case AUTO -> (square && matrix1.getRows() >= 2 * StrassenMultiply.getCutoff())
+                    ? matrix1.multiplyStrassen(matrix2) : matrix1.multiply(matrix2);
+        };
+    }
+
+    /**
+     * Returns the algorithm the two argument static multiply uses.
+     *
+     * @return defaultAlgorithm
+     */
+    public static MultiplyAlgorithm getMultiplyAlgorithm() {
+        return defaultAlgorithm;
+    }
+
+    /**
+     * Sets the algorithm the two argument static multiply uses.
+     *
+     * @param algorithm how to multiply, see MultiplyAlgorithm
+     */
+    public static void setMultiplyAlgorithm(MultiplyAlgorithm algorithm) {
+        if (algorithm == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("algorithm must not be null");
+        }
+        defaultAlgorithm = algorithm;
+    }
+
+    /**
+     * Returns a new matrix of this square matrix and a second square matrix multiplied with Strassen-Winograd.
+     *
+     * @param matrix2 the square matrix to multiply to current
+     * @return a new matrix of both previous multiplied
+     */
+    private Matrix multiplyStrassen(Matrix matrix2) {
+        checkMultiplyDimensions(matrix2.getRows());
+        long started = MatrixMetrics.start();
+
+        Matrix output = newResult(rows, matrix2.getCols());
+        StrassenMultiply.multiply(this, matrix2, output);
+        output.applyPolicy();
+        recordMultiply(output, started);
+        return output;
+    }
+
+    /**
+     * Returns a new matrix of this matrix and second matrix multiplied, spread across a thread pool.
+     * Falls back to the serial kernel when the product is under ParallelMultiply's threshold.
+     *
+     * @param matrix2 the matrix to multiply to current
+     * @param pool the ForkJoinPool to run on, can be shared with the rest of an application
+     * @return a new matrix of both previous multiplied
+     */
+    public Matrix multiply(Matrix matrix2, ForkJoinPool pool) {
+        checkMultiplyDimensions(matrix2.getRows());
+        long started = MatrixMetrics.start();
+
+        Matrix output = newResult(rows, matrix2.getCols());
+        ParallelMultiply.multiply(this, matrix2, output, pool);
+        output.applyPolicy();
+        recordMultiply(output, started);
+        return output;
+    }
+
+    /**
+     * Records a product of this matrix into output with MatrixMetrics, 2nkm flops.
+     *
+     * @param output the product
+     * @param start the value MatrixMetrics.start returned
+     */
+    private void recordMultiply(Matrix output, long start) {
+        MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, output.rows, output.cols,
+                2L * output.rows * output.cols * cols, start);
+    }
+
+    /**
+     * Allows two matrices to be multiplied in parallel in a static method.
+     *
+     * @param matrix1 first matrix
+     * @param matrix2 second matrix
+     * @param pool the ForkJoinPool to run on
+     * @return a new matrix of both previous multiplied
+     */
+    public static Matrix multiply(Matrix matrix1, Matrix matrix2, ForkJoinPool pool) {
+        return matrix1.multiply(matrix2, pool);
     }
 
     /**
      * Changes the current matrix by multiplying a second one.
-     * Can change rows and columns, so they can't be final
+     * Can change rows and columns, so they can't be final.
+     * The product gets its own storage, so a view stops sharing with its parent after this.
      *
      * @param matrix2 second matrix to be multiplied
      */
     public void multiplyInPlace(Matrix matrix2) {
-        Matrix product = multiply(matrix2);
+        takeOver(multiply(matrix2));
+    }
+
+    /**
+     * Changes the current matrix by multiplying a second one, spread across a thread pool.
+     *
+     * @param matrix2 second matrix to be multiplied
+     * @param pool the ForkJoinPool to run on
+     */
+    public void multiplyInPlace(Matrix matrix2, ForkJoinPool pool) {
+        takeOver(multiply(matrix2, pool));
+    }
+
+    /**
+     * Replaces this matrix's dimensions and storage with a freshly made product's.
+     * The product is never shared, so its storage can be taken over instead of copied.
+     *
+     * @param product the matrix whose contents become this matrix's
+     */
+    private void takeOver(Matrix product) {
         rows = product.getRows();
         cols = product.getCols();
-        data = new double[rows][cols];
+        useStorage(product.storage, product.offset, product.rowStride, product.colStride);
+    }
 
-        for (int i = 0; i < rows; i++) {
-            // Originally for loop, yellow line unless auto changed.
-            System.arraycopy(product.data[i], 0, data[i], 0, cols);
+
+    /**
+     * Returns this matrix raised to a power, by repeated squaring.
+     * Takes about log2(n) squarings plus one multiply per set bit of n, instead of n - 1 multiplies.
+     *
+     * @param n the power, 0 gives the identity
+     * @return a new matrix of this matrix multiplied by itself n times
+     */
+    public Matrix power(int n) {
+        Matrix output = newResult(rows, cols);
+        powerInto(n, output);
+        return output;
+    }
+
+    /**
+     * Raises this matrix to a power and writes the result into an existing matrix.
+     * Works through two scratch matrices made once per call, and the output itself when it has
+     * packed rows and doesn't share this matrix's storage, so no step allocates.
+     * The output's policy is applied once at the end.
+     *
+     * @param n the power, 0 gives the identity
+     * @param output matrix to write the result into, may be this matrix
+     */
+    public void powerInto(int n, Matrix output) {
+        if (rows != cols) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("matrix must be square to raise to a power");
+        } else if (n < 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("n cannot be negative");
+        } else if (output == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("output must not be null");
+        }
+        output.checkSameDimensions(rows, cols);
+        long started = MatrixMetrics.start();
+
+        if (n <= 1) {
+            Matrix result = (n == 0) ? identity(rows) : (output.storage == storage ? copy() : this);
+            copyInto(result, output);
+            output.applyPolicy();
+            MatrixMetrics.record(MatrixMetrics.Operation.POWER, rows, cols, 0, started);
+            return;
         }
+
+        // Free buffers, a product is never written over one of its own operands.  At most three are
+        // in use at once, the result so far, the current base square and the next product.
+        boolean useOutput = output.hasArrayRows() && output.storage != storage;
+        Matrix[] free = {useOutput ? output : new Matrix(rows, cols), new Matrix(rows, cols), new Matrix(rows, cols)};
+        int freeCount = free.length;
+
+        // Null result means the identity, base starts as this matrix itself, which is never written.
+        Matrix result = null;
+        Matrix base = this;
+        int remaining = n;
+        while (true) {
+            if ((remaining & 1) != 0) {
+                Matrix next = free[--freeCount];
+                if (result == null) {
+                    copyInto(base, next);
+                } else {
+                    multiplyInto(result, base, next);
+                    free[freeCount++] = result;
+                }
+                result = next;
+            }
+
+            remaining >>>= 1;
+            if (remaining == 0) {
+                break;
+            }
+
+            Matrix square = free[--freeCount];
+            multiplyInto(base, base, square);
+            if (base != this) {
+                free[freeCount++] = base;
+            }
+            base = square;
+        }
+
+        if (result != output) {
+            copyInto(result, output);
+        }
+        output.modified();
+        output.applyPolicy();
+
+        // One squaring per bit after the highest, one product per set bit after the first.
+        long products = (31 - Integer.numberOfLeadingZeros(n)) + Integer.bitCount(n) - 1;
+        MatrixMetrics.record(MatrixMetrics.Operation.POWER, rows, cols, products * 2L * rows * rows * rows, started);
+    }
+
+    /**
+     * Overwrites out with the product of a and b, out must have packed rows and be neither of them.
+     *
+     * @param a left hand matrix
+     * @param b right hand matrix
+     * @param out output matrix with the right dimensions
+     */
+    private static void multiplyInto(Matrix a, Matrix b, Matrix out) {
+        // The kernel adds into its output, so it starts from zeros.
+        for (int i = 0; i < out.rows; i++) {
+            int start = out.rowStart(i);
+            Arrays.fill(out.array, start, start + out.cols, 0);
+        }
+        BlockedMultiply.multiply(a, b, out);
+    }
+
+    /**
+     * Copies every element of one matrix into another of the same dimensions, a row at a time.
+     *
+     * @param from matrix to read
+     * @param to matrix to write
+     */
+    private static void copyInto(Matrix from, Matrix to) {
+        double[] row = from.hasArrayRows() ? null : new double[from.cols];
+        for (int i = 0; i < from.rows; i++) {
+            if (row == null) {
+                to.setRowRange(i, 0, from.array, from.rowStart(i), from.cols);
+            } else {
+                from.getRowRange(i, 0, row, 0, from.cols);
+                to.setRowRange(i, 0, row, 0, from.cols);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the LU decomposition with partial pivoting, keep it to solve many right hand sides.
+     *
+     * @return LUDecomposition of this matrix, which must be square
+     */
+    public LUDecomposition lu() {
+        long started = MatrixMetrics.start();
+        LUDecomposition lu = new LUDecomposition(this);
+        MatrixMetrics.record(MatrixMetrics.Operation.LU, rows, cols, 2L * rows * rows * rows / 3, started);
+        return lu;
+    }
+
+    /**
+     * Returns the Householder QR decomposition, keep it to solve many right hand sides.
+     *
+     * @return QRDecomposition of this matrix, which needs rows >= cols
+     */
+    public QRDecomposition qr() {
+        long started = MatrixMetrics.start();
+        QRDecomposition qr = new QRDecomposition(this);
+        MatrixMetrics.record(MatrixMetrics.Operation.QR, rows, cols, 2L * rows * cols * cols - 2L * cols * cols * cols / 3, started);
+        return qr;
+    }
+
+    /**
+     * Returns the Cholesky decomposition, keep it to solve many right hand sides.
+     *
+     * @return CholeskyDecomposition of this matrix, which must be symmetric positive definite
+     */
+    public CholeskyDecomposition cholesky() {
+        long started = MatrixMetrics.start();
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(this);
+        MatrixMetrics.record(MatrixMetrics.Operation.CHOLESKY, rows, cols, (long) rows * rows * rows / 3, started);
+        return cholesky;
+    }
+
+    /**
+     * Solves this * X = B for X.
+     * Square matrices use LU, taller ones QR, which gives the least squares solution.
+     * Factors every call, use lu() or qr() directly to reuse the factorization.
+     *
+     * @param b right hand sides, one per column
+     * @return a new matrix X
+     */
+    public Matrix solve(Matrix b) {
+        MatrixDecomposition decomposition = (rows == cols) ? lu() : qr();
+        return decomposition.solve(b);
+    }
+
+    /**
+     * Returns the inverse of a square matrix, through LU.
+     *
+     * @return a new matrix that multiplied by this one gives the identity
+     */
+    public Matrix inverse() {
+        return lu().inverse();
+    }
+
+    /**
+     * Returns the determinant of a square matrix, through LU.
+     *
+     * @return double determinant
+     */
+    public double determinant() {
+        return lu().determinant();
     }
 }
@@ -0,0 +1,151 @@
+/**
+ * Owns matrices whose elements live outside the Java heap, and frees them together.
+ * <p>
+ *     Off-heap elements are never scanned or moved by the garbage collector, so very
+ *     large matrices add no GC pressure and can be bigger than {@code -Xmx}.  Matrices
+ *     from an arena are ordinary Matrix objects and work with every operation, views,
+ *     expressions and decompositions included, results of operations are on the heap
+ *     as usual.  Element-wise work on them goes through the storage instead of the
+ *     array kernels, so it is slower than on a heap matrix.
+ * </p>
+ * <p>
+ *     The memory is freed by close, or at the end of a try-with-resources block.  Using
+ *     a matrix from a closed arena throws IllegalStateException, so copy() anything that
+ *     has to outlive it.
+ * </p>
+ * <p>
+ *     With {@code --add-modules jdk.incubator.foreign} the memory comes from native
+ *     segments, freed the moment the arena closes.  Without it, or with the system
+ *     property {@code matrix.foreign=false}, it comes from direct buffers, freed by the
+ *     next garbage collection after close.  Both are capped by
+ *     {@code -XX:MaxDirectMemorySize}, which defaults to the heap size, so raise it
+ *     to hold matrices bigger than {@code -Xmx}.
+ * </p>
+ *
+ * @author augward
+ */
+public final class MatrixArena implements AutoCloseable {
+    // Where the memory comes from.
+    private final NativeAllocator allocator;
+    private volatile boolean open = true;
+
+
+    /**
+     * Constructs an arena over a chosen allocator, used by open and tests.
+     *
+     * @param allocator source of off-heap storage
+     */
+    MatrixArena(NativeAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    /**
+     * Opens an arena with the best allocator available in this JVM.
+     *
+     * @return a new open arena
+     */
+    public static MatrixArena open() {
+        return new MatrixArena(selectAllocator());
+    }
+
+    /**
+     * Picks the foreign memory allocator when it can be loaded, direct buffers otherwise.
+     *
+     * @return a new allocator
+     */
+    private static NativeAllocator selectAllocator() {
+        boolean wanted = !"false".equalsIgnoreCase(System.getProperty("matrix.foreign"));
+        boolean available = ModuleLayer.boot().findModule("jdk.incubator.foreign").isPresent();
+
+        if (wanted && available) {
+            try {
+                // Loaded by name so this class still compiles and runs without the incubator module.
+                return (NativeAllocator) Class.forName("ForeignAllocator").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Falls through to direct buffers, ForeignAllocator was not compiled in.
+            }
+        }
+        return new DirectAllocator();
+    }
+
+    /**
+     * Returns the name of the allocator in use, "foreign" or "direct".
+     *
+     * @return allocator name
+     */
+    public String allocatorName() {
+        return allocator.name();
+    }
+
+    /**
+     * Returns whether the arena's matrices can still be used.
+     *
+     * @return false once closed
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+
+    /**
+     * Allocates an off-heap matrix with given rows and columns, where all values are 0.
+     *
+     * @param rows the number of rows in the matrix.
+     * @param cols the number of columns in the matrix.
+     * @return Matrix backed by memory of this arena
+     */
+    public Matrix allocate(int rows, int cols) {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("rows and cols must be positive and rows * cols must fit an int");
+        }
+        checkOpen();
+        return new Matrix(rows, cols, allocator.allocate(rows * cols), 0, cols);
+    }
+
+    /**
+     * Copies a matrix into memory of this arena, keeping its numeric policy.
+     *
+     * @param matrix the matrix to copy, on or off the heap
+     * @return Matrix backed by memory of this arena
+     */
+    public Matrix copyOf(Matrix matrix) {
+        if (matrix == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("matrix must not be null");
+        }
+        int rows = matrix.getRows();
+        int cols = matrix.getCols();
+        Matrix output = allocate(rows, cols);
+        output.setNumericPolicy(matrix.getNumericPolicy());
+
+        // A row at a time through one heap buffer, so big matrices don't need a heap copy.
+        double[] row = new double[cols];
+        for (int i = 0; i < rows; i++) {
+            matrix.getRowRange(i, 0, row, 0, cols);
+            output.setRowRange(i, 0, row, 0, cols);
+        }
+        return output;
+    }
+
+    /**
+     * Frees every matrix of this arena.  Closing again does nothing.
+     */
+    @Override
+    public void close() {
+        if (open) {
+            open = false;
+            allocator.close();
+        }
+    }
+
+    /**
+     * Helper method to make sure the arena has not been closed.
+     */
+    private void checkOpen() {
+        if (!open) {
+            // Signals that a method has been invoked at an illegal or inappropriate time.
+            throw new IllegalStateException("matrix arena is closed");
+        }
+    }
+}
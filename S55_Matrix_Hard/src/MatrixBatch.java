@@ -0,0 +1,418 @@
+import java.util.Arrays;
+
+/**
+ * Operations on many small square matrices packed back to back in one array.
+ * <p>
+ *     A batch of count matrices of size x size takes count * size * size doubles,
+ *     each matrix row major, the next one starting straight after.  Arguments are
+ *     checked once per call rather than once per element, and the 2x2 to 4x4 kernels
+ *     allocate nothing, so millions of 3x3 or 4x4 transforms cost little more than the
+ *     arithmetic.
+ * </p>
+ * <p>
+ *     multiply and invert have unrolled kernels for 2x2, 3x3 and 4x4, other sizes use
+ *     plain loops.  multiply sums with fma in the same order as Matrix.multiply, so
+ *     results match it bit for bit.  Arithmetic is EXACT, no NumericPolicy applies.
+ *     The output span may be exactly one of the input spans, but must not partly overlap one.
+ * </p>
+ *
+ * @author augward
+ */
+public final class MatrixBatch {
+    // Static methods only, no reason to create one.
+    private MatrixBatch() {
+    }
+
+
+    /**
+     * Multiplies pairs of matrices, out[m] = a[m] * b[m] for each m below count.
+     *
+     * @param size rows and columns of every matrix
+     * @param a array holding the left matrices
+     * @param aOffset index in a of the first matrix
+     * @param b array holding the right matrices
+     * @param bOffset index in b of the first matrix
+     * @param out array the products are written to
+     * @param outOffset index in out of the first product
+     * @param count number of matrices
+     */
+    public static void multiply(int size, double[] a, int aOffset, double[] b, int bOffset,
+                                double[] out, int outOffset, int count) {
+        checkBatch(size, count);
+        checkSpan(size, count, a, aOffset);
+        checkSpan(size, count, b, bOffset);
+        checkSpan(size, count, out, outOffset);
+
+        switch (size) {
+            case 2 -> multiply2(a, aOffset, b, bOffset, out, outOffset, count);
+            case 3 -> multiply3(a, aOffset, b, bOffset, out, outOffset, count);
+            case 4 -> multiply4(a, aOffset, b, bOffset, out, outOffset, count);
+            default -> multiplyN(size, a, aOffset, b, bOffset, out, outOffset, count);
+        }
+    }
+
+    /**
+     * Adds pairs of matrices, out[m] = a[m] + b[m] for each m below count.
+     * The batch is one contiguous span, so it goes through ElementKernels in a single call.
+     *
+     * @param size rows and columns of every matrix
+     * @param a array holding the first matrices
+     * @param aOffset index in a of the first matrix
+     * @param b array holding the second matrices
+     * @param bOffset index in b of the first matrix
+     * @param out array the sums are written to
+     * @param outOffset index in out of the first sum
+     * @param count number of matrices
+     */
+    public static void add(int size, double[] a, int aOffset, double[] b, int bOffset,
+                           double[] out, int outOffset, int count) {
+        checkBatch(size, count);
+        checkSpan(size, count, a, aOffset);
+        checkSpan(size, count, b, bOffset);
+        checkSpan(size, count, out, outOffset);
+
+        ElementKernels.add(a, aOffset, b, bOffset, out, outOffset, count * size * size);
+    }
+
+    /**
+     * Inverts each matrix, out[m] = a[m]^-1 for each m below count.
+     * The 2x2 to 4x4 kernels use the adjugate over the determinant, other sizes go through LU.
+     * Matrices before a singular one are already written when the exception is thrown.
+     *
+     * @param size rows and columns of every matrix
+     * @param a array holding the matrices
+     * @param aOffset index in a of the first matrix
+     * @param out array the inverses are written to
+     * @param outOffset index in out of the first inverse
+     * @param count number of matrices
+     */
+    public static void invert(int size, double[] a, int aOffset, double[] out, int outOffset, int count) {
+        checkBatch(size, count);
+        checkSpan(size, count, a, aOffset);
+        checkSpan(size, count, out, outOffset);
+
+        switch (size) {
+            case 2 -> invert2(a, aOffset, out, outOffset, count);
+            case 3 -> invert3(a, aOffset, out, outOffset, count);
+            case 4 -> invert4(a, aOffset, out, outOffset, count);
+            default -> invertN(size, a, aOffset, out, outOffset, count);
+        }
+    }
+
+
+    /**
+     * Helper method to make sure the matrix size and count are valid.
+     *
+     * @param size rows and columns of every matrix
+     * @param count number of matrices
+     */
+    private static void checkBatch(int size, int count) {
+        if (size <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("size cannot be negative or 0");
+        } else if (count < 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("count cannot be negative");
+        }
+    }
+
+    /**
+     * Helper method to make sure a batch fits inside its array.
+     *
+     * @param size rows and columns of every matrix
+     * @param count number of matrices
+     * @param array array holding the batch
+     * @param offset index of the first matrix
+     */
+    private static void checkSpan(int size, int count, double[] array, int offset) {
+        if (array == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("array must not be null");
+        }
+        if (offset < 0 || offset + (long) count * size * size > array.length) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("batch does not fit inside array");
+        }
+    }
+
+    /**
+     * Makes the exception for a matrix without an inverse.
+     *
+     * @param index position of the matrix in the batch
+     * @return exception to throw
+     */
+    private static ArithmeticException singular(int index) {
+        return new ArithmeticException("matrix " + index + " of the batch is singular");
+    }
+
+
+    /**
+     * Unrolled multiply of 2x2 matrices.
+     *
+     * @param a array holding the left matrices
+     * @param aOffset index in a of the first matrix
+     * @param b array holding the right matrices
+     * @param bOffset index in b of the first matrix
+     * @param out array the products are written to
+     * @param outOffset index in out of the first product
+     * @param count number of matrices
+     */
+    private static void multiply2(double[] a, int aOffset, double[] b, int bOffset,
+                                  double[] out, int outOffset, int count) {
+        for (int m = 0; m < count; m++) {
+            int x = aOffset + m * 4;
+            int y = bOffset + m * 4;
+            int o = outOffset + m * 4;
+            // Everything is loaded before anything is written, so out may be a or b.
+            double a00 = a[x], a01 = a[x + 1], a10 = a[x + 2], a11 = a[x + 3];
+            double b00 = b[y], b01 = b[y + 1], b10 = b[y + 2], b11 = b[y + 3];
+
+            out[o] = Math.fma(a01, b10, a00 * b00);
+            out[o + 1] = Math.fma(a01, b11, a00 * b01);
+            out[o + 2] = Math.fma(a11, b10, a10 * b00);
+            out[o + 3] = Math.fma(a11, b11, a10 * b01);
+        }
+    }
+
+    /**
+     * Unrolled multiply of 3x3 matrices.
+     *
+     * @param a array holding the left matrices
+     * @param aOffset index in a of the first matrix
+     * @param b array holding the right matrices
+     * @param bOffset index in b of the first matrix
+     * @param out array the products are written to
+     * @param outOffset index in out of the first product
+     * @param count number of matrices
+     */
+    private static void multiply3(double[] a, int aOffset, double[] b, int bOffset,
+                                  double[] out, int outOffset, int count) {
+        for (int m = 0; m < count; m++) {
+            int y = bOffset + m * 9;
+            double b00 = b[y], b01 = b[y + 1], b02 = b[y + 2];
+            double b10 = b[y + 3], b11 = b[y + 4], b12 = b[y + 5];
+            double b20 = b[y + 6], b21 = b[y + 7], b22 = b[y + 8];
+
+            // A row of a is read before the same row of out is written, so out may be a.
+            for (int r = 0; r < 9; r += 3) {
+                int x = aOffset + m * 9 + r;
+                int o = outOffset + m * 9 + r;
+                double a0 = a[x], a1 = a[x + 1], a2 = a[x + 2];
+                out[o] = Math.fma(a2, b20, Math.fma(a1, b10, a0 * b00));
+                out[o + 1] = Math.fma(a2, b21, Math.fma(a1, b11, a0 * b01));
+                out[o + 2] = Math.fma(a2, b22, Math.fma(a1, b12, a0 * b02));
+            }
+        }
+    }
+
+    /**
+     * Unrolled multiply of 4x4 matrices.
+     *
+     * @param a array holding the left matrices
+     * @param aOffset index in a of the first matrix
+     * @param b array holding the right matrices
+     * @param bOffset index in b of the first matrix
+     * @param out array the products are written to
+     * @param outOffset index in out of the first product
+     * @param count number of matrices
+     */
+    private static void multiply4(double[] a, int aOffset, double[] b, int bOffset,
+                                  double[] out, int outOffset, int count) {
+        for (int m = 0; m < count; m++) {
+            int y = bOffset + m * 16;
+            double b00 = b[y], b01 = b[y + 1], b02 = b[y + 2], b03 = b[y + 3];
+            double b10 = b[y + 4], b11 = b[y + 5], b12 = b[y + 6], b13 = b[y + 7];
+            double b20 = b[y + 8], b21 = b[y + 9], b22 = b[y + 10], b23 = b[y + 11];
+            double b30 = b[y + 12], b31 = b[y + 13], b32 = b[y + 14], b33 = b[y + 15];
+
+            for (int r = 0; r < 16; r += 4) {
+                int x = aOffset + m * 16 + r;
+                int o = outOffset + m * 16 + r;
+                double a0 = a[x], a1 = a[x + 1], a2 = a[x + 2], a3 = a[x + 3];
+                out[o] = Math.fma(a3, b30, Math.fma(a2, b20, Math.fma(a1, b10, a0 * b00)));
+                out[o + 1] = Math.fma(a3, b31, Math.fma(a2, b21, Math.fma(a1, b11, a0 * b01)));
+                out[o + 2] = Math.fma(a3, b32, Math.fma(a2, b22, Math.fma(a1, b12, a0 * b02)));
+                out[o + 3] = Math.fma(a3, b33, Math.fma(a2, b23, Math.fma(a1, b13, a0 * b03)));
+            }
+        }
+    }
+
+    /**
+     * Multiply of any size, a row of a at a time through ElementKernels.
+     *
+     * @param size rows and columns of every matrix
+     * @param a array holding the left matrices
+     * @param aOffset index in a of the first matrix
+     * @param b array holding the right matrices
+     * @param bOffset index in b of the first matrix
+     * @param out array the products are written to
+     * @param outOffset index in out of the first product
+     * @param count number of matrices
+     */
+    private static void multiplyN(int size, double[] a, int aOffset, double[] b, int bOffset,
+                                  double[] out, int outOffset, int count) {
+        int area = size * size;
+        // Each product is built in a scratch matrix, so out may be a or b.
+        double[] product = new double[area];
+        for (int m = 0; m < count; m++) {
+            Arrays.fill(product, 0);
+            for (int i = 0; i < size; i++) {
+                for (int k = 0; k < size; k++) {
+                    ElementKernels.fma(a[aOffset + m * area + i * size + k], b, bOffset + m * area + k * size,
+                            product, i * size, size);
+                }
+            }
+            System.arraycopy(product, 0, out, outOffset + m * area, area);
+        }
+    }
+
+
+    /**
+     * Unrolled inverse of 2x2 matrices.
+     *
+     * @param a array holding the matrices
+     * @param aOffset index in a of the first matrix
+     * @param out array the inverses are written to
+     * @param outOffset index in out of the first inverse
+     * @param count number of matrices
+     */
+    private static void invert2(double[] a, int aOffset, double[] out, int outOffset, int count) {
+        for (int m = 0; m < count; m++) {
+            int x = aOffset + m * 4;
+            int o = outOffset + m * 4;
+            double a00 = a[x], a01 = a[x + 1], a10 = a[x + 2], a11 = a[x + 3];
+
+            double det = a00 * a11 - a01 * a10;
+            if (det == 0) {
+                throw singular(m);
+            }
+            double inv = 1 / det;
+            out[o] = a11 * inv;
+            out[o + 1] = -a01 * inv;
+            out[o + 2] = -a10 * inv;
+            out[o + 3] = a00 * inv;
+        }
+    }
+
+    /**
+     * Unrolled inverse of 3x3 matrices.
+     *
+     * @param a array holding the matrices
+     * @param aOffset index in a of the first matrix
+     * @param out array the inverses are written to
+     * @param outOffset index in out of the first inverse
+     * @param count number of matrices
+     */
+    private static void invert3(double[] a, int aOffset, double[] out, int outOffset, int count) {
+        for (int m = 0; m < count; m++) {
+            int x = aOffset + m * 9;
+            int o = outOffset + m * 9;
+            double a00 = a[x], a01 = a[x + 1], a02 = a[x + 2];
+            double a10 = a[x + 3], a11 = a[x + 4], a12 = a[x + 5];
+            double a20 = a[x + 6], a21 = a[x + 7], a22 = a[x + 8];
+
+            // Cofactors of the first row, reused for the determinant.
+            double c00 = a11 * a22 - a12 * a21;
+            double c01 = a12 * a20 - a10 * a22;
+            double c02 = a10 * a21 - a11 * a20;
+            double det = a00 * c00 + a01 * c01 + a02 * c02;
+            if (det == 0) {
+                throw singular(m);
+            }
+            double inv = 1 / det;
+
+            out[o] = c00 * inv;
+            out[o + 1] = (a02 * a21 - a01 * a22) * inv;
+            out[o + 2] = (a01 * a12 - a02 * a11) * inv;
+            out[o + 3] = c01 * inv;
+            out[o + 4] = (a00 * a22 - a02 * a20) * inv;
+            out[o + 5] = (a02 * a10 - a00 * a12) * inv;
+            out[o + 6] = c02 * inv;
+            out[o + 7] = (a01 * a20 - a00 * a21) * inv;
+            out[o + 8] = (a00 * a11 - a01 * a10) * inv;
+        }
+    }
+
+    /**
+     * Unrolled inverse of 4x4 matrices.
+     *
+     * @param a array holding the matrices
+     * @param aOffset index in a of the first matrix
+     * @param out array the inverses are written to
+     * @param outOffset index in out of the first inverse
+     * @param count number of matrices
+     */
+    private static void invert4(double[] a, int aOffset, double[] out, int outOffset, int count) {
+        for (int m = 0; m < count; m++) {
+            int x = aOffset + m * 16;
+            int o = outOffset + m * 16;
+            double a00 = a[x], a01 = a[x + 1], a02 = a[x + 2], a03 = a[x + 3];
+            double a10 = a[x + 4], a11 = a[x + 5], a12 = a[x + 6], a13 = a[x + 7];
+            double a20 = a[x + 8], a21 = a[x + 9], a22 = a[x + 10], a23 = a[x + 11];
+            double a30 = a[x + 12], a31 = a[x + 13], a32 = a[x + 14], a33 = a[x + 15];
+
+            // 2x2 determinants of the top two rows and of the bottom two, every cofactor is built from them.
+            double s0 = a00 * a11 - a10 * a01;
+            double s1 = a00 * a12 - a10 * a02;
+            double s2 = a00 * a13 - a10 * a03;
+            double s3 = a01 * a12 - a11 * a02;
+            double s4 = a01 * a13 - a11 * a03;
+            double s5 = a02 * a13 - a12 * a03;
+            double c5 = a22 * a33 - a32 * a23;
+            double c4 = a21 * a33 - a31 * a23;
+            double c3 = a21 * a32 - a31 * a22;
+            double c2 = a20 * a33 - a30 * a23;
+            double c1 = a20 * a32 - a30 * a22;
+            double c0 = a20 * a31 - a30 * a21;
+
+            double det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+            if (det == 0) {
+                throw singular(m);
+            }
+            double inv = 1 / det;
+
+            out[o] = (a11 * c5 - a12 * c4 + a13 * c3) * inv;
+            out[o + 1] = (-a01 * c5 + a02 * c4 - a03 * c3) * inv;
+            out[o + 2] = (a31 * s5 - a32 * s4 + a33 * s3) * inv;
+            out[o + 3] = (-a21 * s5 + a22 * s4 - a23 * s3) * inv;
+            out[o + 4] = (-a10 * c5 + a12 * c2 - a13 * c1) * inv;
+            out[o + 5] = (a00 * c5 - a02 * c2 + a03 * c1) * inv;
+            out[o + 6] = (-a30 * s5 + a32 * s2 - a33 * s1) * inv;
+            out[o + 7] = (a20 * s5 - a22 * s2 + a23 * s1) * inv;
+            out[o + 8] = (a10 * c4 - a11 * c2 + a13 * c0) * inv;
+            out[o + 9] = (-a00 * c4 + a01 * c2 - a03 * c0) * inv;
+            out[o + 10] = (a30 * s4 - a31 * s2 + a33 * s0) * inv;
+            out[o + 11] = (-a20 * s4 + a21 * s2 - a23 * s0) * inv;
+            out[o + 12] = (-a10 * c3 + a11 * c1 - a12 * c0) * inv;
+            out[o + 13] = (a00 * c3 - a01 * c1 + a02 * c0) * inv;
+            out[o + 14] = (-a30 * s3 + a31 * s1 - a32 * s0) * inv;
+            out[o + 15] = (a20 * s3 - a21 * s1 + a22 * s0) * inv;
+        }
+    }
+
+    /**
+     * Inverse of any size through LUDecomposition.
+     *
+     * @param size rows and columns of every matrix
+     * @param a array holding the matrices
+     * @param aOffset index in a of the first matrix
+     * @param out array the inverses are written to
+     * @param outOffset index in out of the first inverse
+     * @param count number of matrices
+     */
+    private static void invertN(int size, double[] a, int aOffset, double[] out, int outOffset, int count) {
+        int area = size * size;
+        for (int m = 0; m < count; m++) {
+            double[] data = new double[area];
+            System.arraycopy(a, aOffset + m * area, data, 0, area);
+            LUDecomposition lu = new LUDecomposition(Matrix.packed(size, size, data, NumericPolicy.EXACT));
+            if (lu.isSingular()) {
+                throw singular(m);
+            }
+            Matrix inverse = lu.inverse();
+            for (int i = 0; i < size; i++) {
+                inverse.getRowRange(i, 0, out, outOffset + m * area + i * size, size);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * A factorization of a matrix that can solve linear systems against it.
+ * <p>
+ *     Factoring costs O(n^3) once, after that each solve is O(n^2) per right hand
+ *     side.  Keep the decomposition around and call solve for every new right hand
+ *     side instead of factoring the same matrix again.
+ * </p>
+ * Implemented by LUDecomposition, QRDecomposition and CholeskyDecomposition.
+ *
+ * @author augward
+ */
+public interface MatrixDecomposition {
+    /**
+     * Returns the number of rows of the factored matrix, the rows a right hand side needs.
+     *
+     * @return int rows
+     */
+    int getRows();
+
+    /**
+     * Returns the number of columns of the factored matrix, the rows of a solution.
+     *
+     * @return int columns
+     */
+    int getCols();
+
+    /**
+     * Solves A * X = B for X, one column of X for each column of B.
+     *
+     * @param b right hand sides, one per column
+     * @return Matrix X
+     */
+    Matrix solve(Matrix b);
+}
@@ -0,0 +1,331 @@
+/**
+ * A lazy chain of element-wise operations on matrices, evaluated in one pass.
+ * <p>
+ *     {@code m1.add(m2).subtract(m3).scalarMultiply(2)} creates a full matrix at every
+ *     step.  {@code m1.lazy().add(m2).subtract(m3).scalarMultiply(2).evaluate()} only
+ *     records the operations, then walks the inputs once and writes a single result.
+ *     Work is done a chunk of a row at a time in small buffers that stay in cache, so
+ *     the intermediates never reach memory.
+ * </p>
+ * <p>
+ *     Expressions are immutable and hold on to their matrices, not their values.
+ *     Elements are read when evaluate or evaluateInto is called, so changes made to
+ *     an input in between show up in the result.  Each element goes through the same
+ *     operations in the same order as the eager methods, so under EXACT and TOLERANCE
+ *     results match them exactly.
+ * </p>
+ * Under ROUNDED they can differ in the last kept decimal.  The eager scalarMultiply rounds
+ * its own result before the next step, an expression rounds once, on the finished result.
+ *
+ * @author augward
+ */
+public final class MatrixExpression {
+    // Elements evaluated at a time, small enough for a few buffers to sit in the L1/L2 cache.
+    static final int CHUNK = 1024;
+
+    // What a node does with its operands.
+    private enum Op { LEAF, ADD, SUBTRACT, SCALE }
+
+    private final Op op;
+
+    // The input matrix of a LEAF, null otherwise.
+    private final Matrix matrix;
+
+    // Operands, left is used by every operation but LEAF, right only by ADD and SUBTRACT.
+    private final MatrixExpression left;
+    private final MatrixExpression right;
+
+    // Factor of a SCALE.
+    private final double scalar;
+
+    // Dimensions of the result.
+    private final int rows;
+    private final int cols;
+
+
+    /**
+     * Constructs a node, operands are expected to be checked by the caller.
+     *
+     * @param op what the node does
+     * @param matrix input of a LEAF
+     * @param left first operand
+     * @param right second operand
+     * @param scalar factor of a SCALE
+     * @param rows rows of the result
+     * @param cols columns of the result
+     */
+    private MatrixExpression(Op op, Matrix matrix, MatrixExpression left, MatrixExpression right,
+                             double scalar, int rows, int cols) {
+        this.op = op;
+        this.matrix = matrix;
+        this.left = left;
+        this.right = right;
+        this.scalar = scalar;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Starts an expression from a matrix.
+     *
+     * @param matrix the first operand
+     * @return MatrixExpression that evaluates to the matrix's elements
+     */
+    public static MatrixExpression of(Matrix matrix) {
+        if (matrix == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("matrix must not be null");
+        }
+        return new MatrixExpression(Op.LEAF, matrix, null, null, 0, matrix.getRows(), matrix.getCols());
+    }
+
+
+    /**
+     * Returns the number of rows of the result.
+     *
+     * @return int rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns of the result.
+     *
+     * @return int columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+
+    /**
+     * Records adding a matrix to this expression.
+     *
+     * @param matrix2 the matrix to add
+     * @return MatrixExpression of both added
+     */
+    public MatrixExpression add(Matrix matrix2) {
+        return add(of(matrix2));
+    }
+
+    /**
+     * Records adding another expression to this one.
+     *
+     * @param other the expression to add
+     * @return MatrixExpression of both added
+     */
+    public MatrixExpression add(MatrixExpression other) {
+        checkSameDimensions(other);
+        return new MatrixExpression(Op.ADD, null, this, other, 0, rows, cols);
+    }
+
+    /**
+     * Records subtracting a matrix from this expression.
+     *
+     * @param matrix2 the matrix to subtract
+     * @return MatrixExpression of both subtracted
+     */
+    public MatrixExpression subtract(Matrix matrix2) {
+        return subtract(of(matrix2));
+    }
+
+    /**
+     * Records subtracting another expression from this one.
+     *
+     * @param other the expression to subtract
+     * @return MatrixExpression of both subtracted
+     */
+    public MatrixExpression subtract(MatrixExpression other) {
+        checkSameDimensions(other);
+        return new MatrixExpression(Op.SUBTRACT, null, this, other, 0, rows, cols);
+    }
+
+    /**
+     * Records multiplying this expression by a scalar.
+     *
+     * @param scalar the double to multiply by
+     * @return MatrixExpression of the product
+     */
+    public MatrixExpression scalarMultiply(double scalar) {
+        return new MatrixExpression(Op.SCALE, null, this, null, scalar, rows, cols);
+    }
+
+    /**
+     * Helper method to make sure that two expressions have the same dimensions.
+     *
+     * @param other expression for comparison
+     */
+    private void checkSameDimensions(MatrixExpression other) {
+        if (other == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("other must not be null");
+        }
+        if ((rows != other.rows) || (cols != other.cols)) {
+            // Throw to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("dimensions are not equal");
+        }
+    }
+
+
+    /**
+     * Evaluates the expression into a new matrix.
+     * The result takes on the policy of the leftmost matrix, like the eager methods.
+     *
+     * @return a new matrix holding the result
+     */
+    public Matrix evaluate() {
+        MatrixExpression first = this;
+        while (first.op != Op.LEAF) {
+            first = first.left;
+        }
+
+        Matrix output = new Matrix(rows, cols);
+        output.setNumericPolicy(first.matrix.getNumericPolicy());
+        evaluateInto(output);
+        return output;
+    }
+
+    /**
+     * Evaluates the expression into an existing matrix, overwriting its elements.
+     * The output may be one of the inputs, as long as it has the same dimensions.
+     *
+     * @param output matrix to write the result into
+     */
+    public void evaluateInto(Matrix output) {
+        if (output == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("output must not be null");
+        }
+        output.checkSameDimensions(rows, cols);
+
+        if (overlapsDifferently(output)) {
+            // An input laid out differently over the output's storage would be overwritten before it is read.
+            of(evaluate()).evaluateInto(output);
+            return;
+        }
+
+        // With everything packed, the whole matrix is one long row and short rows don't cut chunks up.
+        boolean flat = output.isContiguous() && allContiguous();
+        int spanRows = flat ? 1 : rows;
+        int spanCols = flat ? rows * cols : cols;
+
+        // Writing straight into the output is only safe when no input reads from its storage.
+        boolean direct = output.hasArrayRows() && !reads(output.storage());
+        double[] buffer = direct ? null : new double[Math.min(CHUNK, spanCols)];
+
+        double[][] scratch = new double[scratchLevels()][Math.min(CHUNK, spanCols)];
+        for (int i = 0; i < spanRows; i++) {
+            for (int j = 0; j < spanCols; j += CHUNK) {
+                int len = Math.min(CHUNK, spanCols - j);
+                if (direct) {
+                    evaluate(i, j, len, output.array(), output.rowStart(i) + j, scratch, 0);
+                } else {
+                    evaluate(i, j, len, buffer, 0, scratch, 0);
+                    output.setRowRange(i, j, buffer, 0, len);
+                }
+            }
+        }
+        output.modified();
+        output.applyPolicy();
+    }
+
+    /**
+     * Evaluates one chunk of a row into dest.
+     *
+     * @param i row, 0 based
+     * @param j first column, 0 based
+     * @param len number of columns
+     * @param dest array to write into
+     * @param destOff index in dest of column j
+     * @param scratch buffers for right hand operands, one per level
+     * @param level first free scratch buffer
+     */
+    private void evaluate(int i, int j, int len, double[] dest, int destOff, double[][] scratch, int level) {
+        switch (op) {
+            case LEAF -> matrix.getRowRange(i, j, dest, destOff, len);
+            case SCALE -> {
+                left.evaluate(i, j, len, dest, destOff, scratch, level);
+                ElementKernels.scale(dest, destOff, scalar, dest, destOff, len);
+            }
+            case ADD, SUBTRACT -> {
+                left.evaluate(i, j, len, dest, destOff, scratch, level);
+
+                // A plain matrix on the right is read in place instead of copied to scratch first.
+                double[] y;
+                int yOff;
+                if (right.op == Op.LEAF && right.matrix.hasArrayRows()) {
+                    y = right.matrix.array();
+                    yOff = right.matrix.rowStart(i) + j;
+                } else {
+                    y = scratch[level];
+                    yOff = 0;
+                    right.evaluate(i, j, len, y, 0, scratch, level + 1);
+                }
+
+                if (op == Op.ADD) {
+                    ElementKernels.add(dest, destOff, y, yOff, dest, destOff, len);
+                } else {
+                    ElementKernels.subtract(dest, destOff, y, yOff, dest, destOff, len);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how many scratch buffers evaluation needs at once.
+     *
+     * @return number of scratch levels
+     */
+    private int scratchLevels() {
+        return switch (op) {
+            case LEAF -> 0;
+            case SCALE -> left.scratchLevels();
+            case ADD, SUBTRACT -> {
+                int rightLevels = (right.op == Op.LEAF && right.matrix.hasArrayRows()) ? 0 : 1 + right.scratchLevels();
+                yield Math.max(left.scratchLevels(), rightLevels);
+            }
+        };
+    }
+
+    /**
+     * Checks if every input is a single contiguous span.
+     *
+     * @return whether the inputs can be walked as one long row
+     */
+    private boolean allContiguous() {
+        return switch (op) {
+            case LEAF -> matrix.isContiguous();
+            case SCALE -> left.allContiguous();
+            case ADD, SUBTRACT -> left.allContiguous() && right.allContiguous();
+        };
+    }
+
+    /**
+     * Checks if any input reads from a storage.
+     *
+     * @param storage the storage to look for
+     * @return whether an input shares it
+     */
+    private boolean reads(MatrixStorage storage) {
+        return switch (op) {
+            case LEAF -> matrix.storage() == storage;
+            case SCALE -> left.reads(storage);
+            case ADD, SUBTRACT -> left.reads(storage) || right.reads(storage);
+        };
+    }
+
+    /**
+     * Checks if any input shares the output's storage with a different layout.
+     *
+     * @param output the matrix being written
+     * @return whether the result has to be built somewhere else first
+     */
+    private boolean overlapsDifferently(Matrix output) {
+        return switch (op) {
+            case LEAF -> output.overlapsDifferently(matrix);
+            case SCALE -> left.overlapsDifferently(output);
+            case ADD, SUBTRACT -> left.overlapsDifferently(output) || right.overlapsDifferently(output);
+        };
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes matrices in a compact binary file format.
+ * <p>
+ *     A 16 byte header, then every element as a row major little-endian double.
+ *     The header is the magic bytes "MTRX", a format version, then rows and cols,
+ *     each a little-endian int.  Elements start 8 byte aligned, so a file can be
+ *     mapped and read in place.
+ * </p>
+ * <p>
+ *     read loads a file onto the heap.  map instead backs a Matrix with the file itself
+ *     through MappedStorage, nothing is loaded until it is touched, so matrices larger
+ *     than the heap work.  Process those a band at a time, copy() of a subMatrix or row
+ *     brings one piece onto the heap, and a MatrixExpression can evaluate into a mapped
+ *     output chunk by chunk.
+ * </p>
+ * Element-wise operations on a mapped matrix go through the storage instead of the
+ * array kernels, so they are slower than on a heap matrix.
+ *
+ * @author augward
+ */
+public final class MatrixFile {
+    // "MTRX" read as a little-endian int.
+    static final int MAGIC = 0x5852544D;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    // Size of the buffer write streams through.
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    // Static methods only, no reason to create one.
+    private MatrixFile() {
+    }
+
+
+    /**
+     * Writes a matrix to a file, replacing anything already there.
+     *
+     * @param matrix the matrix to write
+     * @param path file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Matrix matrix, Path path) throws IOException {
+        if (matrix == null || path == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("matrix and path must not be null");
+        }
+        int rows = matrix.getRows();
+        int cols = matrix.getCols();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols);
+
+            // A row at a time, in pieces that fit the buffer.
+            double[] piece = new double[Math.min(cols, BUFFER_BYTES / Double.BYTES)];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j += piece.length) {
+                    int length = Math.min(piece.length, cols - j);
+                    matrix.getRowRange(i, j, piece, 0, length);
+                    if (buffer.remaining() < length * Double.BYTES) {
+                        flush(buffer, channel);
+                    }
+                    buffer.asDoubleBuffer().put(piece, 0, length);
+                    buffer.position(buffer.position() + length * Double.BYTES);
+                }
+            }
+            flush(buffer, channel);
+        }
+    }
+
+    /**
+     * Writes out and empties a buffer.
+     *
+     * @param buffer bytes waiting to be written
+     * @param channel channel to write to
+     * @throws IOException if the write fails
+     */
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+
+    /**
+     * Reads a whole file onto the heap.
+     *
+     * @param path file to read
+     * @return a new matrix with the file's elements
+     * @throws IOException if the file cannot be read or is not a matrix file
+     */
+    public static Matrix read(Path path) throws IOException {
+        return map(path, false).copy();
+    }
+
+    /**
+     * Returns a matrix backed by the file itself, elements are read from it as they are used.
+     * A writable matrix writes changes straight to the file, call force to make sure they land.
+     *
+     * @param path file to map
+     * @param writable whether the matrix may be changed
+     * @return Matrix over the file's elements
+     * @throws IOException if the file cannot be mapped or is not a matrix file
+     */
+    public static Matrix map(Path path, boolean writable) throws IOException {
+        return map(path, writable, MappedStorage.CHUNK_SHIFT);
+    }
+
+    /**
+     * Maps a file with a chosen chunk size, see MappedStorage.
+     *
+     * @param path file to map
+     * @param writable whether the matrix may be changed
+     * @param shift log2 of the doubles per chunk
+     * @return Matrix over the file's elements
+     * @throws IOException if the file cannot be mapped or is not a matrix file
+     */
+    static Matrix map(Path path, boolean writable, int shift) throws IOException {
+        if (path == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("path must not be null");
+        }
+
+        StandardOpenOption mode = writable ? StandardOpenOption.WRITE : StandardOpenOption.READ;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, mode)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("file is too short for a matrix header");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a matrix file");
+            }
+            if (header.getInt() != VERSION) {
+                throw new IOException("unsupported matrix file version");
+            }
+
+            int rows = header.getInt();
+            int cols = header.getInt();
+            if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+                throw new IOException("invalid matrix dimensions in header");
+            }
+            if (channel.size() < HEADER_BYTES + (long) rows * cols * Double.BYTES) {
+                throw new IOException("file is too short for its dimensions");
+            }
+
+            FileChannel.MapMode mapMode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+            MatrixStorage storage = new MappedStorage(channel, mapMode, HEADER_BYTES, rows * cols, shift);
+            return new Matrix(rows, cols, storage, 0, cols);
+        }
+    }
+
+    /**
+     * Creates a file of zeros and returns a writable matrix backed by it.
+     *
+     * @param path file to create, replacing anything already there
+     * @param rows the number of rows in the matrix
+     * @param cols the number of columns in the matrix
+     * @return Matrix over the new file's elements
+     * @throws IOException if the file cannot be created
+     */
+    public static Matrix create(Path path, int rows, int cols) throws IOException {
+        if (path == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("path must not be null");
+        }
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("rows and cols must be positive and rows * cols must fit an int");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            // Writing the last byte grows the file, the space before it reads as zeros.
+            long end = HEADER_BYTES + (long) rows * cols * Double.BYTES;
+            channel.write(ByteBuffer.allocate(1), end - 1);
+        }
+        return map(path, true);
+    }
+
+    /**
+     * Writes any changes to a mapped matrix back to its file.  Does nothing for other matrices.
+     *
+     * @param matrix the matrix to flush
+     */
+    public static void force(Matrix matrix) {
+        if (matrix.storage() instanceof MappedStorage mapped) {
+            mapped.force();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Common operations shared by the dense Matrix and the SparseMatrix.
+ * <p>
+ *     Lets code work with either storage type.  Positions are 1 based like
+ *     Matrix's getElement, and arithmetic between mixed types picks whichever
+ *     result type keeps the work proportional to the non-zero elements.
+ * </p>
+ *
+ * @author augward
+ */
+public interface MatrixLike {
+
+    /**
+     * Returns the matrix's rows.
+     *
+     * @return rows
+     */
+    int getRows();
+
+    /**
+     * Returns the matrix's columns.
+     *
+     * @return cols
+     */
+    int getCols();
+
+    /**
+     * Returns an element from a certain row and column.
+     *
+     * @param row the desired row to call from, 1 based
+     * @param col the desired column to call from, 1 based
+     * @return double element
+     */
+    double getElement(int row, int col);
+
+    /**
+     * Returns a new matrix of this matrix and a second matrix added.
+     *
+     * @param other the matrix to add to current
+     * @return a new matrix of both previous added
+     */
+    MatrixLike add(MatrixLike other);
+
+    /**
+     * Returns a new matrix of this matrix and a second matrix subtracted.
+     *
+     * @param other the matrix to subtract from current
+     * @return a new matrix of both previous subtracted
+     */
+    MatrixLike subtract(MatrixLike other);
+
+    /**
+     * Returns a new matrix of this matrix and a scalar multiplied.
+     *
+     * @param scalar the double to multiply against matrix
+     * @return a new matrix of both components multiplied
+     */
+    MatrixLike scalarMultiply(double scalar);
+
+    /**
+     * Returns a new matrix of this matrix and a second matrix multiplied.
+     *
+     * @param other the matrix to multiply to current
+     * @return a new matrix of both previous multiplied
+     */
+    MatrixLike multiply(MatrixLike other);
+
+    /**
+     * Returns the matrix as a dense Matrix.
+     *
+     * @return dense form of the matrix
+     */
+    Matrix toDense();
+}
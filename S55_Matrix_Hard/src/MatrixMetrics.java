@@ -0,0 +1,299 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Optional counters of what Matrix spends its time on, off unless enabled.
+ * <p>
+ *     For every operation it keeps the number of calls, the floating point operations
+ *     done, the elapsed nanoseconds and a histogram of the largest dimension of the
+ *     result.  Each one is recorded once, however it was reached, so addInPlace and
+ *     add(matrix, pool) both count as ADD, and solve, inverse and determinant count
+ *     as the LU or QR they run.  Flops are the textbook counts, 2nkm for a product
+ *     whichever algorithm did it.  Steps inside an operation aren't counted on their
+ *     own, a Strassen product is one MULTIPLY and none of the sums it is built from.
+ * </p>
+ * <p>
+ *     Only Matrix's own methods are counted, a sparse operand included.  SparseMatrix,
+ *     FloatMatrix, IntMatrix, MatrixBatch and MatrixExpression evaluation record nothing.
+ * </p>
+ * <p>
+ *     While disabled an operation costs one volatile read more, no clock is read and
+ *     nothing is written.  While enabled the counters are LongAdders, so threads
+ *     recording at once don't contend.  Read them with snapshot, or over JMX after
+ *     registerMBean.
+ * </p>
+ *
+ * @author augward
+ */
+public final class MatrixMetrics {
+    // Name the MBean is registered under.
+    public static final String OBJECT_NAME = "matrix:type=MatrixMetrics";
+
+    // Histogram buckets, enough for any int dimension.
+    public static final int BUCKETS = 31;
+
+    // Start time handed out while disabled, tells record to skip.
+    static final long OFF = Long.MIN_VALUE;
+
+    // Read by every operation, volatile so enabling from JMX is seen by all threads.
+    private static volatile boolean enabled;
+
+    // Counters of each operation, indexed by ordinal.
+    private static final Counters[] COUNTERS = new Counters[Operation.values().length];
+
+    static {
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new Counters();
+        }
+    }
+
+    // Static entry points only, no reason to create one.
+    private MatrixMetrics() {
+    }
+
+
+    /**
+     * Operations that are recorded.
+     */
+    public enum Operation {
+        ADD, SUBTRACT, SCALAR_MULTIPLY, MULTIPLY, POWER, LU, QR, CHOLESKY
+    }
+
+    /**
+     * Totals of one operation at the time of a snapshot.
+     *
+     * @param calls number of calls
+     * @param flops floating point operations done
+     * @param nanos elapsed nanoseconds
+     * @param dimensionHistogram calls by power of two range of the largest dimension
+     */
+    public record Stats(long calls, long flops, long nanos, long[] dimensionHistogram) {
+        /**
+         * Returns a copy of the histogram, index b counting sizes from 2^b up to 2^(b+1) - 1.
+         *
+         * @return dimensionHistogram
+         */
+        @Override
+        public long[] dimensionHistogram() {
+            return dimensionHistogram.clone();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Stats other && calls == other.calls && flops == other.flops
+                    && nanos == other.nanos && Arrays.equals(dimensionHistogram, other.dimensionHistogram);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hash(calls, flops, nanos) + Arrays.hashCode(dimensionHistogram);
+        }
+
+        @Override
+        public String toString() {
+            return "Stats[calls=" + calls + ", flops=" + flops + ", nanos=" + nanos
+                    + ", dimensionHistogram=" + Arrays.toString(dimensionHistogram) + "]";
+        }
+    }
+
+
+    /**
+     * Returns whether operations are being recorded.
+     *
+     * @return enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns recording on or off, counts so far are kept either way.
+     *
+     * @param enabled true to record operations
+     */
+    public static void setEnabled(boolean enabled) {
+        MatrixMetrics.enabled = enabled;
+    }
+
+    /**
+     * Sets every count back to 0.  Operations running at the same time may land on
+     * either side of the reset.
+     */
+    public static void reset() {
+        for (Counters counters : COUNTERS) {
+            counters.reset();
+        }
+    }
+
+    /**
+     * Returns the totals of every operation, including those never called.
+     *
+     * @return unmodifiable map of Stats by operation
+     */
+    public static Map<Operation, Stats> snapshot() {
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, COUNTERS[operation.ordinal()].stats());
+        }
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Registers the MBean with the platform MBean server, doing nothing if it already is.
+     * Throws IllegalStateException if something else holds the name.
+     *
+     * @return the name it is registered under
+     */
+    public static synchronized ObjectName registerMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new Bean(), name);
+            }
+            return name;
+        } catch (JMException e) {
+            // Signals that a method has been invoked at an illegal or inappropriate time.
+            throw new IllegalStateException("could not register " + OBJECT_NAME, e);
+        }
+    }
+
+
+    /**
+     * Marks the start of an operation.
+     *
+     * @return System.nanoTime, or OFF while disabled
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : OFF;
+    }
+
+    /**
+     * Records one finished operation, does nothing if start was OFF.
+     *
+     * @param operation what was done
+     * @param rows rows of the result
+     * @param cols columns of the result
+     * @param flops floating point operations done
+     * @param start the value start returned
+     */
+    static void record(Operation operation, int rows, int cols, long flops, long start) {
+        if (start == OFF) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        COUNTERS[operation.ordinal()].add(Math.max(rows, cols), flops, nanos);
+    }
+
+
+    /**
+     * Running totals of one operation.
+     */
+    private static final class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder flops = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        Counters() {
+            for (int b = 0; b < BUCKETS; b++) {
+                histogram[b] = new LongAdder();
+            }
+        }
+
+        /**
+         * Adds one call.
+         *
+         * @param dimension largest dimension of the result, at least 1
+         * @param flopCount floating point operations done
+         * @param elapsed nanoseconds taken
+         */
+        void add(int dimension, long flopCount, long elapsed) {
+            calls.increment();
+            flops.add(flopCount);
+            nanos.add(elapsed);
+            histogram[31 - Integer.numberOfLeadingZeros(Math.max(dimension, 1))].increment();
+        }
+
+        void reset() {
+            calls.reset();
+            flops.reset();
+            nanos.reset();
+            for (LongAdder bucket : histogram) {
+                bucket.reset();
+            }
+        }
+
+        Stats stats() {
+            long[] counts = new long[BUCKETS];
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] = histogram[b].sum();
+            }
+            return new Stats(calls.sum(), flops.sum(), nanos.sum(), counts);
+        }
+    }
+
+    /**
+     * The MBean, a view of the static counters.
+     */
+    private static final class Bean implements MatrixMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return MatrixMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            MatrixMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public Map<String, Long> getCalls() {
+            return byName(Stats::calls);
+        }
+
+        @Override
+        public Map<String, Long> getFlops() {
+            return byName(Stats::flops);
+        }
+
+        @Override
+        public Map<String, Long> getNanos() {
+            return byName(Stats::nanos);
+        }
+
+        @Override
+        public Map<String, long[]> getDimensionHistograms() {
+            Map<String, long[]> histograms = new LinkedHashMap<>();
+            snapshot().forEach((operation, stats) -> histograms.put(operation.name(), stats.dimensionHistogram()));
+            return histograms;
+        }
+
+        @Override
+        public void reset() {
+            MatrixMetrics.reset();
+        }
+
+        /**
+         * Picks one total out of a snapshot for every operation.
+         *
+         * @param total which total to take
+         * @return totals by operation name
+         */
+        private static Map<String, Long> byName(ToLongFunction<Stats> total) {
+            Map<String, Long> totals = new LinkedHashMap<>();
+            snapshot().forEach((operation, stats) -> totals.put(operation.name(), total.applyAsLong(stats)));
+            return totals;
+        }
+    }
+}
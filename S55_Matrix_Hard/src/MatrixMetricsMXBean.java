@@ -0,0 +1,63 @@
+import java.util.Map;
+
+/**
+ * Management interface of MatrixMetrics, registered by MatrixMetrics.registerMBean
+ * under the name {@value MatrixMetrics#OBJECT_NAME}.
+ * <p>
+ *     Every map is keyed by operation name, ADD, MULTIPLY, LU and so on, and holds
+ *     the totals since the last reset.  Visible in JConsole and VisualVM, or any
+ *     other JMX client.
+ * </p>
+ *
+ * @author augward
+ */
+public interface MatrixMetricsMXBean {
+
+    /**
+     * Returns whether operations are being recorded.
+     *
+     * @return enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Turns recording on or off.
+     *
+     * @param enabled true to record operations
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns the number of calls of each operation.
+     *
+     * @return calls by operation
+     */
+    Map<String, Long> getCalls();
+
+    /**
+     * Returns the floating point operations done by each operation.
+     *
+     * @return flops by operation
+     */
+    Map<String, Long> getFlops();
+
+    /**
+     * Returns the nanoseconds spent in each operation.
+     *
+     * @return elapsed nanoseconds by operation
+     */
+    Map<String, Long> getNanos();
+
+    /**
+     * Returns how many calls of each operation had a largest dimension in each power
+     * of two range, index b counting sizes from 2^b up to 2^(b+1) - 1.
+     *
+     * @return dimension histogram by operation
+     */
+    Map<String, long[]> getDimensionHistograms();
+
+    /**
+     * Sets every count back to 0.
+     */
+    void reset();
+}
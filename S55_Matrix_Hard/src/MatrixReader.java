@@ -0,0 +1,310 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses the text format written by MatrixWriter and Matrix.toString.
+ * <p>
+ *     Reads through a fixed 8K character buffer and parses each number in place.
+ *     Numbers with up to 15 significant digits and a small exponent are converted
+ *     exactly with a single multiply or divide, anything else falls back to
+ *     Double.parseDouble, so every element reads back as the double that was written.
+ * </p>
+ * Whitespace around elements and rows, Windows line endings and a final newline are
+ * all accepted.  Every row has to have the same number of elements.
+ *
+ * @author augward
+ */
+public final class MatrixReader {
+    // Characters read from the input at a time.
+    static final int BUFFER_CHARS = 8192;
+
+    // Longest number the parser accepts, far more than a double ever needs.
+    private static final int TOKEN_CHARS = 64;
+
+    // Powers of ten that doubles hold exactly, the fast path stays inside them.
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Source and its buffer, a parser reads one matrix.
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_CHARS];
+    private int position;
+    private int limit;
+
+    // Characters of the number being parsed.
+    private final char[] token = new char[TOKEN_CHARS];
+
+    // Elements so far, row major, grown as rows arrive.
+    private double[] data = new double[16];
+    private int count;
+
+
+    /**
+     * Constructs a parser over a reader, used by the static read methods.
+     *
+     * @param in source of the text
+     */
+    private MatrixReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads a matrix from a Reader, up to the end of the input.  The reader is not closed.
+     *
+     * @param in source of the text
+     * @return a new matrix with the parsed elements
+     * @throws IOException if the reader fails
+     */
+    public static Matrix read(Reader in) throws IOException {
+        if (in == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("in must not be null");
+        }
+        return new MatrixReader(in).parse();
+    }
+
+    /**
+     * Reads a matrix from ASCII text in an InputStream, up to the end of the stream.  The stream is not closed.
+     *
+     * @param in source of the text
+     * @return a new matrix with the parsed elements
+     * @throws IOException if the stream fails
+     */
+    public static Matrix read(InputStream in) throws IOException {
+        if (in == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("in must not be null");
+        }
+        return read(new InputStreamReader(in, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Parses a matrix from a string, such as one from toString.
+     *
+     * @param text the matrix as text
+     * @return a new matrix with the parsed elements
+     */
+    public static Matrix parse(String text) {
+        if (text == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("text must not be null");
+        }
+        try {
+            return read(new StringReader(text));
+        } catch (IOException e) {
+            // Reading a StringReader does not throw.
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /**
+     * Parses every row up to the end of the input.
+     *
+     * @return a new matrix with the parsed elements
+     * @throws IOException if the input fails
+     */
+    private Matrix parse() throws IOException {
+        int rows = 0;
+        int cols = 0;
+
+        int c = skipWhitespace();
+        while (c != -1) {
+            if (c != '[') {
+                throw malformed("expected '[' to start row " + (rows + 1));
+            }
+            position++;
+
+            int rowStart = count;
+            c = skipWhitespace();
+            if (c == ']') {
+                throw malformed("row " + (rows + 1) + " is empty");
+            }
+            while (true) {
+                add(parseNumber());
+                c = skipWhitespace();
+                position++;
+                if (c == ']') {
+                    break;
+                } else if (c != ',') {
+                    throw malformed("expected ',' or ']' in row " + (rows + 1));
+                }
+                skipWhitespace();
+            }
+
+            int rowLength = count - rowStart;
+            if (rows == 0) {
+                cols = rowLength;
+            } else if (rowLength != cols) {
+                throw malformed("row " + (rows + 1) + " has " + rowLength + " elements, expected " + cols);
+            }
+            rows++;
+            c = skipWhitespace();
+        }
+
+        if (rows == 0) {
+            throw malformed("no rows");
+        }
+        double[] elements = (data.length == count) ? data : Arrays.copyOf(data, count);
+        return new Matrix(rows, cols, new ArrayStorage(elements), 0, cols);
+    }
+
+    /**
+     * Makes the exception for text that is not a matrix.
+     *
+     * @param message what went wrong
+     * @return exception to throw
+     */
+    private static IllegalArgumentException malformed(String message) {
+        // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+        return new IllegalArgumentException("malformed matrix text, " + message);
+    }
+
+    /**
+     * Adds an element, growing the array when it is full.
+     *
+     * @param value the element
+     */
+    private void add(double value) {
+        if (count == data.length) {
+            if (data.length == Integer.MAX_VALUE - 8) {
+                throw malformed("too many elements");
+            }
+            data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8, data.length * 2L));
+        }
+        data[count++] = value;
+    }
+
+
+    /**
+     * Returns the next character without using it up, refilling the buffer when it runs out.
+     *
+     * @return the character, or -1 at the end of the input
+     * @throws IOException if the input fails
+     */
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, BUFFER_CHARS);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Skips spaces, tabs and line breaks.
+     *
+     * @return the next character after them, or -1 at the end of the input
+     * @throws IOException if the input fails
+     */
+    private int skipWhitespace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            position++;
+            c = peek();
+        }
+        return c;
+    }
+
+    /**
+     * Reads the characters of one number, up to a separator, and converts them.
+     *
+     * @return double value
+     * @throws IOException if the input fails
+     */
+    private double parseNumber() throws IOException {
+        int length = 0;
+        int c = peek();
+        while (c != -1 && c != ',' && c != ']' && c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+            if (length == TOKEN_CHARS) {
+                throw malformed("number is too long");
+            }
+            token[length++] = (char) c;
+            position++;
+            c = peek();
+        }
+        if (length == 0) {
+            throw malformed("expected a number");
+        }
+        return toDouble(token, length);
+    }
+
+    /**
+     * Converts decimal text to a double.
+     * Takes the exact fast path when the digits fit in 2^53 and the power of ten is exact,
+     * then one correctly rounded multiply or divide gives the correctly rounded result.
+     *
+     * @param text characters of the number
+     * @param length how many there are
+     * @return double value
+     */
+    static double toDouble(char[] text, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (text[0] == '-' || text[0] == '+') {
+            negative = text[0] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < length; i++) {
+            char ch = text[i];
+            if (ch >= '0' && ch <= '9') {
+                seenDigit = true;
+                if (mantissa != 0 || ch != '0') {
+                    if (++digits > 15) {
+                        return Double.parseDouble(new String(text, 0, length));
+                    }
+                    mantissa = mantissa * 10 + (ch - '0');
+                }
+                if (seenPoint) {
+                    exponent--;
+                }
+            } else if (ch == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+
+        if (i < length && seenDigit && (text[i] == 'E' || text[i] == 'e')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (text[i] == '-' || text[i] == '+')) {
+                negativeExponent = text[i] == '-';
+                i++;
+            }
+            int power = 0;
+            int start = i;
+            for (; i < length && text[i] >= '0' && text[i] <= '9' && power < 10000; i++) {
+                power = power * 10 + (text[i] - '0');
+            }
+            if (i == start) {
+                return Double.parseDouble(new String(text, 0, length));
+            }
+            exponent += negativeExponent ? -power : power;
+        }
+
+        if (!seenDigit || i < length || exponent < -22 || exponent > 22) {
+            // NaN, Infinity, bad text or a large exponent, left to the JDK.
+            return Double.parseDouble(new String(text, 0, length));
+        }
+
+        double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+}
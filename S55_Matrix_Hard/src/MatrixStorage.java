@@ -0,0 +1,81 @@
+/**
+ * Flat element storage behind a Matrix.
+ * <p>
+ *     Elements are addressed by a single int index, the Matrix decides how rows and
+ *     columns map onto it with an offset and a row stride.  Keeping the layout in the
+ *     Matrix lets several storage types, heap or otherwise, plug in underneath it.
+ * </p>
+ *
+ * @author augward
+ */
+public interface MatrixStorage {
+
+    /**
+     * Returns how many elements the storage holds.
+     *
+     * @return element count
+     */
+    int size();
+
+    /**
+     * Returns the element at a flat index.
+     *
+     * @param index position of the element, 0 based
+     * @return double element
+     */
+    double get(int index);
+
+    /**
+     * Sets the element at a flat index.
+     *
+     * @param index position of the element, 0 based
+     * @param value double element to be stored
+     */
+    void set(int index, double value);
+
+    /**
+     * Copies a run of elements out of the storage.
+     * Storage types that can copy in bulk should override this, the default goes one at a time.
+     *
+     * @param index position of the first element, 0 based
+     * @param dest array to copy into
+     * @param destOffset position in dest of the first element
+     * @param length number of elements
+     */
+    default void get(int index, double[] dest, int destOffset, int length) {
+        for (int k = 0; k < length; k++) {
+            dest[destOffset + k] = get(index + k);
+        }
+    }
+
+    /**
+     * Copies a run of elements into the storage.
+     * Storage types that can copy in bulk should override this, the default goes one at a time.
+     *
+     * @param index position of the first element, 0 based
+     * @param src array to copy from
+     * @param srcOffset position in src of the first element
+     * @param length number of elements
+     */
+    default void set(int index, double[] src, int srcOffset, int length) {
+        for (int k = 0; k < length; k++) {
+            set(index + k, src[srcOffset + k]);
+        }
+    }
+
+    /**
+     * Returns a count of the writes Matrix has made, so a matrix can tell when its cached hash is stale.
+     * Storage that can change without Matrix knowing, like a mapped file, should keep the default.
+     *
+     * @return count of writes, or -1 if writes are not tracked
+     */
+    default long modCount() {
+        return -1;
+    }
+
+    /**
+     * Records that elements were written.  Matrix calls it after every change it makes.
+     */
+    default void modified() {
+    }
+}
@@ -0,0 +1,362 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats matrices as text, straight to a Writer or OutputStream.
+ * <p>
+ *     Uses the same format as Matrix.toString, one row per line in square brackets
+ *     with elements separated by ", ", and no newline after the last row.  Text goes
+ *     through a fixed 8K character buffer, so memory use does not grow with the matrix
+ *     and nothing is allocated per element.  MatrixReader parses the format back.
+ * </p>
+ * <p>
+ *     FULL_PRECISION writes each element like Double.toString, the shortest text that
+ *     reads back as the same double.  A precision of 1 to 15 rounds each element to that
+ *     many significant digits instead, which is shorter and faster to produce.  Trailing
+ *     zeros are dropped, and the plain or E notation choice follows Double.toString.
+ * </p>
+ * A writer is immutable, so one can be shared between threads.
+ *
+ * @author augward
+ */
+public final class MatrixWriter {
+    // Precision that writes the shortest text reading back as the same double.
+    public static final int FULL_PRECISION = 0;
+
+    // Largest rounded precision, up to 15 digits always fit a long and scale exactly enough.
+    public static final int MAX_PRECISION = 15;
+
+    // Characters buffered before they are handed to the output.
+    static final int BUFFER_CHARS = 8192;
+
+    // Room for the longest element and its separator, so an element never splits the buffer check.
+    private static final int ELEMENT_CHARS = 32;
+
+    // Powers of ten that doubles hold exactly.
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Powers of ten as longs, for splitting a mantissa into digits.
+    private static final long[] LONG_POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+        1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+        100000000000000L, 1000000000000000L
+    };
+
+    // Significant digits per element, or FULL_PRECISION.
+    private final int precision;
+
+
+    /**
+     * Constructs a writer that keeps every element's full precision, like toString.
+     */
+    public MatrixWriter() {
+        this(FULL_PRECISION);
+    }
+
+    /**
+     * Constructs a writer that rounds elements to a number of significant digits.
+     *
+     * @param precision digits from 1 to MAX_PRECISION, or FULL_PRECISION
+     */
+    public MatrixWriter(int precision) {
+        if (precision < 0 || precision > MAX_PRECISION) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("precision must be between 0 and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+    }
+
+    /**
+     * Returns the significant digits per element.
+     *
+     * @return precision, FULL_PRECISION if elements are not rounded
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+
+    /**
+     * Writes a matrix as text to a Writer.  The writer is not flushed or closed.
+     *
+     * @param matrix the matrix to write
+     * @param out where the text goes
+     * @throws IOException if the writer fails
+     */
+    public void write(Matrix matrix, Writer out) throws IOException {
+        if (out == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("out must not be null");
+        }
+        format(matrix, (buffer, length) -> out.write(buffer, 0, length));
+    }
+
+    /**
+     * Writes a matrix as ASCII text to an OutputStream.  The stream is flushed but not closed.
+     *
+     * @param matrix the matrix to write
+     * @param out where the text goes
+     * @throws IOException if the stream fails
+     */
+    public void write(Matrix matrix, OutputStream out) throws IOException {
+        if (out == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("out must not be null");
+        }
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.US_ASCII);
+        write(matrix, writer);
+        writer.flush();
+    }
+
+    /**
+     * Returns a matrix as text.  The whole text is held in memory, prefer write for big matrices.
+     *
+     * @param matrix the matrix to format
+     * @return String of the matrix
+     */
+    public String format(Matrix matrix) {
+        StringBuilder text = new StringBuilder();
+        try {
+            format(matrix, (buffer, length) -> text.append(buffer, 0, length));
+        } catch (IOException e) {
+            // Appending to a StringBuilder does not throw.
+            throw new IllegalStateException(e);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Where format hands each full buffer.
+     */
+    private interface Sink {
+        /**
+         * Takes the first length characters of the buffer.
+         *
+         * @param buffer characters to take
+         * @param length how many are filled
+         * @throws IOException if the output fails
+         */
+        void accept(char[] buffer, int length) throws IOException;
+    }
+
+    /**
+     * Formats a matrix a buffer at a time.
+     *
+     * @param matrix the matrix to format
+     * @param sink where each full buffer goes
+     * @throws IOException if the sink fails
+     */
+    private void format(Matrix matrix, Sink sink) throws IOException {
+        if (matrix == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("matrix must not be null");
+        }
+
+        char[] buffer = new char[BUFFER_CHARS];
+        StringBuilder full = (precision == FULL_PRECISION) ? new StringBuilder(ELEMENT_CHARS) : null;
+        int length = 0;
+
+        int rows = matrix.getRows();
+        int cols = matrix.getCols();
+        for (int i = 0; i < rows; i++) {
+            buffer[length++] = '[';
+            for (int j = 0; j < cols; j++) {
+                if (length > BUFFER_CHARS - ELEMENT_CHARS) {
+                    sink.accept(buffer, length);
+                    length = 0;
+                }
+
+                double value = matrix.get(i, j);
+                if (full != null) {
+                    // StringBuilder.append(double) formats in place, without a String per element.
+                    full.setLength(0);
+                    full.append(value);
+                    full.getChars(0, full.length(), buffer, length);
+                    length += full.length();
+                } else {
+                    length = appendRounded(value, precision, buffer, length);
+                }
+
+                if (j != cols - 1) {
+                    buffer[length++] = ',';
+                    buffer[length++] = ' ';
+                } else {
+                    buffer[length++] = ']';
+                }
+            }
+
+            // Next row of matrix
+            if (i != rows - 1) {
+                buffer[length++] = '\n';
+            }
+        }
+        sink.accept(buffer, length);
+    }
+
+
+    /**
+     * Writes a double rounded to a number of significant digits, in Double.toString's style.
+     * Plain notation between 10^-3 and 10^7, E notation otherwise.
+     *
+     * @param value the double to write
+     * @param digits significant digits, 1 to MAX_PRECISION
+     * @param buffer where the characters go
+     * @param start position of the first character
+     * @return position after the last character
+     */
+    static int appendRounded(double value, int digits, char[] buffer, int start) {
+        int pos = start;
+        if (Double.isNaN(value)) {
+            return appendText("NaN", buffer, pos);
+        }
+        if (Double.isInfinite(value)) {
+            return appendText(value > 0 ? "Infinity" : "-Infinity", buffer, pos);
+        }
+        if (value == 0) {
+            // Keeps the sign of -0.0, like Double.toString.
+            return appendText(1 / value < 0 ? "-0.0" : "0.0", buffer, pos);
+        }
+        if (value < 0) {
+            buffer[pos++] = '-';
+            value = -value;
+        }
+
+        // Scales to a whole number of the requested digits.  log10 can be off by one near
+        // a power of ten, which the checks after rounding correct.
+        int exponent = (int) Math.floor(Math.log10(value));
+        long mantissa = scaleAndRound(value, digits - 1 - exponent);
+        if (mantissa >= LONG_POWERS_OF_TEN[digits]) {
+            exponent++;
+            mantissa = scaleAndRound(value, digits - 1 - exponent);
+        } else if (mantissa >= 0 && mantissa < LONG_POWERS_OF_TEN[digits - 1]) {
+            exponent--;
+            mantissa = scaleAndRound(value, digits - 1 - exponent);
+        }
+
+        if (mantissa < 0) {
+            // Too close to halfway to trust the scaled double, rounds the exact value instead.
+            BigDecimal exact = new BigDecimal(value).round(new MathContext(digits, RoundingMode.HALF_UP));
+            exponent = exact.precision() - exact.scale() - 1;
+            mantissa = exact.unscaledValue().longValueExact() * LONG_POWERS_OF_TEN[digits - exact.precision()];
+        } else if (mantissa >= LONG_POWERS_OF_TEN[digits]) {
+            // Rounded up to the next power of ten, like 9.99 to 10.0.
+            mantissa /= 10;
+            exponent++;
+        }
+
+        // Drops trailing zeros, keeping at least one digit.
+        int count = digits;
+        while (count > 1 && mantissa % 10 == 0) {
+            mantissa /= 10;
+            count--;
+        }
+
+        if (exponent >= -3 && exponent < 7) {
+            if (exponent < 0) {
+                buffer[pos++] = '0';
+                buffer[pos++] = '.';
+                for (int k = exponent + 1; k < 0; k++) {
+                    buffer[pos++] = '0';
+                }
+                pos = appendDigits(mantissa, count, 0, count, buffer, pos);
+            } else {
+                pos = appendDigits(mantissa, count, 0, Math.min(count, exponent + 1), buffer, pos);
+                for (int k = count; k <= exponent; k++) {
+                    buffer[pos++] = '0';
+                }
+                buffer[pos++] = '.';
+                if (count > exponent + 1) {
+                    pos = appendDigits(mantissa, count, exponent + 1, count, buffer, pos);
+                } else {
+                    buffer[pos++] = '0';
+                }
+            }
+        } else {
+            pos = appendDigits(mantissa, count, 0, 1, buffer, pos);
+            buffer[pos++] = '.';
+            if (count > 1) {
+                pos = appendDigits(mantissa, count, 1, count, buffer, pos);
+            } else {
+                buffer[pos++] = '0';
+            }
+            buffer[pos++] = 'E';
+            if (exponent < 0) {
+                buffer[pos++] = '-';
+                exponent = -exponent;
+            }
+            // Exponents of a double have at most 3 digits.
+            int exponentDigits = exponent >= 100 ? 3 : (exponent >= 10 ? 2 : 1);
+            pos = appendDigits(exponent, exponentDigits, 0, exponentDigits, buffer, pos);
+        }
+        return pos;
+    }
+
+    /**
+     * Writes some of the decimal digits of a whole number.
+     *
+     * @param number the whole number
+     * @param count how many digits it has
+     * @param from first digit to write, 0 is the most significant
+     * @param to digit after the last one to write
+     * @param buffer where the characters go
+     * @param pos position of the first character
+     * @return position after the last character
+     */
+    private static int appendDigits(long number, int count, int from, int to, char[] buffer, int pos) {
+        for (int k = from; k < to; k++) {
+            buffer[pos++] = (char) ('0' + (number / LONG_POWERS_OF_TEN[count - 1 - k]) % 10);
+        }
+        return pos;
+    }
+
+    /**
+     * Writes a constant string.
+     *
+     * @param text the string
+     * @param buffer where the characters go
+     * @param pos position of the first character
+     * @return position after the last character
+     */
+    private static int appendText(String text, char[] buffer, int pos) {
+        text.getChars(0, text.length(), buffer, pos);
+        return pos + text.length();
+    }
+
+    /**
+     * Multiplies a positive double by 10^power and rounds it to a whole number, half up.
+     * Large powers are applied in steps so they don't overflow to infinity or zero.
+     * Each step can be off by half an ulp, so a result that close to halfway is not trusted.
+     *
+     * @param value positive double
+     * @param power power of ten
+     * @return long rounded result, or -1 if it is too close to halfway to tell
+     */
+    private static long scaleAndRound(double value, int power) {
+        int steps = 1;
+        while (power > 22) {
+            value *= 1e22;
+            power -= 22;
+            steps++;
+        }
+        while (power < -22) {
+            value /= 1e22;
+            power += 22;
+            steps++;
+        }
+        double scaled = power >= 0 ? value * POWERS_OF_TEN[power] : value / POWERS_OF_TEN[-power];
+        double fraction = scaled - Math.floor(scaled);
+        if (Math.abs(fraction - 0.5) <= scaled * steps * 0x1p-52) {
+            return -1;
+        }
+        return Math.round(scaled);
+    }
+}
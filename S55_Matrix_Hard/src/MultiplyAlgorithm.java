@@ -0,0 +1,18 @@
+/**
+ * Which multiplication method the static Matrix.multiply uses.
+ * <p>
+ *     BLOCKED is the cache-blocked kernel, PARALLEL spreads it over the common
+ *     ForkJoinPool, STRASSEN recurses with Strassen-Winograd down to the blocked
+ *     kernel, and AUTO picks STRASSEN for square matrices well above the cutoff
+ *     and BLOCKED for everything else.
+ * </p>
+ * STRASSEN only applies to square matrices, other shapes use BLOCKED.
+ *
+ * @author augward
+ */
+public enum MultiplyAlgorithm {
+    BLOCKED,
+    PARALLEL,
+    STRASSEN,
+    AUTO
+}
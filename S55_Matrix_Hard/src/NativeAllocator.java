@@ -0,0 +1,34 @@
+/**
+ * Hands out off-heap storage for a MatrixArena, and frees all of it at once.
+ * <p>
+ *     MatrixArena picks one allocator when it opens, ForeignAllocator when the
+ *     jdk.incubator.foreign module is available, DirectAllocator otherwise.  Storage
+ *     starts as zeros, and once the allocator is closed every access to it throws
+ *     IllegalStateException.
+ * </p>
+ *
+ * @author augward
+ */
+public interface NativeAllocator extends AutoCloseable {
+
+    /**
+     * Returns a short name for the allocator, for logging and benchmarks.
+     *
+     * @return name
+     */
+    String name();
+
+    /**
+     * Allocates zeroed storage for a number of doubles.
+     *
+     * @param size number of elements
+     * @return MatrixStorage outside the heap
+     */
+    MatrixStorage allocate(int size);
+
+    /**
+     * Frees every storage this allocator handed out.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,68 @@
+/**
+ * How a Matrix treats floating point error in its results and comparisons.
+ * <p>
+ *     EXACT keeps plain IEEE arithmetic, ROUNDED rounds each finished product to
+ *     6 decimal places, and TOLERANCE keeps exact arithmetic but lets equals between
+ *     two TOLERANCE matrices ignore differences below a small relative tolerance.
+ * </p>
+ * Rounding is applied once to each finished element, never inside the multiply loop.
+ *
+ * @author augward
+ */
+public enum NumericPolicy {
+    // Plain IEEE results, equals compares elements exactly.
+    EXACT,
+
+    // multiply and scalarMultiply results are rounded to 6 decimal places.
+    ROUNDED,
+
+    // Plain IEEE results, equals with another TOLERANCE matrix allows a relative difference of TOLERANCE_EPSILON.
+    TOLERANCE;
+
+    // Multiplying and dividing by 1,000,000 keeps 6 decimal places.
+    public static final double ROUNDING_SCALE = 1000000;
+
+    // Largest relative difference equals still treats as the same element.
+    public static final double TOLERANCE_EPSILON = 1e-9;
+
+
+    /**
+     * Rounds a value to 6 decimal places, gets rid of floating point errors while still allowing accuracy.
+     *
+     * @param value the double to round
+     * @return value rounded to 6 decimal places
+     */
+    public static double round(double value) {
+        // Casts it as a double, even if it ends as an int
+        return (double) Math.round(value * ROUNDING_SCALE) / ROUNDING_SCALE;
+    }
+
+    /**
+     * Checks if two elements are close enough to count as equal under TOLERANCE.
+     * Scales the tolerance by the larger magnitude, so it works for big and small values alike.
+     *
+     * @param a first element
+     * @param b second element
+     * @return whether the two are within tolerance of each other
+     */
+    public static boolean withinTolerance(double a, double b) {
+        return withinTolerance(a, b, TOLERANCE_EPSILON);
+    }
+
+    /**
+     * Checks if two elements are within a chosen tolerance, scaled like TOLERANCE's.
+     * Two NaNs match, so a matrix is always equal to itself.
+     *
+     * @param a first element
+     * @param b second element
+     * @param epsilon largest difference allowed for elements up to 1 in size, relative above that
+     * @return whether the two are within tolerance of each other
+     */
+    public static boolean withinTolerance(double a, double b, double epsilon) {
+        if (a == b || (Double.isNaN(a) && Double.isNaN(b))) {
+            return true;
+        }
+        double scale = Math.max(1, Math.max(Math.abs(a), Math.abs(b)));
+        return Math.abs(a - b) <= epsilon * scale;
+    }
+}
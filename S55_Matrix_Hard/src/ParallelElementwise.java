@@ -0,0 +1,119 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join splitting for the element-wise operations, add, subtract and scalarMultiply.
+ * <p>
+ *     The rows of the output are halved until a band holds no more elements than the
+ *     threshold, then each band is handed to the serial array kernels.  Bands never
+ *     overlap and every element is computed exactly as the serial loop does, so the
+ *     result is identical to the serial one.  Matrices under the threshold never
+ *     leave the calling thread.
+ * </p>
+ * Element-wise work is bound by memory bandwidth, so the threshold is much larger than
+ * ParallelMultiply's, a band has to be big enough to pay for handing it to another thread.
+ *
+ * @author augward
+ */
+public final class ParallelElementwise {
+    // Default threshold in elements, 2^18 doubles or 2MB per operand.
+    public static final long DEFAULT_THRESHOLD = 1L << 18;
+
+    // Volatile since it can be changed while other threads are working.
+    private static volatile long threshold = DEFAULT_THRESHOLD;
+
+    // Static entry points only, no reason to create one.
+    private ParallelElementwise() {
+    }
+
+
+    /**
+     * Work on a band of rows, rows start (inclusive) to end (exclusive).
+     */
+    @FunctionalInterface
+    interface RowBand {
+        void run(int start, int end);
+    }
+
+
+    /**
+     * Returns the number of elements above which work is split across threads.
+     *
+     * @return threshold
+     */
+    public static long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets the number of elements above which work is split across threads.
+     *
+     * @param threshold new threshold, must be positive
+     */
+    public static void setThreshold(long threshold) {
+        if (threshold <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        ParallelElementwise.threshold = threshold;
+    }
+
+    /**
+     * Checks if an output is worth splitting, there is a pool and it has more than one
+     * row and more elements than the threshold.
+     *
+     * @param rows rows of the output
+     * @param cols columns of the output
+     * @param pool the pool to run on, null for none
+     * @return whether forRows should be used over one serial call
+     */
+    static boolean worthSplitting(int rows, int cols, ForkJoinPool pool) {
+        return pool != null && rows > 1 && (long) rows * cols > threshold;
+    }
+
+    /**
+     * Runs a band operation over rows 0 to rows, split across the pool.
+     *
+     * @param rows rows of the output
+     * @param cols columns of the output
+     * @param pool the pool to run bands on
+     * @param band the work for one band of rows
+     */
+    static void forRows(int rows, int cols, ForkJoinPool pool, RowBand band) {
+        pool.invoke(new BandTask(band, 0, rows, cols, threshold));
+    }
+
+
+    /**
+     * One band of rows, split further until it is under the threshold.
+     */
+    @SuppressWarnings("serial")
+    private static final class BandTask extends RecursiveAction {
+        private final RowBand band;
+        private final int start;
+        private final int end;
+        private final int cols;
+        private final long limit;
+
+        BandTask(RowBand band, int start, int end, int cols, long limit) {
+            this.band = band;
+            this.start = start;
+            this.end = end;
+            this.cols = cols;
+            this.limit = limit;
+        }
+
+        @Override
+        protected void compute() {
+            int bandRows = end - start;
+            if (bandRows == 1 || (long) bandRows * cols <= limit) {
+                band.run(start, end);
+                return;
+            }
+
+            int middle = start + bandRows / 2;
+            invokeAll(new BandTask(band, start, middle, cols, limit),
+                    new BandTask(band, middle, end, cols, limit));
+        }
+    }
+}
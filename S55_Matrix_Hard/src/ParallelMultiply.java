@@ -0,0 +1,139 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join matrix multiplication that spreads output tiles across a ForkJoinPool.
+ * <p>
+ *     The output is split in half along its longer side, rows or columns, until a tile's
+ *     work falls under the threshold, then each tile is filled by the serial blocked kernel.
+ *     Products smaller than the threshold never leave the calling thread.
+ * </p>
+ * Tiles never overlap and each keeps the serial k order, so the result is identical to
+ * the serial multiply.
+ *
+ * @author augward
+ */
+public final class ParallelMultiply {
+    // Default threshold in multiply-adds, roughly a 128 x 128 x 128 product.
+    public static final long DEFAULT_THRESHOLD = 128L * 128 * 128;
+
+    // Volatile since it can be changed while other threads are multiplying.
+    private static volatile long threshold = DEFAULT_THRESHOLD;
+
+    // Static entry points only, no reason to create one.
+    private ParallelMultiply() {
+    }
+
+
+    /**
+     * Returns the number of multiply-adds above which work is split across threads.
+     *
+     * @return threshold
+     */
+    public static long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets the number of multiply-adds above which work is split across threads.
+     *
+     * @param threshold new threshold, must be positive
+     */
+    public static void setThreshold(long threshold) {
+        if (threshold <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        ParallelMultiply.threshold = threshold;
+    }
+
+
+    /**
+     * Multiplies a by b into c using the given pool.
+     * Dimensions are expected to be checked by the caller.
+     *
+     * @param a left hand matrix, n x shared
+     * @param b right hand matrix, shared x m
+     * @param c output matrix, n x m
+     * @param pool the pool to run tiles on
+     */
+    public static void multiply(Matrix a, Matrix b, Matrix c, ForkJoinPool pool) {
+        if (pool == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("pool must not be null");
+        }
+
+        // Packed once up front instead of by every tile.
+        b = BlockedMultiply.pack(b);
+
+        long limit = threshold;
+        TileTask task = new TileTask(a, b, c, 0, c.getRows(), 0, c.getCols(), limit);
+        if (task.work() <= limit) {
+            // Small product, forking would cost more than it saves.
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+
+    /**
+     * One rectangular tile of the output, split further until it is under the threshold.
+     */
+    @SuppressWarnings("serial")
+    private static final class TileTask extends RecursiveAction {
+        private final Matrix a;
+        private final Matrix b;
+        private final Matrix c;
+        private final int rowStart;
+        private final int rowEnd;
+        private final int colStart;
+        private final int colEnd;
+        private final long limit;
+
+        TileTask(Matrix a, Matrix b, Matrix c,
+                 int rowStart, int rowEnd, int colStart, int colEnd, long limit) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.colStart = colStart;
+            this.colEnd = colEnd;
+            this.limit = limit;
+        }
+
+        /**
+         * Multiply-adds needed to fill this tile.
+         *
+         * @return tile rows * tile cols * shared length
+         */
+        long work() {
+            return (long) (rowEnd - rowStart) * (colEnd - colStart) * b.getRows();
+        }
+
+        @Override
+        protected void compute() {
+            int tileRows = rowEnd - rowStart;
+            int tileCols = colEnd - colStart;
+
+            // Stops splitting once a tile is cheap enough or as small as one cache block.
+            boolean rowsSplittable = tileRows > BlockedMultiply.ROW_BLOCK;
+            boolean colsSplittable = tileCols > BlockedMultiply.COL_BLOCK;
+            if (work() <= limit || (!rowsSplittable && !colsSplittable)) {
+                BlockedMultiply.multiply(a, b, c, rowStart, rowEnd, colStart, colEnd);
+                return;
+            }
+
+            if (rowsSplittable && (tileRows >= tileCols || !colsSplittable)) {
+                int middle = rowStart + tileRows / 2;
+                invokeAll(new TileTask(a, b, c, rowStart, middle, colStart, colEnd, limit),
+                        new TileTask(a, b, c, middle, rowEnd, colStart, colEnd, limit));
+            } else {
+                int middle = colStart + tileCols / 2;
+                invokeAll(new TileTask(a, b, c, rowStart, rowEnd, colStart, middle, limit),
+                        new TileTask(a, b, c, rowStart, rowEnd, middle, colEnd, limit));
+            }
+        }
+    }
+}
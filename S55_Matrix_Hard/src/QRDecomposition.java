@@ -0,0 +1,326 @@
+/**
+ * Householder QR decomposition, A = Q * R, of a matrix with at least as many rows as columns.
+ * <p>
+ *     Factors a packed copy a panel of 64 columns at a time.  The reflectors of a panel
+ *     are gathered into the compact WY form, H1 * ... * Hk = I - V * T * V^T, so the rest
+ *     of the matrix is updated with three matrix products instead of 64 separate passes.
+ *     Each product walks rows through the fused multiply-add kernel.
+ * </p>
+ * <p>
+ *     R is stored on and above the diagonal, the reflector vectors below it with an
+ *     implicit 1 on the diagonal, as in LAPACK.  solve returns the least squares
+ *     solution when there are more rows than columns.
+ * </p>
+ * The factorization is kept, so every solve reuses it.
+ *
+ * @author augward
+ */
+public final class QRDecomposition implements MatrixDecomposition {
+    // Columns factored per panel before the trailing update.
+    static final int BLOCK = 64;
+
+    // Rows and Columns of the factored matrix.
+    private final int rows;
+    private final int cols;
+
+    // R on and above the diagonal, reflector vectors below it, packed row major.
+    private final double[] qr;
+
+    // Scale of each reflector, H = I - tau * v * v^T.  0 means the reflector is the identity.
+    private final double[] tau;
+
+    // Policy of the factored matrix, given to every result.
+    private final NumericPolicy policy;
+
+
+    /**
+     * Factors a matrix with rows >= cols.  The matrix itself is not changed.
+     *
+     * @param a the matrix to factor
+     */
+    public QRDecomposition(Matrix a) {
+        if (a == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("matrix must not be null");
+        }
+        if (a.getRows() < a.getCols()) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("matrix must have at least as many rows as columns");
+        }
+
+        rows = a.getRows();
+        cols = a.getCols();
+        qr = a.copy().array();
+        tau = new double[cols];
+        policy = a.getNumericPolicy();
+
+        double[] w = new double[BLOCK];
+        for (int k0 = 0; k0 < cols; k0 += BLOCK) {
+            int k1 = Math.min(k0 + BLOCK, cols);
+
+            // Panel, one reflector per column applied to the panel columns right of it.
+            for (int k = k0; k < k1; k++) {
+                householder(k);
+                if (tau[k] != 0 && k + 1 < k1) {
+                    reflect(k, qr, k + 1, k1 - k - 1, cols, w);
+                }
+            }
+            if (k1 < cols) {
+                updateTrailing(k0, k1);
+            }
+        }
+    }
+
+    /**
+     * Makes the reflector that zeros column k below the diagonal, and applies it to that column.
+     *
+     * @param k column, 0 based
+     */
+    private void householder(int k) {
+        double alpha = qr[k * cols + k];
+        double sigma = 0;
+        for (int i = k + 1; i < rows; i++) {
+            double value = qr[i * cols + k];
+            sigma += value * value;
+        }
+        if (sigma == 0) {
+            // Already zero below the diagonal.
+            tau[k] = 0;
+            return;
+        }
+
+        // beta takes the opposite sign of alpha so alpha - beta never cancels.
+        double norm = Math.sqrt(alpha * alpha + sigma);
+        double beta = alpha > 0 ? -norm : norm;
+        double divisor = alpha - beta;
+        tau[k] = (beta - alpha) / beta;
+        for (int i = k + 1; i < rows; i++) {
+            qr[i * cols + k] /= divisor;
+        }
+        qr[k * cols + k] = beta;
+    }
+
+    /**
+     * Applies reflector k to a block of columns of a packed matrix, x = (I - tau * v * v^T) * x.
+     *
+     * @param k reflector, 0 based
+     * @param x packed row major matrix with at least rows rows
+     * @param col first column to update
+     * @param len number of columns to update
+     * @param stride row stride of x
+     * @param w work array of at least len elements
+     */
+    private void reflect(int k, double[] x, int col, int len, int stride, double[] w) {
+        // w = v^T * x, with v's implicit 1 at row k.
+        System.arraycopy(x, k * stride + col, w, 0, len);
+        for (int i = k + 1; i < rows; i++) {
+            double v = qr[i * cols + k];
+            if (v != 0) {
+                ElementKernels.fma(v, x, i * stride + col, w, 0, len);
+            }
+        }
+
+        // x -= tau * v * w^T
+        double t = tau[k];
+        ElementKernels.fma(-t, w, 0, x, k * stride + col, len);
+        for (int i = k + 1; i < rows; i++) {
+            double v = qr[i * cols + k];
+            if (v != 0) {
+                ElementKernels.fma(-t * v, w, 0, x, i * stride + col, len);
+            }
+        }
+    }
+
+    /**
+     * Applies a finished panel's reflectors to every column right of it, A2 -= V * T^T * V^T * A2.
+     *
+     * @param k0 first column of the panel
+     * @param k1 first column after the panel
+     */
+    private void updateTrailing(int k0, int k1) {
+        int kb = k1 - k0;
+        int width = cols - k1;
+
+        // T, upper triangular, built a column at a time: T[0..j, j] = -tau_j * T[0..j, 0..j] * V^T * v_j.
+        double[] t = new double[kb * kb];
+        double[] z = new double[kb];
+        for (int j = 0; j < kb; j++) {
+            int kj = k0 + j;
+            t[j * kb + j] = tau[kj];
+            for (int p = 0; p < j; p++) {
+                double sum = qr[kj * cols + k0 + p];
+                for (int i = kj + 1; i < rows; i++) {
+                    sum += qr[i * cols + k0 + p] * qr[i * cols + kj];
+                }
+                z[p] = sum;
+            }
+            for (int r = 0; r < j; r++) {
+                double sum = 0;
+                for (int p = r; p < j; p++) {
+                    sum += t[r * kb + p] * z[p];
+                }
+                t[r * kb + j] = -tau[kj] * sum;
+            }
+        }
+
+        // W = V^T * A2, kb x width.
+        double[] w = new double[kb * width];
+        for (int i = k0; i < rows; i++) {
+            for (int p = 0; p < kb && k0 + p <= i; p++) {
+                double v = reflectorElement(i, k0 + p);
+                if (v != 0) {
+                    ElementKernels.fma(v, qr, i * cols + k1, w, p * width, width);
+                }
+            }
+        }
+
+        // W = T^T * W, from the bottom row up so the rows it reads are not changed yet.
+        for (int j = kb - 1; j >= 0; j--) {
+            ElementKernels.scale(w, j * width, t[j * kb + j], w, j * width, width);
+            for (int p = 0; p < j; p++) {
+                double tpj = t[p * kb + j];
+                if (tpj != 0) {
+                    ElementKernels.fma(tpj, w, p * width, w, j * width, width);
+                }
+            }
+        }
+
+        // A2 -= V * W
+        for (int i = k0; i < rows; i++) {
+            for (int p = 0; p < kb && k0 + p <= i; p++) {
+                double v = reflectorElement(i, k0 + p);
+                if (v != 0) {
+                    ElementKernels.fma(-v, w, p * width, qr, i * cols + k1, width);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns element i of reflector vector k, which is 1 on the diagonal and 0 above it.
+     *
+     * @param i row, 0 based
+     * @param k reflector, 0 based
+     * @return double element of v_k
+     */
+    private double reflectorElement(int i, int k) {
+        if (i < k) {
+            return 0;
+        }
+        return i == k ? 1 : qr[i * cols + k];
+    }
+
+
+    /**
+     * Returns the number of rows of the factored matrix.
+     *
+     * @return int rows
+     */
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns of the factored matrix.
+     *
+     * @return int columns
+     */
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Checks if the columns of A are independent, no diagonal element of R is negligible.
+     * Rounding leaves dependent columns with a tiny diagonal instead of an exact zero, so
+     * anything within max(rows, cols) ulps of the largest diagonal element counts as zero.
+     *
+     * @return whether solve can be used
+     */
+    public boolean isFullRank() {
+        double largest = 0;
+        for (int k = 0; k < cols; k++) {
+            largest = Math.max(largest, Math.abs(qr[k * cols + k]));
+        }
+        double negligible = Math.max(rows, cols) * Math.ulp(largest);
+        for (int k = 0; k < cols; k++) {
+            if (Math.abs(qr[k * cols + k]) <= negligible) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the thin orthogonal factor Q, with orthonormal columns.
+     *
+     * @return Matrix Q, rows x cols
+     */
+    public Matrix getQ() {
+        double[] q = new double[rows * cols];
+        for (int k = 0; k < cols; k++) {
+            q[k * cols + k] = 1;
+        }
+
+        // Q = H1 * ... * Hn * I, applied from the last reflector back.
+        double[] w = new double[cols];
+        for (int k = cols - 1; k >= 0; k--) {
+            if (tau[k] != 0) {
+                reflect(k, q, k, cols - k, cols, w);
+            }
+        }
+        return Matrix.packed(rows, cols, q, policy);
+    }
+
+    /**
+     * Returns the upper triangular factor R.
+     *
+     * @return Matrix R, cols x cols
+     */
+    public Matrix getR() {
+        double[] r = new double[cols * cols];
+        for (int i = 0; i < cols; i++) {
+            System.arraycopy(qr, i * cols + i, r, i * cols + i, cols - i);
+        }
+        return Matrix.packed(cols, cols, r, policy);
+    }
+
+    /**
+     * Solves A * X = B in the least squares sense, by applying Q^T to B and back substituting R.
+     * The solution is exact when A is square.
+     *
+     * @param b right hand sides, rows x m
+     * @return Matrix X, cols x m
+     */
+    @Override
+    public Matrix solve(Matrix b) {
+        if (b == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("b must not be null");
+        }
+        if (b.getRows() != rows) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("rows of b must match rows of the matrix");
+        }
+        if (!isFullRank()) {
+            // Thrown when an exceptional arithmetic condition has occurred.
+            throw new ArithmeticException("matrix is rank deficient");
+        }
+        int m = b.getCols();
+
+        double[] y = b.copy().array();
+        double[] w = new double[m];
+        for (int k = 0; k < cols; k++) {
+            if (tau[k] != 0) {
+                reflect(k, y, 0, m, m, w);
+            }
+        }
+
+        // Only the first cols rows of Q^T * B take part, the rest is the residual.
+        double[] x = new double[cols * m];
+        System.arraycopy(y, 0, x, 0, cols * m);
+        TriangularSolve.backwardUpper(qr, cols, x, m);
+        return Matrix.packed(cols, m, x, policy);
+    }
+}
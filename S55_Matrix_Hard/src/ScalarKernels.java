@@ -0,0 +1,44 @@
+/**
+ * Plain loop backend for ElementKernels, always available.
+ * <p>
+ *     Written as simple counted loops so the JIT is free to unroll them and,
+ *     where it can, auto-vectorize them.
+ * </p>
+ *
+ * @author augward
+ */
+public final class ScalarKernels implements KernelBackend {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void add(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = x[xOffset + i] + y[yOffset + i];
+        }
+    }
+
+    @Override
+    public void subtract(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = x[xOffset + i] - y[yOffset + i];
+        }
+    }
+
+    @Override
+    public void scale(double[] x, int xOffset, double scalar, double[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = x[xOffset + i] * scalar;
+        }
+    }
+
+    @Override
+    public void fma(double a, double[] x, int xOffset, double[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = Math.fma(a, x[xOffset + i], out[outOffset + i]);
+        }
+    }
+}
@@ -0,0 +1,689 @@
+import java.util.Arrays;
+
+/**
+ * Represents a mathematical matrix that is mostly zeros, in compressed sparse row (CSR) form.
+ * <p>
+ *     Only non-zero elements are stored, so memory grows with the number of non-zeros
+ *     instead of rows * cols.  Row i's elements sit at [rowPointers[i], rowPointers[i + 1])
+ *     of colIndices and values, with column indexes ascending.
+ * </p>
+ * <p>
+ *     The compressed sparse column (CSC) form of a matrix is the CSR form of its
+ *     transpose, which transpose() builds in one counting pass.  A SparseMatrix is
+ *     never changed after construction, every operation returns a new one.
+ * </p>
+ *
+ * @author augward
+ */
+public class SparseMatrix implements MatrixLike {
+    // Rows and Columns of Matrix.
+    private final int rows;
+    private final int cols;
+
+    // CSR arrays, indexes are 0 based.  colIndices and values are exactly nonZeroCount() long.
+    private final int[] rowPointers;
+    private final int[] colIndices;
+    private final double[] values;
+
+
+    /**
+     * Constructs a sparse matrix with given rows and columns, where all values are 0.
+     *
+     * @param rows the number of rows in the matrix.
+     * @param cols the number of columns in the matrix.
+     */
+    public SparseMatrix(int rows, int cols) {
+        this(rows, cols, new int[rows + 1], new int[0], new double[0]);
+    }
+
+    /**
+     * Constructs a sparse matrix from CSR arrays, which are copied in.
+     *
+     * @param rows the number of rows in the matrix.
+     * @param cols the number of columns in the matrix.
+     * @param rowPointers rows + 1 start positions, 0 based, the last one is the non-zero count
+     * @param colIndices column of each stored element, 0 based, ascending within a row
+     * @param values each stored element
+     */
+    public SparseMatrix(int rows, int cols, int[] rowPointers, int[] colIndices, double[] values) {
+        checkValidDimensions(rows, cols);
+        checkValidArrays(rows, cols, rowPointers, colIndices, values);
+
+        int count = rowPointers[rows];
+        this.rows = rows;
+        this.cols = cols;
+        this.rowPointers = rowPointers.clone();
+        this.colIndices = Arrays.copyOf(colIndices, count);
+        this.values = Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Constructs a sparse matrix around arrays built by this class, without checks or copies.
+     *
+     * @param rowPointers rows + 1 start positions
+     * @param colIndices column of each stored element, exactly the non-zero count long
+     * @param values each stored element, exactly the non-zero count long
+     * @param rows the number of rows in the matrix.
+     * @param cols the number of columns in the matrix.
+     */
+    private SparseMatrix(int[] rowPointers, int[] colIndices, double[] values, int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.rowPointers = rowPointers;
+        this.colIndices = colIndices;
+        this.values = values;
+    }
+
+
+    /**
+     * Creates a sparse matrix holding the non-zero elements of a dense one.
+     *
+     * @param dense the matrix to compress
+     * @return SparseMatrix with the same elements
+     */
+    public static SparseMatrix fromDense(Matrix dense) {
+        int rows = dense.getRows();
+        int cols = dense.getCols();
+
+        // First pass counts the non-zeros so the arrays are allocated once at the right size.
+        int[] rowPointers = new int[rows + 1];
+        for (int i = 0; i < rows; i++) {
+            int count = 0;
+            for (int j = 0; j < cols; j++) {
+                if (dense.get(i, j) != 0) {
+                    count++;
+                }
+            }
+            rowPointers[i + 1] = rowPointers[i] + count;
+        }
+
+        int[] colIndices = new int[rowPointers[rows]];
+        double[] values = new double[rowPointers[rows]];
+        int position = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                double value = dense.get(i, j);
+                if (value != 0) {
+                    colIndices[position] = j;
+                    values[position] = value;
+                    position++;
+                }
+            }
+        }
+        return new SparseMatrix(rowPointers, colIndices, values, rows, cols);
+    }
+
+    /**
+     * Returns a sparse identity matrix of given size.
+     *
+     * @param size the number of rows and columns of the matrix
+     * @return SparseMatrix with 1s along the center diagonal axis
+     */
+    public static SparseMatrix identity(int size) {
+        if (size <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("size is invalid");
+        }
+
+        int[] rowPointers = new int[size + 1];
+        int[] colIndices = new int[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            rowPointers[i + 1] = i + 1;
+            colIndices[i] = i;
+            values[i] = 1;
+        }
+        return new SparseMatrix(rowPointers, colIndices, values, size, size);
+    }
+
+
+    /**
+     * Returns the matrix's rows.
+     *
+     * @return rows
+     */
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the matrix's columns.
+     *
+     * @return cols
+     */
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Returns how many elements are stored, the memory the matrix uses grows with this.
+     *
+     * @return non-zero count
+     */
+    public int nonZeroCount() {
+        return rowPointers[rows];
+    }
+
+    /**
+     * Returns the CSR row start positions, used by Matrix for mixed operations.
+     *
+     * @return rowPointers, not a copy
+     */
+    int[] rowPointers() {
+        return rowPointers;
+    }
+
+    /**
+     * Returns the CSR column indexes, used by Matrix for mixed operations.
+     *
+     * @return colIndices, not a copy
+     */
+    int[] colIndices() {
+        return colIndices;
+    }
+
+    /**
+     * Returns the CSR values, used by Matrix for mixed operations.
+     *
+     * @return values, not a copy
+     */
+    double[] values() {
+        return values;
+    }
+
+
+    /**
+     * Returns an element from a certain row and column, searching the row's stored columns.
+     *
+     * @param row the desired row to call from
+     * @param col the desired column to call from
+     * @return double element, 0 if it is not stored
+     */
+    @Override
+    public double getElement(int row, int col) {
+        if (row <= 0 || row > rows) {
+            // Thrown to indicate that an array has been accessed with an illegal index.
+            throw new ArrayIndexOutOfBoundsException("rows is outside bounds");
+        } else if (col <= 0 || col > cols) {
+            // Thrown to indicate that an array has been accessed with an illegal index.
+            throw new ArrayIndexOutOfBoundsException("cols is outside bounds");
+        }
+
+        int position = Arrays.binarySearch(colIndices, rowPointers[row - 1], rowPointers[row], col - 1);
+        return position >= 0 ? values[position] : 0;
+    }
+
+
+    /**
+     * Helper method to make sure new dimensions are valid.
+     *
+     * @param rows rows that need to be checked
+     * @param cols columns that need to be checked
+     */
+    private static void checkValidDimensions(int rows, int cols) {
+        if (rows <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("rows cannot be negative or 0");
+        } else if (cols <= 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("cols cannot be negative or 0");
+        }
+    }
+
+    /**
+     * Helper method to make sure CSR arrays describe a valid matrix.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param rowPointers row start positions
+     * @param colIndices column indexes
+     * @param values stored elements
+     */
+    private static void checkValidArrays(int rows, int cols, int[] rowPointers, int[] colIndices, double[] values) {
+        if (rowPointers == null || colIndices == null || values == null) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("arrays must not be null");
+        }
+        if (rowPointers.length != rows + 1 || rowPointers[0] != 0) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("rowPointers must have rows + 1 entries starting at 0");
+        }
+        if (rowPointers[rows] > colIndices.length || rowPointers[rows] > values.length) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("colIndices and values are shorter than the non-zero count");
+        }
+
+        for (int i = 0; i < rows; i++) {
+            if (rowPointers[i + 1] < rowPointers[i]) {
+                // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+                throw new IllegalArgumentException("rowPointers must not decrease");
+            }
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                if (colIndices[p] < 0 || colIndices[p] >= cols) {
+                    // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+                    throw new IllegalArgumentException("colIndices must be inside 0 and cols");
+                }
+                if (p > rowPointers[i] && colIndices[p] <= colIndices[p - 1]) {
+                    // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+                    throw new IllegalArgumentException("colIndices must be ascending within a row");
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method to make sure that two matrices have the same dimensions.
+     *
+     * @param other matrix for comparison
+     */
+    private void checkSameDimensions(MatrixLike other) {
+        if ((rows != other.getRows()) || (cols != other.getCols())) {
+            // Throw to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("dimensions are not equal");
+        }
+    }
+
+    /**
+     * Helper method to make sure a second matrix can be multiplied against this one.
+     *
+     * @param other matrix to be multiplied
+     */
+    private void checkMultiplyDimensions(MatrixLike other) {
+        if (cols != other.getRows()) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("rows and cols are not equal for multiplication");
+        }
+    }
+
+
+    /**
+     * Returns the matrix as a dense Matrix, allocating every element.
+     *
+     * @return dense form of the matrix
+     */
+    @Override
+    public Matrix toDense() {
+        Matrix dense = new Matrix(rows, cols);
+        addInto(dense, 1);
+        return dense;
+    }
+
+    /**
+     * Adds sign times this matrix onto a dense matrix of the same size, touching only the non-zeros.
+     *
+     * @param dense the matrix to change
+     * @param sign 1 to add, -1 to subtract
+     */
+    void addInto(Matrix dense, double sign) {
+        for (int i = 0; i < rows; i++) {
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                int j = colIndices[p];
+                dense.set(i, j, dense.get(i, j) + sign * values[p]);
+            }
+        }
+    }
+
+
+    /**
+     * Returns a new matrix of this matrix and a second matrix added.
+     * Stays sparse when both are sparse, otherwise the result is dense.
+     *
+     * @param other the matrix to add to current
+     * @return a new matrix of both previous added
+     */
+    @Override
+    public MatrixLike add(MatrixLike other) {
+        checkSameDimensions(other);
+
+        if (other instanceof SparseMatrix sparse) {
+            return combine(sparse, 1);
+        }
+
+        Matrix output = other.toDense().copy();
+        addInto(output, 1);
+        return output;
+    }
+
+    /**
+     * Returns a new sparse matrix of this matrix and a second sparse matrix added.
+     *
+     * @param other the matrix to add to current
+     * @return a new sparse matrix of both previous added
+     */
+    public SparseMatrix add(SparseMatrix other) {
+        checkSameDimensions(other);
+        return combine(other, 1);
+    }
+
+    /**
+     * Returns a new matrix of this matrix and a second matrix subtracted.
+     * Stays sparse when both are sparse, otherwise the result is dense.
+     *
+     * @param other the matrix to subtract from current
+     * @return a new matrix of both previous subtracted
+     */
+    @Override
+    public MatrixLike subtract(MatrixLike other) {
+        checkSameDimensions(other);
+
+        if (other instanceof SparseMatrix sparse) {
+            return combine(sparse, -1);
+        }
+
+        // Starts from this matrix's non-zeros, then the dense kernels take away the other.
+        Matrix output = toDense();
+        Matrix.subtractElements(output, other.toDense(), output, Matrix.getElementPool());
+        return output;
+    }
+
+    /**
+     * Returns a new sparse matrix of this matrix and a second sparse matrix subtracted.
+     *
+     * @param other the matrix to subtract from current
+     * @return a new sparse matrix of both previous subtracted
+     */
+    public SparseMatrix subtract(SparseMatrix other) {
+        checkSameDimensions(other);
+        return combine(other, -1);
+    }
+
+    /**
+     * Merges the rows of this matrix and sign times another, dropping elements that cancel to 0.
+     *
+     * @param other second sparse matrix of the same size
+     * @param sign 1 to add, -1 to subtract
+     * @return SparseMatrix of the merged rows
+     */
+    private SparseMatrix combine(SparseMatrix other, double sign) {
+        int[] newPointers = new int[rows + 1];
+        int[] newIndices = new int[nonZeroCount() + other.nonZeroCount()];
+        double[] newValues = new double[newIndices.length];
+        int position = 0;
+
+        for (int i = 0; i < rows; i++) {
+            int p = rowPointers[i];
+            int q = other.rowPointers[i];
+            int pEnd = rowPointers[i + 1];
+            int qEnd = other.rowPointers[i + 1];
+
+            // Both rows are sorted by column, so one merge walk lines them up.
+            while (p < pEnd || q < qEnd) {
+                int pCol = p < pEnd ? colIndices[p] : Integer.MAX_VALUE;
+                int qCol = q < qEnd ? other.colIndices[q] : Integer.MAX_VALUE;
+                double value;
+                int col;
+
+                if (pCol == qCol) {
+                    col = pCol;
+                    value = values[p++] + sign * other.values[q++];
+                } else if (pCol < qCol) {
+                    col = pCol;
+                    value = values[p++];
+                } else {
+                    col = qCol;
+                    value = sign * other.values[q++];
+                }
+
+                if (value != 0) {
+                    newIndices[position] = col;
+                    newValues[position] = value;
+                    position++;
+                }
+            }
+            newPointers[i + 1] = position;
+        }
+        return new SparseMatrix(newPointers, Arrays.copyOf(newIndices, position),
+                Arrays.copyOf(newValues, position), rows, cols);
+    }
+
+
+    /**
+     * Returns a new sparse matrix of this matrix and a scalar multiplied.
+     *
+     * @param scalar the double to multiply against matrix
+     * @return a new sparse matrix of both components multiplied
+     */
+    @Override
+    public SparseMatrix scalarMultiply(double scalar) {
+        double[] newValues = new double[values.length];
+        for (int p = 0; p < values.length; p++) {
+            newValues[p] = values[p] * scalar;
+        }
+        // Same sparsity pattern, so the structure arrays can be shared.
+        return new SparseMatrix(rowPointers, colIndices, newValues, rows, cols);
+    }
+
+
+    /**
+     * Returns a new matrix of this matrix and a second matrix multiplied.
+     * Sparse times sparse stays sparse, sparse times dense is dense.
+     *
+     * @param other the matrix to multiply to current
+     * @return a new matrix of both previous multiplied
+     */
+    @Override
+    public MatrixLike multiply(MatrixLike other) {
+        if (other instanceof SparseMatrix sparse) {
+            return multiply(sparse);
+        }
+        return multiply(other.toDense());
+    }
+
+    /**
+     * Returns a new dense matrix of this matrix and a dense matrix multiplied.
+     * Each stored element scales one row of the dense matrix onto one output row.
+     *
+     * @param dense the matrix to multiply to current
+     * @return a new dense matrix of both previous multiplied
+     */
+    public Matrix multiply(Matrix dense) {
+        checkMultiplyDimensions(dense);
+
+        int outCols = dense.getCols();
+        Matrix output = new Matrix(rows, outCols);
+        boolean arrayRows = dense.hasArrayRows();
+
+        for (int i = 0; i < rows; i++) {
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                int k = colIndices[p];
+                double value = values[p];
+
+                if (arrayRows) {
+                    // output row i += value * dense row k
+                    ElementKernels.fma(value, dense.array(), dense.rowStart(k), output.array(), output.rowStart(i), outCols);
+                } else {
+                    for (int j = 0; j < outCols; j++) {
+                        output.set(i, j, Math.fma(value, dense.get(k, j), output.get(i, j)));
+                    }
+                }
+            }
+        }
+        output.applyPolicy();
+        return output;
+    }
+
+    /**
+     * Returns a new sparse matrix of this matrix and a second sparse matrix multiplied.
+     * Uses Gustavson's row by row method with one dense accumulator row.
+     *
+     * @param other the matrix to multiply to current
+     * @return a new sparse matrix of both previous multiplied
+     */
+    public SparseMatrix multiply(SparseMatrix other) {
+        checkMultiplyDimensions(other);
+
+        int outCols = other.cols;
+        double[] accumulator = new double[outCols];
+        // Which output row last touched a column, avoids clearing the accumulator each row.
+        int[] marker = new int[outCols];
+        Arrays.fill(marker, -1);
+        int[] touched = new int[outCols];
+
+        int[] newPointers = new int[rows + 1];
+        int[] newIndices = new int[Math.max(16, nonZeroCount())];
+        double[] newValues = new double[newIndices.length];
+        int position = 0;
+
+        for (int i = 0; i < rows; i++) {
+            int touchedCount = 0;
+
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                int k = colIndices[p];
+                double value = values[p];
+
+                for (int q = other.rowPointers[k]; q < other.rowPointers[k + 1]; q++) {
+                    int j = other.colIndices[q];
+                    if (marker[j] != i) {
+                        marker[j] = i;
+                        accumulator[j] = 0;
+                        touched[touchedCount++] = j;
+                    }
+                    accumulator[j] = Math.fma(value, other.values[q], accumulator[j]);
+                }
+            }
+
+            // Columns have to be ascending within the row.
+            Arrays.sort(touched, 0, touchedCount);
+            if (position + touchedCount > newIndices.length) {
+                int newLength = Math.max(newIndices.length * 2, position + touchedCount);
+                newIndices = Arrays.copyOf(newIndices, newLength);
+                newValues = Arrays.copyOf(newValues, newLength);
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                int j = touched[t];
+                if (accumulator[j] != 0) {
+                    newIndices[position] = j;
+                    newValues[position] = accumulator[j];
+                    position++;
+                }
+            }
+            newPointers[i + 1] = position;
+        }
+        return new SparseMatrix(newPointers, Arrays.copyOf(newIndices, position),
+                Arrays.copyOf(newValues, position), rows, outCols);
+    }
+
+
+    /**
+     * Returns the transpose of the matrix, which is also this matrix's CSC form.
+     * Built with one counting pass over the columns, so it takes O(rows + cols + non-zeros).
+     *
+     * @return SparseMatrix with rows and columns swapped
+     */
+    public SparseMatrix transpose() {
+        int[] newPointers = new int[cols + 1];
+        for (int p = 0; p < nonZeroCount(); p++) {
+            newPointers[colIndices[p] + 1]++;
+        }
+        for (int j = 0; j < cols; j++) {
+            newPointers[j + 1] += newPointers[j];
+        }
+
+        int[] next = Arrays.copyOf(newPointers, cols);
+        int[] newIndices = new int[nonZeroCount()];
+        double[] newValues = new double[nonZeroCount()];
+
+        // Walking rows in order keeps each new row's columns ascending.
+        for (int i = 0; i < rows; i++) {
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                int position = next[colIndices[p]]++;
+                newIndices[position] = i;
+                newValues[position] = values[p];
+            }
+        }
+        return new SparseMatrix(newPointers, newIndices, newValues, cols, rows);
+    }
+
+
+    /**
+     * Compares the matrix with another sparse matrix, element by element.
+     * Stored zeros count the same as missing elements.
+     *
+     * @param obj the object of the comparison
+     * @return boolean if they are equal or not
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof SparseMatrix other)) {
+            return false;
+        }
+        if (rows != other.rows || cols != other.cols) {
+            return false;
+        }
+
+        for (int i = 0; i < rows; i++) {
+            int p = rowPointers[i];
+            int q = other.rowPointers[i];
+            int pEnd = rowPointers[i + 1];
+            int qEnd = other.rowPointers[i + 1];
+
+            while (p < pEnd || q < qEnd) {
+                int pCol = p < pEnd ? colIndices[p] : Integer.MAX_VALUE;
+                int qCol = q < qEnd ? other.colIndices[q] : Integer.MAX_VALUE;
+                double a = pCol <= qCol ? values[p] : 0;
+                double b = qCol <= pCol ? other.values[q] : 0;
+
+                if (a != b) {
+                    return false;
+                }
+                if (pCol <= qCol) {
+                    p++;
+                }
+                if (qCol <= pCol) {
+                    q++;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash of the dimensions and non-zero elements, matching equals.
+     *
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        int hash = 31 * rows + cols;
+        for (int i = 0; i < rows; i++) {
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+                if (values[p] != 0) {
+                    hash = 31 * hash + i;
+                    hash = 31 * hash + colIndices[p];
+                    hash = 31 * hash + Double.hashCode(values[p]);
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Prints out the matrix in the same layout as Matrix, each row has its own line.
+     *
+     * @return string representation of the matrix
+     */
+    @Override
+    public String toString() {
+        StringBuilder printedMatrix = new StringBuilder();
+
+        for (int i = 0; i < rows; i++) {
+            printedMatrix.append("[");
+            int p = rowPointers[i];
+            for (int j = 0; j < cols; j++) {
+                // Walks the stored columns alongside j, so each row is one pass.
+                if (p < rowPointers[i + 1] && colIndices[p] == j) {
+                    printedMatrix.append(values[p++]);
+                } else {
+                    printedMatrix.append(0.0);
+                }
+                printedMatrix.append(j != cols - 1 ? ", " : "]");
+            }
+            if (i != rows - 1) {
+                printedMatrix.append("\n");
+            }
+        }
+        return printedMatrix.toString();
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Recursive Strassen-Winograd multiplication for large square matrices.
+ * <p>
+ *     Each level splits both matrices into four quadrant views and forms the product
+ *     from 7 half size multiplies and 15 additions instead of 8 multiplies, so the
+ *     work grows like n^2.81 instead of n^3.  Below the cutoff the blocked kernel is
+ *     faster, so recursion stops there.  An odd size is padded with one zero row and
+ *     column for that level.
+ * </p>
+ * <p>
+ *     The sums go through Matrix's unrecorded element kernels, so MatrixMetrics counts
+ *     a product once, as MULTIPLY, and not as the ADDs and SUBTRACTs inside it.
+ * </p>
+ * Results are not bit for bit the same as the blocked kernel.  The worst case error
+ * grows like n^log2(12) * eps * |A| * |B|, in practice it stays within a few hundred
+ * eps of the blocked result, see MatrixTest.
+ *
+ * @author augward
+ */
+public final class StrassenMultiply {
+    // Default size at which recursion hands over to the blocked kernel, tuned on 1024 to 4096 inputs.
+    public static final int DEFAULT_CUTOFF = 256;
+
+    // Volatile since it can be changed while other threads are multiplying.
+    private static volatile int cutoff = DEFAULT_CUTOFF;
+
+    // Static entry points only, no reason to create one.
+    private StrassenMultiply() {
+    }
+
+
+    /**
+     * Returns the size at or below which the blocked kernel is used.
+     *
+     * @return cutoff
+     */
+    public static int getCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * Sets the size at or below which the blocked kernel is used.
+     *
+     * @param cutoff new cutoff, at least 2
+     */
+    public static void setCutoff(int cutoff) {
+        if (cutoff < 2) {
+            // Thrown to indicate that a method has been passed an illegal or inappropriate argument.
+            throw new IllegalArgumentException("cutoff must be at least 2");
+        }
+        StrassenMultiply.cutoff = cutoff;
+    }
+
+
+    /**
+     * Multiplies square a by square b and adds the product into c, which should be all zeros.
+     * Dimensions are expected to be checked by the caller.
+     *
+     * @param a left hand matrix, n x n
+     * @param b right hand matrix, n x n
+     * @param c output matrix, n x n
+     */
+    public static void multiply(Matrix a, Matrix b, Matrix c) {
+        multiply(a, b, c, cutoff);
+    }
+
+    /**
+     * One level of the recursion, see multiply above.
+     *
+     * @param a left hand matrix, n x n
+     * @param b right hand matrix, n x n
+     * @param c output matrix, n x n, all zeros
+     * @param limit the cutoff read once at the top
+     */
+    private static void multiply(Matrix a, Matrix b, Matrix c, int limit) {
+        int n = a.getRows();
+        if (n <= limit) {
+            BlockedMultiply.multiply(a, b, c);
+            return;
+        }
+
+        if (n % 2 == 1) {
+            // Pads to an even size for this level, the extra row and column stay zero.
+            Matrix paddedC = new Matrix(n + 1, n + 1);
+            multiply(pad(a), pad(b), paddedC, limit);
+            addTo(c, paddedC.subMatrix(1, 1, n, n));
+            return;
+        }
+
+        int h = n / 2;
+        Matrix a11 = quadrant(a, 0, 0, h);
+        Matrix a12 = quadrant(a, 0, 1, h);
+        Matrix a21 = quadrant(a, 1, 0, h);
+        Matrix a22 = quadrant(a, 1, 1, h);
+        Matrix b11 = quadrant(b, 0, 0, h);
+        Matrix b12 = quadrant(b, 0, 1, h);
+        Matrix b21 = quadrant(b, 1, 0, h);
+        Matrix b22 = quadrant(b, 1, 1, h);
+
+        // Winograd's 8 pre-additions.
+        Matrix s1 = sum(a21, a22);
+        Matrix s2 = difference(s1, a11);
+        Matrix s3 = difference(a11, a21);
+        Matrix s4 = difference(a12, s2);
+        Matrix t1 = difference(b12, b11);
+        Matrix t2 = difference(b22, t1);
+        Matrix t3 = difference(b22, b12);
+        Matrix t4 = difference(t2, b21);
+
+        // The 7 half size products.
+        Matrix p1 = product(a11, b11, limit);
+        Matrix p2 = product(a12, b21, limit);
+        Matrix p3 = product(s4, b22, limit);
+        Matrix p4 = product(a22, t4, limit);
+        Matrix p5 = product(s1, t1, limit);
+        Matrix p6 = product(s2, t2, limit);
+        Matrix p7 = product(s3, t3, limit);
+
+        // Winograd's 7 post-additions, reusing p6 and p7 as running sums.
+        addTo(p6, p1);
+        addTo(p7, p6);
+        addTo(p6, p5);
+
+        Matrix c11 = quadrant(c, 0, 0, h);
+        addTo(c11, p1);
+        addTo(c11, p2);
+
+        Matrix c12 = quadrant(c, 0, 1, h);
+        addTo(c12, p6);
+        addTo(c12, p3);
+
+        Matrix c21 = quadrant(c, 1, 0, h);
+        addTo(c21, p7);
+        subtractFrom(c21, p4);
+
+        Matrix c22 = quadrant(c, 1, 1, h);
+        addTo(c22, p7);
+        addTo(c22, p5);
+    }
+
+    /**
+     * Multiplies two half size matrices into a new one through the recursion.
+     *
+     * @param a left hand matrix
+     * @param b right hand matrix
+     * @param limit the cutoff
+     * @return new matrix holding a * b
+     */
+    private static Matrix product(Matrix a, Matrix b, int limit) {
+        Matrix c = new Matrix(a.getRows(), b.getCols());
+        multiply(a, b, c, limit);
+        return c;
+    }
+
+    /**
+     * Returns one quadrant of a square matrix as a view.
+     *
+     * @param m the matrix, 2h x 2h
+     * @param row 0 for the upper half, 1 for the lower
+     * @param col 0 for the left half, 1 for the right
+     * @param h half of the size
+     * @return Matrix view of the quadrant
+     */
+    private static Matrix quadrant(Matrix m, int row, int col, int h) {
+        return m.subMatrix(row * h + 1, col * h + 1, (row + 1) * h, (col + 1) * h);
+    }
+
+    /**
+     * Copies a square matrix into one a row and column bigger, the new edge is zeros.
+     *
+     * @param m the matrix, n x n
+     * @return new (n + 1) x (n + 1) matrix
+     */
+    private static Matrix pad(Matrix m) {
+        int n = m.getRows();
+        Matrix padded = new Matrix(n + 1, n + 1);
+        addTo(padded.subMatrix(1, 1, n, n), m);
+        return padded;
+    }
+
+    /**
+     * Returns x + y as a new matrix, without recording an ADD.
+     *
+     * @param x first matrix
+     * @param y second matrix, same size
+     * @return new matrix of the sum
+     */
+    private static Matrix sum(Matrix x, Matrix y) {
+        Matrix out = new Matrix(x.getRows(), x.getCols());
+        Matrix.addElements(x, y, out, Matrix.getElementPool());
+        return out;
+    }
+
+    /**
+     * Returns x - y as a new matrix, without recording a SUBTRACT.
+     *
+     * @param x first matrix
+     * @param y second matrix, same size
+     * @return new matrix of the difference
+     */
+    private static Matrix difference(Matrix x, Matrix y) {
+        Matrix out = new Matrix(x.getRows(), x.getCols());
+        Matrix.subtractElements(x, y, out, Matrix.getElementPool());
+        return out;
+    }
+
+    /**
+     * Adds y into out, without recording an ADD.  The two never share storage here.
+     *
+     * @param out matrix added to
+     * @param y matrix to add, same size
+     */
+    private static void addTo(Matrix out, Matrix y) {
+        Matrix.addElements(out, y, out, Matrix.getElementPool());
+    }
+
+    /**
+     * Subtracts y from out, without recording a SUBTRACT.
+     *
+     * @param out matrix subtracted from
+     * @param y matrix to subtract, same size
+     */
+    private static void subtractFrom(Matrix out, Matrix y) {
+        Matrix.subtractElements(out, y, out, Matrix.getElementPool());
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Forward and back substitution shared by the decompositions.
+ * <p>
+ *     Works on packed row major arrays.  The triangular factor is n x n with a row
+ *     stride of n, the right hand sides are n x m with a row stride of m and are
+ *     overwritten with the solution.  Every step updates a whole row of right hand
+ *     sides at once, so many right hand sides cost little more than one.
+ * </p>
+ * Zero diagonals are expected to be caught by the caller.
+ *
+ * @author augward
+ */
+final class TriangularSolve {
+    // Static kernels only, no reason to create one.
+    private TriangularSolve() {
+    }
+
+
+    /**
+     * Solves L * Y = X in place, where L is the strictly lower part of a with ones on the diagonal.
+     *
+     * @param a factor holding L below its diagonal, n x n
+     * @param n size of the factor
+     * @param x right hand sides, n x m, overwritten with Y
+     * @param m number of right hand sides
+     */
+    static void forwardUnitLower(double[] a, int n, double[] x, int m) {
+        for (int i = 1; i < n; i++) {
+            for (int k = 0; k < i; k++) {
+                double l = a[i * n + k];
+                if (l != 0) {
+                    ElementKernels.fma(-l, x, k * m, x, i * m, m);
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves U^T * Y = X in place, where U is the upper part of a including the diagonal.
+     *
+     * @param a factor holding U on and above its diagonal, n x n
+     * @param n size of the factor
+     * @param x right hand sides, n x m, overwritten with Y
+     * @param m number of right hand sides
+     */
+    static void forwardTransposedUpper(double[] a, int n, double[] x, int m) {
+        for (int k = 0; k < n; k++) {
+            divideRow(x, k * m, m, a[k * n + k]);
+            for (int i = k + 1; i < n; i++) {
+                double u = a[k * n + i];
+                if (u != 0) {
+                    ElementKernels.fma(-u, x, k * m, x, i * m, m);
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves U * Y = X in place, where U is the upper part of a including the diagonal.
+     *
+     * @param a factor holding U on and above its diagonal, at least n x n with a row stride of n
+     * @param n size of the factor
+     * @param x right hand sides, n x m, overwritten with Y
+     * @param m number of right hand sides
+     */
+    static void backwardUpper(double[] a, int n, double[] x, int m) {
+        for (int i = n - 1; i >= 0; i--) {
+            for (int k = i + 1; k < n; k++) {
+                double u = a[i * n + k];
+                if (u != 0) {
+                    ElementKernels.fma(-u, x, k * m, x, i * m, m);
+                }
+            }
+            divideRow(x, i * m, m, a[i * n + i]);
+        }
+    }
+
+    /**
+     * Divides one row of right hand sides by a diagonal element.
+     * Divides instead of multiplying by the reciprocal, which would round twice.
+     *
+     * @param x right hand sides
+     * @param start index of the row's first element
+     * @param m length of the row
+     * @param d diagonal element
+     */
+    private static void divideRow(double[] x, int start, int m, double d) {
+        for (int j = start; j < start + m; j++) {
+            x[j] /= d;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 Testing for LUDecomposition, QRDecomposition and CholeskyDecomposition Classes
+ *
+ * @author augward
+ */
+
+class DecompositionTest {
+
+    /**
+     * Asserts two matrices match within TOLERANCE's tolerance, factoring rounds differently than a direct product.
+     *
+     * @param expected the expected matrix
+     * @param actual the matrix worked out
+     */
+    private static void assertClose(Matrix expected, Matrix actual) {
+        assertTrue(expected.approxEquals(actual, NumericPolicy.TOLERANCE_EPSILON));
+    }
+
+    /**
+     * Method that tests LU reproduces the matrix, solves, inverts and finds determinants, across several panels
+     */
+    @org.junit.jupiter.api.Test
+    void lu() {
+        // 150 crosses two panel boundaries.
+        Matrix a = TestMatrices.uniform(150, 150, 11);
+        LUDecomposition lu = a.lu();
+        assertFalse(lu.isSingular());
+        assertClose(lu.getP().multiply(a), lu.getL().multiply(lu.getU()));
+
+        Matrix b = TestMatrices.uniform(150, 3, 12);
+        Matrix x = lu.solve(b);
+        assertClose(b, a.multiply(x));
+        assertClose(x, a.solve(b));
+        assertClose(Matrix.identity(150), a.multiply(lu.inverse()));
+
+        // Reused for a single column, matches the column of the batched solve.
+        assertClose(x.column(2).copy(), lu.solve(b.column(2)));
+
+        Matrix small = new Matrix(new double[][]{{4,7},{2,6}});
+        assertEquals(10, small.determinant());
+        assertClose(new Matrix(new double[][]{{0.6,-0.7},{-0.2,0.4}}), small.inverse());
+        assertEquals(-1, new Matrix(new double[][]{{0,1},{1,0}}).determinant());
+
+        Matrix singular = new Matrix(new double[][]{{1,2,3},{2,4,6},{1,0,1}});
+        assertTrue(singular.lu().isSingular());
+        assertEquals(0, singular.determinant());
+        assertThrows(ArithmeticException.class, () -> singular.solve(Matrix.identity(3)));
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(2,3).lu());
+        assertThrows(IllegalArgumentException.class, () -> lu.solve(new Matrix(3,1)));
+    }
+
+    /**
+     * Method that tests QR has orthonormal Q, reproduces the matrix, and solves least squares
+     */
+    @org.junit.jupiter.api.Test
+    void qr() {
+        Matrix a = TestMatrices.uniform(200, 130, 13);
+        QRDecomposition qr = a.qr();
+        Matrix q = qr.getQ();
+        Matrix r = qr.getR();
+        assertTrue(qr.isFullRank());
+        assertClose(Matrix.identity(130), q.transpose().multiply(q));
+        assertClose(a.copy(), q.multiply(r));
+        for (int i = 2; i <= 130; i++) {
+            assertEquals(0, r.getElement(i, i - 1));
+        }
+
+        // The least squares residual is orthogonal to the columns of A.
+        Matrix b = TestMatrices.uniform(200, 2, 14);
+        Matrix x = qr.solve(b);
+        Matrix residual = b.subtract(a.multiply(x));
+        assertClose(new Matrix(130, 2), a.transpose().multiply(residual));
+        assertClose(x, a.solve(b));
+
+        // Fitting y = 1 + 2t through points that lie on it.
+        Matrix design = new Matrix(new double[][]{{1,0},{1,1},{1,2},{1,3}});
+        Matrix y = new Matrix(new double[][]{{1},{3},{5},{7}});
+        assertClose(new Matrix(new double[][]{{1},{2}}), design.solve(y));
+
+        Matrix dependent = new Matrix(new double[][]{{1,2},{2,4},{3,6}});
+        assertFalse(dependent.qr().isFullRank());
+        assertThrows(ArithmeticException.class, () -> dependent.solve(new Matrix(3,1)));
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(2,3).qr());
+    }
+
+    /**
+     * Method that tests Cholesky on a symmetric positive definite matrix and rejects other matrices
+     */
+    @org.junit.jupiter.api.Test
+    void cholesky() {
+        // A^T * A + n * I is symmetric positive definite.
+        Matrix m = TestMatrices.uniform(140, 140, 15);
+        Matrix a = m.transpose().multiply(m).add(Matrix.identity(140).scalarMultiply(140));
+        CholeskyDecomposition cholesky = a.cholesky();
+        Matrix l = cholesky.getL();
+        assertClose(a.copy(), l.multiply(l.transpose()));
+        assertEquals(l.transpose(), cholesky.getU());
+
+        Matrix b = TestMatrices.uniform(140, 4, 16);
+        assertClose(a.lu().solve(b), cholesky.solve(b));
+        assertClose(Matrix.identity(140), a.multiply(cholesky.inverse()));
+        assertClose(new Matrix(new double[][]{{a.determinant()}}), new Matrix(new double[][]{{cholesky.determinant()}}));
+
+        Matrix small = new Matrix(new double[][]{{4,2},{2,5}});
+        assertEquals(new Matrix(new double[][]{{2,0},{1,2}}), small.cholesky().getL());
+        assertEquals(16, small.cholesky().determinant());
+
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(new double[][]{{1,2},{3,4}}).cholesky());
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(new double[][]{{1,2},{2,1}}).cholesky());
+        assertThrows(IllegalArgumentException.class, () -> small.cholesky().solve(new Matrix(3,1)));
+    }
+}
@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 Testing for FloatMatrix Class
+ *
+ * @author augward
+ */
+
+class FloatMatrixTest {
+
+    /**
+     * Method that tests the constructors, getters, setters and validation
+     */
+    @org.junit.jupiter.api.Test
+    void constructAndAccess() {
+        FloatMatrix m1 = new FloatMatrix(new float[][]{{1,2,3},{4,5,6}});
+        assertEquals(2, m1.getRows());
+        assertEquals(3, m1.getCols());
+        assertEquals(6, m1.getElement(2, 3));
+        m1.setElement(2, 3, 0.5f);
+        assertEquals(0.5f, m1.getElement(2, 3));
+        assertArrayEquals(new float[]{4,5,0.5f}, m1.getData()[1]);
+        assertEquals("[1.0, 2.0, 3.0]\n[4.0, 5.0, 0.5]", m1.toString());
+
+        assertEquals(new FloatMatrix(new float[][]{{1,0},{0,1}}), FloatMatrix.identity(2));
+        assertEquals(new FloatMatrix(2, 2), new FloatMatrix(new float[][]{{0,0},{0,-0.0f}}));
+        assertEquals(new FloatMatrix(2, 2).hashCode(), new FloatMatrix(new float[][]{{0,0},{0,-0.0f}}).hashCode());
+        assertNotEquals(new FloatMatrix(2, 2), new FloatMatrix(2, 3));
+        assertNotEquals(new FloatMatrix(2, 2), new Matrix(2, 2));
+
+        assertThrows(IllegalArgumentException.class, () -> new FloatMatrix(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> new FloatMatrix(new float[][]{{1,2},{3}}));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> m1.getElement(3, 1));
+        assertThrows(IllegalArgumentException.class, () -> FloatMatrix.identity(0));
+    }
+
+    /**
+     * Method that tests arithmetic against the double Matrix, including views
+     */
+    @org.junit.jupiter.api.Test
+    void arithmetic() {
+        Matrix a = TestMatrices.whole(70, 90, 30);
+        Matrix b = TestMatrices.whole(70, 90, 31);
+        Matrix c = TestMatrices.whole(90, 300, 32);
+        FloatMatrix fa = FloatMatrix.from(a);
+        FloatMatrix fb = FloatMatrix.from(b);
+        FloatMatrix fc = FloatMatrix.from(c);
+
+        assertEquals(a.add(b), fa.add(fb).toMatrix());
+        assertEquals(a.subtract(b), fa.subtract(fb).toMatrix());
+        assertEquals(a.scalarMultiply(3), fa.scalarMultiply(3).toMatrix());
+        assertEquals(a.multiply(c), fa.multiply(fc).toMatrix());
+        assertEquals(a.multiply(c), FloatMatrix.multiply(fa, fc).toMatrix());
+        assertEquals(a.transpose().multiply(b), fa.transpose().multiply(fb).toMatrix());
+        assertEquals(a.multiply(a.transpose()), fa.multiply(fa.transpose()).toMatrix());
+
+        // Views share storage and work in every operation.
+        FloatMatrix view = fa.subMatrix(3, 4, 40, 50);
+        assertEquals(a.subMatrix(3, 4, 40, 50), view.toMatrix());
+        assertEquals(a.subMatrix(3, 4, 40, 50).add(b.subMatrix(1, 1, 38, 47)), view.add(fb.subMatrix(1, 1, 38, 47)).toMatrix());
+        assertEquals(a.transpose(), fa.transpose().copy().toMatrix());
+        view.setElement(1, 1, 100);
+        assertEquals(100, fa.getElement(3, 4));
+
+        FloatMatrix d = fb.copy();
+        d.addInPlace(fb);
+        d.subtractInPlace(fb);
+        d.scalarMultiplyInPlace(2);
+        assertEquals(b.scalarMultiply(2), d.toMatrix());
+
+        // In place against an overlapping view of itself reads the original values.
+        Matrix square = TestMatrices.whole(20, 20, 33);
+        FloatMatrix fs = FloatMatrix.from(square);
+        fs.addInPlace(fs.transpose());
+        assertEquals(square.add(square.transpose()), fs.toMatrix());
+
+        assertThrows(IllegalArgumentException.class, () -> fa.add(fc));
+        assertThrows(IllegalArgumentException.class, () -> fa.multiply(fb));
+    }
+
+    /**
+     * Method that tests conversions between float, double and int matrices
+     */
+    @org.junit.jupiter.api.Test
+    void conversions() {
+        Matrix m1 = new Matrix(new double[][]{{0.1,1e40},{-2.5,3}});
+        FloatMatrix f1 = FloatMatrix.from(m1);
+        assertEquals(0.1f, f1.getElement(1, 1));
+        assertEquals(Float.POSITIVE_INFINITY, f1.getElement(1, 2));
+        assertEquals((double) 0.1f, f1.toMatrix().getElement(1, 1));
+
+        IntMatrix i1 = new IntMatrix(new int[][]{{1,-2},{16777217,4}});
+        FloatMatrix f2 = FloatMatrix.from(i1);
+        assertEquals(-2, f2.getElement(1, 2));
+        assertEquals(16777216, f2.getElement(2, 1));
+        assertEquals(f2, i1.toFloatMatrix());
+    }
+}
@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 Testing for IntMatrix Class
+ *
+ * @author augward
+ */
+
+class IntMatrixTest {
+
+    /**
+     * Method that tests the constructors, getters, setters and validation
+     */
+    @org.junit.jupiter.api.Test
+    void constructAndAccess() {
+        IntMatrix m1 = new IntMatrix(new int[][]{{1,2,3},{4,5,6}});
+        assertEquals(2, m1.getRows());
+        assertEquals(3, m1.getCols());
+        assertEquals(6, m1.getElement(2, 3));
+        m1.setElement(2, 3, -7);
+        assertArrayEquals(new int[]{4,5,-7}, m1.getData()[1]);
+        assertEquals("[1, 2, 3]\n[4, 5, -7]", m1.toString());
+        assertEquals("[1, 4]\n[2, 5]\n[3, -7]", m1.transpose().toString());
+
+        assertEquals(new IntMatrix(new int[][]{{1,0},{0,1}}), IntMatrix.identity(2));
+        assertEquals(IntMatrix.identity(3).hashCode(), IntMatrix.identity(3).copy().hashCode());
+        assertNotEquals(new IntMatrix(2, 2), new FloatMatrix(2, 2));
+
+        assertThrows(IllegalArgumentException.class, () -> new IntMatrix(2, -1));
+        assertThrows(IllegalArgumentException.class, () -> new IntMatrix(new int[0][]));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> m1.setElement(1, 4, 0));
+    }
+
+    /**
+     * Method that tests arithmetic against the double Matrix, including views and wrap around
+     */
+    @org.junit.jupiter.api.Test
+    void arithmetic() {
+        IntMatrix a = IntMatrix.from(TestMatrices.whole(65, 80, 40));
+        IntMatrix b = IntMatrix.from(TestMatrices.whole(65, 80, 41));
+        IntMatrix c = IntMatrix.from(TestMatrices.whole(80, 270, 42));
+
+        assertEquals(a.toMatrix().add(b.toMatrix()), a.add(b).toMatrix());
+        assertEquals(a.toMatrix().subtract(b.toMatrix()), a.subtract(b).toMatrix());
+        assertEquals(a.toMatrix().scalarMultiply(-4), a.scalarMultiply(-4).toMatrix());
+        assertEquals(a.toMatrix().multiply(c.toMatrix()), a.multiply(c).toMatrix());
+        assertEquals(a.toMatrix().multiply(c.toMatrix()), IntMatrix.multiply(a, c).toMatrix());
+        assertEquals(c.transpose().toMatrix().multiply(c.toMatrix()), c.transpose().multiply(c).toMatrix());
+
+        IntMatrix view = a.subMatrix(5, 6, 30, 70);
+        assertEquals(a.toMatrix().subMatrix(5, 6, 30, 70), view.toMatrix());
+        view.scalarMultiplyInPlace(0);
+        assertEquals(0, a.getElement(5, 6));
+        assertEquals(0, a.getElement(30, 70));
+
+        IntMatrix square = IntMatrix.from(TestMatrices.whole(25, 25, 43));
+        IntMatrix expected = square.subtract(square.transpose());
+        square.subtractInPlace(square.transpose());
+        assertEquals(expected, square);
+
+        // Overflow wraps around like Java int arithmetic.
+        IntMatrix big = new IntMatrix(new int[][]{{Integer.MAX_VALUE}});
+        assertEquals(Integer.MIN_VALUE, big.add(IntMatrix.identity(1)).getElement(1, 1));
+        assertEquals(-2, big.scalarMultiply(2).getElement(1, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> a.subtract(c));
+        assertThrows(IllegalArgumentException.class, () -> a.multiply(b));
+    }
+
+    /**
+     * Method that tests conversions from double and float matrices, with rounding and range checks
+     */
+    @org.junit.jupiter.api.Test
+    void conversions() {
+        IntMatrix m1 = IntMatrix.from(new Matrix(new double[][]{{0.5,-0.5,2.49},{-2.51,2147483647.4,-2147483648.4}}));
+        assertEquals(new IntMatrix(new int[][]{{1,0,2},{-3,Integer.MAX_VALUE,Integer.MIN_VALUE}}), m1);
+        assertEquals(new IntMatrix(new int[][]{{2,-3}}), IntMatrix.from(new FloatMatrix(new float[][]{{1.5f,-3.2f}})));
+
+        assertThrows(IllegalArgumentException.class, () -> IntMatrix.from(new Matrix(new double[][]{{Double.NaN}})));
+        assertThrows(IllegalArgumentException.class, () -> IntMatrix.from(new Matrix(new double[][]{{2147483647.5}})));
+        assertThrows(IllegalArgumentException.class, () -> IntMatrix.from(new FloatMatrix(new float[][]{{-3e9f}})));
+    }
+}
@@ -0,0 +1,78 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 Testing for MatrixArena and its allocators
+ *
+ * @author augward
+ */
+
+class MatrixArenaTest {
+
+    /**
+     * Runs the same checks on matrices from one arena.
+     *
+     * @param arena an open arena
+     */
+    private static void checkOperations(MatrixArena arena) {
+        Matrix m1 = TestMatrices.uniform(30, 25, 50);
+        Matrix m2 = TestMatrices.uniform(25, 30, 51);
+        assertEquals(new Matrix(30, 25), arena.allocate(30, 25));
+
+        Matrix off1 = arena.copyOf(m1);
+        Matrix off2 = arena.copyOf(m2);
+        assertEquals(m1, off1);
+        assertEquals(m1.add(m1), off1.add(off1));
+        assertEquals(m1.multiply(m2), off1.multiply(off2));
+        assertEquals(m1.transpose().subMatrix(3, 4, 20, 21), off1.transpose().subMatrix(3, 4, 20, 21).copy());
+
+        Matrix square = arena.copyOf(m1.multiply(m2));
+        assertEquals(m1.multiply(m2).lu().determinant(), square.lu().determinant());
+
+        // In place changes and expressions write into the off-heap memory.
+        off1.addInPlace(m1);
+        off1.row(3).lazy().scalarMultiply(0.5).evaluateInto(off1.row(3));
+        Matrix expected = m1.add(m1);
+        expected.row(3).scalarMultiplyInPlace(0.5);
+        assertEquals(expected, off1);
+
+        assertThrows(IllegalArgumentException.class, () -> arena.allocate(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> arena.copyOf(null));
+    }
+
+    /**
+     * Method that tests every operation works on matrices from the arena open picks
+     */
+    @org.junit.jupiter.api.Test
+    void openArena() {
+        Matrix kept;
+        Matrix off;
+        try (MatrixArena arena = MatrixArena.open()) {
+            assertTrue(arena.isOpen());
+            assertNotNull(arena.allocatorName());
+            checkOperations(arena);
+            off = arena.copyOf(TestMatrices.uniform(4, 4, 52));
+            kept = off.copy();
+        }
+        assertEquals(TestMatrices.uniform(4, 4, 52), kept);
+        assertThrows(IllegalStateException.class, () -> off.getElement(1, 1));
+    }
+
+    /**
+     * Method that tests direct buffer storage across chunk boundaries, and closing
+     */
+    @org.junit.jupiter.api.Test
+    void directArena() {
+        // 16 doubles per chunk, so rows straddle chunks.
+        MatrixArena arena = new MatrixArena(new DirectAllocator(4));
+        assertEquals("direct", arena.allocatorName());
+        checkOperations(arena);
+
+        Matrix off = arena.allocate(3, 3);
+        arena.close();
+        arena.close();
+        assertFalse(arena.isOpen());
+        assertThrows(IllegalStateException.class, () -> off.setElement(1, 1, 2));
+        assertThrows(IllegalStateException.class, () -> off.copy());
+        assertThrows(IllegalStateException.class, () -> arena.allocate(2, 2));
+    }
+}
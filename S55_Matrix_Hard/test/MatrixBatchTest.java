@@ -0,0 +1,119 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 Testing for MatrixBatch Class
+ *
+ * @author augward
+ */
+
+class MatrixBatchTest {
+
+    /**
+     * Returns one matrix of a batch as a Matrix.
+     *
+     * @param size rows and columns of the matrix
+     * @param batch array holding the batch
+     * @param offset index of the first matrix
+     * @param m position of the matrix in the batch
+     * @return Matrix copy of batch matrix m
+     */
+    private static Matrix get(int size, double[] batch, int offset, int m) {
+        double[][] data = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(batch, offset + m * size * size + i * size, data[i], 0, size);
+        }
+        return new Matrix(data);
+    }
+
+    /**
+     * Method that tests multiply and add match Matrix exactly for every size, with offsets
+     */
+    @org.junit.jupiter.api.Test
+    void multiplyAndAdd() {
+        for (int size = 1; size <= 6; size++) {
+            int count = 50;
+            int area = size * size;
+            double[] a = TestMatrices.uniform(count * area + 3, size);
+            double[] b = TestMatrices.uniform(count * area + 1, size + 100);
+            double[] product = new double[count * area + 2];
+            double[] sum = new double[count * area];
+            MatrixBatch.multiply(size, a, 3, b, 1, product, 2, count);
+            MatrixBatch.add(size, a, 3, b, 1, sum, 0, count);
+
+            for (int m = 0; m < count; m++) {
+                assertEquals(get(size, a, 3, m).multiply(get(size, b, 1, m)), get(size, product, 2, m));
+                assertEquals(get(size, a, 3, m).add(get(size, b, 1, m)), get(size, sum, 0, m));
+            }
+
+            // The output may be either input.
+            double[] left = a.clone();
+            double[] right = b.clone();
+            MatrixBatch.multiply(size, left, 3, b, 1, left, 3, count);
+            MatrixBatch.multiply(size, a, 3, right, 1, right, 1, count);
+            for (int m = 0; m < count; m++) {
+                assertEquals(get(size, product, 2, m), get(size, left, 3, m));
+                assertEquals(get(size, product, 2, m), get(size, right, 1, m));
+            }
+        }
+    }
+
+    /**
+     * Method that tests invert gives the identity back when multiplied, and rejects singular matrices
+     */
+    @org.junit.jupiter.api.Test
+    void invert() {
+        for (int size = 1; size <= 6; size++) {
+            int count = 40;
+            int area = size * size;
+            double[] a = TestMatrices.uniform(count * area, size + 200);
+            double[] inverse = new double[count * area];
+            MatrixBatch.invert(size, a, 0, inverse, 0, count);
+
+            for (int m = 0; m < count; m++) {
+                Matrix product = get(size, a, 0, m).multiply(get(size, inverse, 0, m));
+                Matrix lu = get(size, a, 0, m).inverse();
+                for (int i = 1; i <= size; i++) {
+                    for (int j = 1; j <= size; j++) {
+                        assertEquals(i == j ? 1 : 0, product.getElement(i, j), 1e-8);
+                        assertEquals(lu.getElement(i, j), get(size, inverse, 0, m).getElement(i, j),
+                                1e-8 * Math.max(1, Math.abs(lu.getElement(i, j))));
+                    }
+                }
+            }
+
+            // In place.
+            double[] same = a.clone();
+            MatrixBatch.invert(size, same, 0, same, 0, count);
+            assertArrayEquals(inverse, same);
+        }
+
+        // A scaled identity, then a singular matrix, matrices before the singular one are written.
+        double[] batch = {2, 0, 0, 0, 2, 0, 0, 0, 2, 1, 2, 0, 2, 4, 0, 0, 0, 1};
+        double[] out = new double[18];
+        ArithmeticException e = assertThrows(ArithmeticException.class,
+                () -> MatrixBatch.invert(3, batch, 0, out, 0, 2));
+        assertTrue(e.getMessage().contains("matrix 1"));
+        assertEquals(0.5, out[0]);
+        e = assertThrows(ArithmeticException.class, () -> MatrixBatch.invert(3, batch, 9, out, 0, 1));
+        assertTrue(e.getMessage().contains("matrix 0"));
+        assertThrows(ArithmeticException.class, () -> MatrixBatch.invert(2, new double[4], 0, new double[4], 0, 1));
+        assertThrows(ArithmeticException.class, () -> MatrixBatch.invert(4, new double[16], 0, new double[16], 0, 1));
+        assertThrows(ArithmeticException.class, () -> MatrixBatch.invert(5, new double[25], 0, new double[25], 0, 1));
+    }
+
+    /**
+     * Method that tests invalid sizes, counts and spans are rejected
+     */
+    @org.junit.jupiter.api.Test
+    void invalidBatches() {
+        double[] nine = new double[9];
+        MatrixBatch.multiply(3, nine, 0, nine, 0, nine, 0, 0);
+        assertThrows(IllegalArgumentException.class, () -> MatrixBatch.multiply(0, nine, 0, nine, 0, nine, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> MatrixBatch.multiply(3, nine, 0, nine, 0, nine, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> MatrixBatch.multiply(3, nine, 1, nine, 0, nine, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> MatrixBatch.add(3, nine, 0, nine, 0, new double[8], 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> MatrixBatch.add(3, nine, 0, null, 0, nine, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> MatrixBatch.invert(3, nine, -1, nine, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> MatrixBatch.invert(2, nine, 0, nine, 0, 3));
+    }
+}
@@ -0,0 +1,132 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * JUnit 5 Testing for MatrixFile and MappedStorage Classes
+ *
+ * @author augward
+ */
+
+class MatrixFileTest {
+    // Fresh directory for each test's files.
+    private Path directory;
+
+    /**
+     * Creates the directory the test writes into.
+     *
+     * @throws IOException if it cannot be created
+     */
+    @org.junit.jupiter.api.BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("matrix-file-test");
+    }
+
+    /**
+     * Deletes the test's files and directory.
+     *
+     * @throws IOException if they cannot be deleted
+     */
+    @org.junit.jupiter.api.AfterEach
+    void deleteDirectory() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Method that tests writing and reading back, including views and the exact layout of the bytes
+     */
+    @org.junit.jupiter.api.Test
+    void writeAndRead() throws IOException {
+        Matrix m1 = TestMatrices.uniform(37, 53, 20);
+        Path file = directory.resolve("m1.mtx");
+        MatrixFile.write(m1, file);
+        assertEquals(16 + 37 * 53 * 8, Files.size(file));
+        assertEquals(m1, MatrixFile.read(file));
+
+        // Views are written as their own rows and columns.
+        MatrixFile.write(m1.transpose(), file);
+        assertEquals(m1.transpose(), MatrixFile.read(file));
+        MatrixFile.write(m1.subMatrix(3, 4, 20, 30), file);
+        assertEquals(m1.subMatrix(3, 4, 20, 30), MatrixFile.read(file));
+
+        // Wider than the write buffer, a row is split across flushes.
+        Matrix wide = TestMatrices.uniform(2, 10000, 21);
+        MatrixFile.write(wide, file);
+        assertEquals(wide, MatrixFile.read(file));
+
+        MatrixFile.write(new Matrix(new double[][]{{1.5,-2}}), file);
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals("MTRX", new String(bytes, 0, 4, java.nio.charset.StandardCharsets.US_ASCII));
+        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(bytes).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        assertEquals(1, buffer.getInt(4));
+        assertEquals(1, buffer.getInt(8));
+        assertEquals(2, buffer.getInt(12));
+        assertEquals(1.5, buffer.getDouble(16));
+        assertEquals(-2, buffer.getDouble(24));
+    }
+
+    /**
+     * Method that tests mapped matrices across chunk boundaries, writing through them and creating new files
+     */
+    @org.junit.jupiter.api.Test
+    void mapped() throws IOException {
+        Matrix m1 = TestMatrices.uniform(30, 25, 22);
+        Path file = directory.resolve("m1.mtx");
+        MatrixFile.write(m1, file);
+
+        // 16 doubles per chunk, so rows straddle chunks.
+        Matrix mapped = MatrixFile.map(file, true, 4);
+        assertEquals(m1, mapped);
+        assertEquals(m1.subMatrix(2, 3, 20, 21), mapped.subMatrix(2, 3, 20, 21).copy());
+        assertEquals(m1.add(m1), mapped.add(mapped));
+        assertEquals(m1.multiply(m1.transpose()), mapped.multiply(mapped.transpose()));
+
+        // Changes go to the file.
+        mapped.setElement(30, 25, 7);
+        mapped.row(2).lazy().scalarMultiply(2).evaluateInto(mapped.row(2));
+        MatrixFile.force(mapped);
+        Matrix reread = MatrixFile.read(file);
+        assertEquals(7, reread.getElement(30, 25));
+        assertEquals(m1.row(2).scalarMultiply(2), reread.row(2));
+
+        Matrix readOnly = MatrixFile.map(file, false);
+        assertEquals(reread, readOnly);
+        assertThrows(java.nio.ReadOnlyBufferException.class, () -> readOnly.setElement(1, 1, 0));
+
+        Path created = directory.resolve("created.mtx");
+        Matrix zeros = MatrixFile.create(created, 40, 30);
+        assertEquals(new Matrix(40, 30), zeros);
+        m1.lazy().add(m1).evaluateInto(zeros.subMatrix(1, 1, 30, 25));
+        MatrixFile.force(zeros);
+        assertEquals(m1.add(m1), MatrixFile.read(created).subMatrix(1, 1, 30, 25));
+    }
+
+    /**
+     * Method that tests files that are not matrices are rejected
+     */
+    @org.junit.jupiter.api.Test
+    void invalidFiles() throws IOException {
+        Path file = directory.resolve("bad.mtx");
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> MatrixFile.read(file));
+
+        Files.write(file, new byte[16]);
+        assertThrows(IOException.class, () -> MatrixFile.read(file));
+
+        // A valid header claiming more elements than the file holds.
+        MatrixFile.write(new Matrix(3, 3), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> MatrixFile.read(file));
+
+        assertThrows(IllegalArgumentException.class, () -> MatrixFile.create(file, 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> MatrixFile.write(null, file));
+    }
+}
@@ -0,0 +1,174 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 Testing for MatrixMetrics Class
+ *
+ * @author augward
+ */
+
+class MatrixMetricsTest {
+
+    /**
+     * Starts every test with recording off and nothing counted
+     */
+    @org.junit.jupiter.api.BeforeEach
+    void clear() {
+        MatrixMetrics.setEnabled(false);
+        MatrixMetrics.reset();
+    }
+
+    /**
+     * Turns recording off again so other tests run without it
+     */
+    @org.junit.jupiter.api.AfterEach
+    void disable() {
+        MatrixMetrics.setEnabled(false);
+        MatrixMetrics.reset();
+    }
+
+    /**
+     * Method that tests operations are counted once each, with their flops and dimensions
+     */
+    @org.junit.jupiter.api.Test
+    void records() {
+        Matrix m1 = new Matrix(new double[][]{{1,2,3},{4,5,6}});
+        Matrix m2 = new Matrix(new double[][]{{1,2},{3,4},{5,6}});
+        Matrix square = new Matrix(new double[][]{{4,1},{1,3}});
+
+        MatrixMetrics.setEnabled(true);
+        assertTrue(MatrixMetrics.isEnabled());
+        m1.add(m1);
+        m1.addInPlace(m1);
+        m1.subtract(m1);
+        m1.scalarMultiply(2);
+        m1.multiply(m2);
+        Matrix.multiply(m1, m2, MultiplyAlgorithm.STRASSEN);
+        square.power(5);
+        square.inverse();
+        square.qr();
+        square.cholesky();
+
+        java.util.Map<MatrixMetrics.Operation, MatrixMetrics.Stats> stats = MatrixMetrics.snapshot();
+        assertEquals(MatrixMetrics.Operation.values().length, stats.size());
+
+        MatrixMetrics.Stats add = stats.get(MatrixMetrics.Operation.ADD);
+        assertEquals(2, add.calls());
+        assertEquals(12, add.flops());
+        assertTrue(add.nanos() >= 0);
+        // Largest dimension 3 falls in [2, 4).
+        assertEquals(2, add.dimensionHistogram()[1]);
+
+        assertEquals(1, stats.get(MatrixMetrics.Operation.SUBTRACT).calls());
+        assertEquals(1, stats.get(MatrixMetrics.Operation.SCALAR_MULTIPLY).calls());
+
+        // A 2 x 3 by 3 x 2 product is 2 * 2 * 2 * 3 flops, by either algorithm.
+        MatrixMetrics.Stats multiply = stats.get(MatrixMetrics.Operation.MULTIPLY);
+        assertEquals(2, multiply.calls());
+        assertEquals(48, multiply.flops());
+
+        // 5 is 101 in binary, two squarings and one product of 2 x 2 matrices.
+        MatrixMetrics.Stats power = stats.get(MatrixMetrics.Operation.POWER);
+        assertEquals(1, power.calls());
+        assertEquals(48, power.flops());
+        assertEquals(1, power.dimensionHistogram()[1]);
+
+        assertEquals(1, stats.get(MatrixMetrics.Operation.LU).calls());
+        assertEquals(1, stats.get(MatrixMetrics.Operation.QR).calls());
+        assertEquals(1, stats.get(MatrixMetrics.Operation.CHOLESKY).calls());
+
+        // The snapshot is fixed once taken, and its histograms can't be changed through it.
+        m1.add(m1);
+        add.dimensionHistogram()[1] = 99;
+        assertEquals(2, add.calls());
+        assertEquals(2, add.dimensionHistogram()[1]);
+        assertEquals(3, MatrixMetrics.snapshot().get(MatrixMetrics.Operation.ADD).calls());
+        assertThrows(UnsupportedOperationException.class, () -> stats.remove(MatrixMetrics.Operation.ADD));
+    }
+
+    /**
+     * Method that tests steps inside an operation aren't counted, and sparse operands are
+     */
+    @org.junit.jupiter.api.Test
+    void nestedAndSparse() {
+        Matrix square = new Matrix(new double[][]{{4,1,0,2},{1,3,1,0},{0,1,5,1},{2,0,1,6}});
+        SparseMatrix identity = SparseMatrix.identity(4);
+        double[] batch = {4, 1, 2, 3, 1, 5, 0, 2, 6, 4, 1, 2, 3, 1, 5, 0, 2, 6, 4, 1, 2, 3, 1, 5, 3};
+        int cutoff = StrassenMultiply.getCutoff();
+        StrassenMultiply.setCutoff(2);
+        try {
+            MatrixMetrics.setEnabled(true);
+            Matrix.multiply(square, square, MultiplyAlgorithm.STRASSEN);
+            MatrixBatch.invert(5, batch, 0, new double[25], 0, 1);
+        } finally {
+            StrassenMultiply.setCutoff(cutoff);
+        }
+
+        // One recursion level of sums, none of them counted on their own.
+        java.util.Map<MatrixMetrics.Operation, MatrixMetrics.Stats> stats = MatrixMetrics.snapshot();
+        assertEquals(1, stats.get(MatrixMetrics.Operation.MULTIPLY).calls());
+        assertEquals(128, stats.get(MatrixMetrics.Operation.MULTIPLY).flops());
+        assertEquals(0, stats.get(MatrixMetrics.Operation.ADD).calls());
+        assertEquals(0, stats.get(MatrixMetrics.Operation.SUBTRACT).calls());
+        assertEquals(0, stats.get(MatrixMetrics.Operation.LU).calls());
+
+        square.multiply(identity);
+        square.add(identity);
+        square.subtract(identity);
+        identity.subtract(square);
+        stats = MatrixMetrics.snapshot();
+        assertEquals(2, stats.get(MatrixMetrics.Operation.MULTIPLY).calls());
+        assertEquals(128 + 32, stats.get(MatrixMetrics.Operation.MULTIPLY).flops());
+        assertEquals(1, stats.get(MatrixMetrics.Operation.ADD).calls());
+        assertEquals(4, stats.get(MatrixMetrics.Operation.ADD).flops());
+        assertEquals(1, stats.get(MatrixMetrics.Operation.SUBTRACT).calls());
+    }
+
+    /**
+     * Method that tests nothing is recorded while disabled, and reset clears the counts
+     */
+    @org.junit.jupiter.api.Test
+    void disabledAndReset() {
+        Matrix m1 = new Matrix(new double[][]{{1,2},{3,4}});
+        m1.add(m1);
+        m1.multiply(m1);
+        for (MatrixMetrics.Stats stats : MatrixMetrics.snapshot().values()) {
+            assertEquals(0, stats.calls());
+        }
+
+        MatrixMetrics.setEnabled(true);
+        m1.add(m1);
+        MatrixMetrics.setEnabled(false);
+        m1.add(m1);
+        assertEquals(1, MatrixMetrics.snapshot().get(MatrixMetrics.Operation.ADD).calls());
+
+        MatrixMetrics.reset();
+        assertEquals(new MatrixMetrics.Stats(0, 0, 0, new long[MatrixMetrics.BUCKETS]),
+                MatrixMetrics.snapshot().get(MatrixMetrics.Operation.ADD));
+    }
+
+    /**
+     * Method that tests the MBean shows the same counts and can switch recording
+     */
+    @org.junit.jupiter.api.Test
+    void mbean() throws Exception {
+        javax.management.ObjectName name = MatrixMetrics.registerMBean();
+        assertEquals(name, MatrixMetrics.registerMBean());
+
+        MatrixMetricsMXBean bean = javax.management.JMX.newMXBeanProxy(
+                java.lang.management.ManagementFactory.getPlatformMBeanServer(), name, MatrixMetricsMXBean.class);
+        assertFalse(bean.isEnabled());
+        bean.setEnabled(true);
+        assertTrue(MatrixMetrics.isEnabled());
+
+        Matrix m1 = new Matrix(new double[][]{{1,2},{3,4}});
+        m1.multiply(m1);
+        assertEquals(1, (long) bean.getCalls().get("MULTIPLY"));
+        assertEquals(16, (long) bean.getFlops().get("MULTIPLY"));
+        assertEquals(0, (long) bean.getCalls().get("ADD"));
+        assertTrue(bean.getNanos().get("MULTIPLY") >= 0);
+        assertEquals(1, bean.getDimensionHistograms().get("MULTIPLY")[1]);
+
+        bean.reset();
+        assertEquals(0, (long) bean.getCalls().get("MULTIPLY"));
+    }
+}
@@ -0,0 +1,75 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 Testing for MatrixReader Class
+ *
+ * @author augward
+ */
+
+class MatrixReaderTest {
+
+    /**
+     * Method that tests parsing toString output, whitespace and streams
+     */
+    @org.junit.jupiter.api.Test
+    void parse() throws java.io.IOException {
+        Matrix m1 = new Matrix(new double[][]{{1,-2.5,1e-5},{0.1 + 0.2,-0.0,1e300}});
+        Matrix parsed = MatrixReader.parse(m1.toString());
+        assertEquals(m1, parsed);
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(parsed.getElement(2,2)));
+
+        assertEquals(new Matrix(new double[][]{{1,2},{3,4}}), MatrixReader.parse("  [1 ,2]\r\n\n[ +3.0,4e0 ]\n"));
+        assertEquals(new Matrix(new double[][]{{Double.NaN, Double.NEGATIVE_INFINITY}}).toString(),
+                MatrixReader.parse("[NaN, -Infinity]").toString());
+
+        byte[] bytes = m1.toString().getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+        assertEquals(m1, MatrixReader.read(new java.io.ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Method that tests every double reads back exactly, through the fast path and the fallback
+     */
+    @org.junit.jupiter.api.Test
+    void exactRoundTrip() throws java.io.IOException {
+        java.util.Random random = new java.util.Random(32);
+        Matrix m1 = new Matrix(200, 150);
+        for (int i = 1; i <= 200; i++) {
+            for (int j = 1; j <= 150; j++) {
+                double value;
+                switch (j % 4) {
+                    case 0 -> value = random.nextInt(2000) / 8.0;
+                    case 1 -> value = Math.round(random.nextGaussian() * 1e6) / 1e3;
+                    case 2 -> value = Double.longBitsToDouble(random.nextLong());
+                    default -> value = random.nextGaussian();
+                }
+                m1.setElement(i, j, Double.isNaN(value) ? 0 : value);
+            }
+        }
+
+        java.io.StringWriter out = new java.io.StringWriter();
+        new MatrixWriter().write(m1, out);
+        Matrix back = MatrixReader.read(new java.io.StringReader(out.toString()));
+        assertEquals(m1, back);
+
+        for (String text : new String[]{"0.1", "123456789012345", "1.5e-22", "9007199254740993", "2.2250738585072014E-308", ".5", "7."}) {
+            assertEquals(Double.parseDouble(text), MatrixReader.toDouble(text.toCharArray(), text.length()), text);
+        }
+    }
+
+    /**
+     * Method that tests text that is not a matrix is rejected
+     */
+    @org.junit.jupiter.api.Test
+    void malformed() {
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.parse("[]"));
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.parse("[1, 2]\n[3]"));
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.parse("[1, 2"));
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.parse("[1,, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.parse("[1 2]"));
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.parse("[1, x]"));
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.parse("[1e, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.parse("[1] 2"));
+        assertThrows(IllegalArgumentException.class, () -> MatrixReader.parse(null));
+    }
+}
@@ -8,6 +8,22 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class MatrixTest {
 
+    /**
+     * Opts the tests into rounded results, the expected values are written as decimals.
+     */
+    @org.junit.jupiter.api.BeforeEach
+    void roundedPolicy() {
+        Matrix.setDefaultNumericPolicy(NumericPolicy.ROUNDED);
+    }
+
+    /**
+     * Puts the default policy back so other classes see exact arithmetic.
+     */
+    @org.junit.jupiter.api.AfterEach
+    void resetPolicy() {
+        Matrix.setDefaultNumericPolicy(NumericPolicy.EXACT);
+    }
+
     /**
      * Method that tests the getters and setters of the class.
      */
@@ -52,8 +68,129 @@ class MatrixTest {
         assertNotEquals(m1, m3);
         assertNotEquals(m1, m4);
 
-        // This last one works, but yellow line appears due to redundancy.
-        // assertThrows(ClassCastException.class, () -> m1.equals("not a matrix"));
+        // Anything but a matrix is simply not equal, so matrices work as HashMap and HashSet keys.
+        assertFalse(m1.equals("not a matrix"));
+        assertFalse(m1.equals(null));
+    }
+
+    /**
+     * Method that tests equals on views and special values, approxEquals and the cached hash
+     */
+    @org.junit.jupiter.api.Test
+    void equalsAndHashing() {
+        Matrix.setDefaultNumericPolicy(NumericPolicy.EXACT);
+        Matrix m1 = new Matrix(new double[][]{{1,0.0,3,4},{Double.NaN,6,7,8}});
+        Matrix m2 = new Matrix(new double[][]{{1,-0.0,3,4},{Double.NaN,6,7,8}});
+        assertEquals(m1, m1);
+        assertEquals(m1, m2);
+        assertEquals(m1.hashCode(), m2.hashCode());
+        m2.setElement(1, 4, 5);
+        assertNotEquals(m1, m2);
+
+        // Views and transposes, with and without packed rows.
+        Matrix big = new Matrix(new double[][]{{1,2,3},{4,5,6},{7,8,9}});
+        assertEquals(new Matrix(new double[][]{{5,6},{8,9}}), big.subMatrix(2, 2, 3, 3));
+        assertEquals(new Matrix(new double[][]{{1,4,7},{2,5,8},{3,6,9}}), big.transpose());
+        assertEquals(big.transpose().copy(), big.transpose());
+        assertEquals(big.transpose().hashCode(), big.transpose().copy().hashCode());
+        assertNotEquals(big, big.transpose());
+
+        // The cached hash follows every kind of change, including through views.
+        Matrix key = big.copy();
+        int hash = key.hashCode();
+        assertEquals(hash, key.hashCode());
+        key.row(2).setElement(1, 2, 50);
+        assertEquals(new Matrix(new double[][]{{1,2,3},{4,50,6},{7,8,9}}).hashCode(), key.hashCode());
+        key.subMatrix(1, 1, 1, 1).addInPlace(Matrix.identity(1));
+        key.scalarMultiplyInPlace(2);
+        key.lazy().subtract(big).evaluateInto(key);
+        Matrix expected = new Matrix(new double[][]{{3,2,3},{4,95,6},{7,8,9}});
+        assertEquals(expected, key);
+        assertEquals(expected.hashCode(), key.hashCode());
+        key.multiplyInPlace(Matrix.identity(3).scalarMultiply(2));
+        assertEquals(expected.scalarMultiply(2).hashCode(), key.hashCode());
+
+        java.util.Map<Matrix, String> cache = new java.util.HashMap<>();
+        cache.put(big.copy(), "big");
+        assertEquals("big", cache.get(big));
+        assertNull(cache.get(big.transpose()));
+
+        // approxEquals ignores the policy and takes its own tolerance.
+        Matrix near = big.add(Matrix.identity(3).scalarMultiply(1e-7));
+        assertNotEquals(big, near);
+        assertTrue(big.approxEquals(near, 1e-6));
+        assertFalse(big.approxEquals(near, 1e-9));
+        assertFalse(big.approxEquals(big.subMatrix(1, 1, 2, 2), 1));
+        assertTrue(m1.approxEquals(m1.copy(), 0));
+        assertThrows(IllegalArgumentException.class, () -> big.approxEquals(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> big.approxEquals(near, -1));
+        assertThrows(IllegalArgumentException.class, () -> big.approxEquals(near, Double.NaN));
+
+        // TOLERANCE matrices equal each other when they differ slightly, so they hash on dimensions alone,
+        // and never equal a matrix of another policy, even one with the same elements.
+        Matrix tolerant = big.scalarMultiply(1 + 1e-12);
+        tolerant.setNumericPolicy(NumericPolicy.TOLERANCE);
+        Matrix tolerant2 = big.copy();
+        tolerant2.setNumericPolicy(NumericPolicy.TOLERANCE);
+        assertEquals(tolerant, tolerant2);
+        assertEquals(tolerant.hashCode(), tolerant2.hashCode());
+        assertNotEquals(tolerant2, big);
+        assertNotEquals(big, tolerant2);
+        assertTrue(big.approxEquals(tolerant, NumericPolicy.TOLERANCE_EPSILON));
+    }
+
+    /**
+     * Method that tests power and powerInto against repeated multiplication
+     */
+    @org.junit.jupiter.api.Test
+    void power() {
+        Matrix.setDefaultNumericPolicy(NumericPolicy.EXACT);
+
+        // Walk counts of a small graph stay whole numbers, so every power is exact.
+        Matrix graph = new Matrix(new double[][]{
+                {0,1,1,0,0,1},{1,0,1,0,0,0},{0,1,0,1,1,0},{0,0,1,0,1,0},{1,0,0,1,0,1},{0,1,0,0,1,1}});
+        Matrix repeated = Matrix.identity(6);
+        for (int n = 0; n <= 20; n++) {
+            assertEquals(repeated, graph.power(n));
+            repeated = repeated.multiply(graph);
+        }
+
+        Matrix expected = graph.power(13);
+        Matrix output = new Matrix(6, 6);
+        graph.powerInto(13, output);
+        assertEquals(expected, output);
+
+        // Views as input and output, including outputs sharing the input's storage.
+        Matrix big = new Matrix(8, 8);
+        big.subMatrix(2, 2, 7, 7).lazy().add(graph).evaluateInto(big.subMatrix(2, 2, 7, 7));
+        Matrix view = big.subMatrix(2, 2, 7, 7);
+        assertEquals(expected, view.power(13));
+        assertEquals(expected.transpose(), view.transpose().power(13));
+        view.powerInto(13, big.subMatrix(1, 1, 6, 6));
+        assertEquals(expected, big.subMatrix(1, 1, 6, 6));
+
+        Matrix self = graph.copy();
+        self.powerInto(7, self);
+        assertEquals(graph.power(7), self);
+        self = graph.copy();
+        self.powerInto(1, self.transpose());
+        assertEquals(graph.transpose(), self);
+        Matrix columnOutput = new Matrix(6, 6);
+        graph.powerInto(5, columnOutput.transpose());
+        assertEquals(graph.power(5), columnOutput.transpose());
+
+        // Non-integer elements round differently in each order, so they only agree closely.
+        Matrix markov = new Matrix(new double[][]{{0.9,0.1,0},{0.2,0.7,0.1},{0.1,0.3,0.6}});
+        Matrix steps = Matrix.identity(3);
+        for (int n = 0; n < 50; n++) {
+            steps = steps.multiply(markov);
+        }
+        assertTrue(steps.approxEquals(markov.power(50), 1e-12));
+
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(2, 3).power(2));
+        assertThrows(IllegalArgumentException.class, () -> graph.power(-1));
+        assertThrows(IllegalArgumentException.class, () -> graph.powerInto(2, null));
+        assertThrows(IllegalArgumentException.class, () -> graph.powerInto(2, new Matrix(5, 5)));
     }
 
     /**
@@ -165,4 +302,472 @@ class MatrixTest {
         Matrix m5 = new Matrix(new double[][]{{1,2},{3,4},{5,6}});
         assertThrows(IllegalArgumentException.class, () -> m4.multiply(m5));
     }
-}
\ No newline at end of file
+
+    /**
+     * Method that tests the blocked multiply against a plain fused multiply-add loop, on sizes that cross tile edges
+     */
+    @org.junit.jupiter.api.Test
+    void multiplyBlocked() {
+        java.util.Random random = new java.util.Random(55);
+        double[][] a = new double[130][70];
+        double[][] b = new double[70][300];
+        for (double[] row : a) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextInt(200) / 10.0 - 10;
+            }
+        }
+        for (double[] row : b) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextInt(200) / 10.0 - 10;
+            }
+        }
+
+        double[][] expected = new double[130][300];
+        for (int i = 0; i < 130; i++) {
+            for (int j = 0; j < 300; j++) {
+                for (int k = 0; k < 70; k++) {
+                    expected[i][j] = Math.fma(a[i][k], b[k][j], expected[i][j]);
+                }
+            }
+        }
+
+        Matrix m1 = new Matrix(a);
+        Matrix m2 = new Matrix(b);
+        m1.setNumericPolicy(NumericPolicy.EXACT);
+        assertEquals(new Matrix(expected), m1.multiply(m2));
+        m1.multiplyInPlace(m2);
+        assertEquals(new Matrix(expected), m1);
+    }
+
+    /**
+     * Method that tests the parallel multiply matches the serial one, above and below the threshold
+     */
+    @org.junit.jupiter.api.Test
+    void multiplyParallel() {
+        java.util.Random random = new java.util.Random(2);
+        double[][] a = new double[300][90];
+        double[][] b = new double[90][600];
+        for (double[] row : a) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextInt(200) / 10.0 - 10;
+            }
+        }
+        for (double[] row : b) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextInt(200) / 10.0 - 10;
+            }
+        }
+        Matrix m1 = new Matrix(a);
+        Matrix m2 = new Matrix(b);
+        Matrix serial = m1.multiply(m2);
+
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        long oldThreshold = ParallelMultiply.getThreshold();
+        try {
+            assertEquals(serial, m1.multiply(m2, pool));
+
+            // Forces very small tiles so every split path is used.
+            ParallelMultiply.setThreshold(1);
+            assertEquals(serial, Matrix.multiply(m1, m2, pool));
+
+            Matrix small = new Matrix(new double[][]{{1,2},{3,4}});
+            Matrix expected = new Matrix(new double[][]{{9.8,12,15},{20.6,26,33}});
+            small.multiplyInPlace(new Matrix(new double[][]{{1,2,3},{4.4,5,6}}), pool);
+            assertEquals(expected, small);
+
+            assertThrows(IllegalArgumentException.class, () -> m2.multiply(m2, pool));
+            assertThrows(IllegalArgumentException.class, () -> ParallelMultiply.setThreshold(0));
+        } finally {
+            ParallelMultiply.setThreshold(oldThreshold);
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Method that tests the parallel element-wise operations match the serial ones
+     */
+    @org.junit.jupiter.api.Test
+    void elementwiseParallel() {
+        Matrix.setDefaultNumericPolicy(NumericPolicy.EXACT);
+        java.util.Random random = new java.util.Random(3);
+        double[][] a = new double[700][500];
+        double[][] b = new double[700][500];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[i].length; j++) {
+                a[i][j] = random.nextDouble() * 20 - 10;
+                b[i][j] = random.nextDouble() * 20 - 10;
+            }
+        }
+        Matrix m1 = new Matrix(a);
+        Matrix m2 = new Matrix(b);
+        Matrix sum = m1.add(m2);
+        Matrix difference = m1.subtract(m2);
+        Matrix scaled = m1.scalarMultiply(0.3);
+
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        long oldThreshold = ParallelElementwise.getThreshold();
+        try {
+            assertEquals(sum, m1.add(m2, pool));
+            assertEquals(difference, m1.subtract(m2, pool));
+            assertEquals(scaled, m1.scalarMultiply(0.3, pool));
+
+            // Forces single row bands so every split path is used, on views as well.
+            ParallelElementwise.setThreshold(1);
+            Matrix target = m1.copy();
+            target.addInPlace(m2, pool);
+            assertEquals(sum, target);
+            target = m1.copy();
+            target.subtractInPlace(m2, pool);
+            assertEquals(difference, target);
+            target = m1.copy();
+            target.scalarMultiplyInPlace(0.3, pool);
+            assertEquals(scaled, target);
+
+            Matrix view = m1.subMatrix(11, 21, 610, 420);
+            Matrix other = m2.subMatrix(1, 1, 600, 400);
+            assertEquals(view.add(other), view.copy().add(other.copy(), pool));
+            assertEquals(view.subtract(other), view.subtract(other, pool));
+            assertEquals(view.scalarMultiply(-2), view.scalarMultiply(-2, pool));
+
+            Matrix wide = new Matrix(new double[][]{{1,2,3,4}});
+            assertEquals(new Matrix(new double[][]{{2,4,6,8}}), wide.add(wide, pool));
+
+            // The global pool is used by the plain methods.
+            Matrix.setElementPool(pool);
+            assertEquals(pool, Matrix.getElementPool());
+            assertEquals(sum, m1.add(m2));
+            target = m1.copy();
+            target.subtractInPlace(m2);
+            assertEquals(difference, target);
+            assertEquals(scaled, Matrix.scalarMultiply(m1, 0.3));
+
+            assertThrows(IllegalArgumentException.class, () -> m1.add(m2, (java.util.concurrent.ForkJoinPool) null));
+            assertThrows(IllegalArgumentException.class, () -> m1.scalarMultiplyInPlace(2, null));
+            assertThrows(IllegalArgumentException.class, () -> m1.subtract(view, pool));
+            assertThrows(IllegalArgumentException.class, () -> ParallelElementwise.setThreshold(0));
+        } finally {
+            Matrix.setElementPool(null);
+            ParallelElementwise.setThreshold(oldThreshold);
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Method that tests the data array is copied in and out instead of shared, and ragged data is refused
+     */
+    @org.junit.jupiter.api.Test
+    void dataCopies() {
+        double[][] data = {{1,2},{3,4}};
+        Matrix m1 = new Matrix(data);
+        data[0][0] = 9;
+        assertEquals(1, m1.getElement(1,1));
+
+        double[][] out = m1.getData();
+        out[1][1] = 9;
+        assertEquals(4, m1.getElement(2,2));
+        assertEquals(2, out.length);
+        assertEquals(4, m1.getData()[1][1]);
+
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(new double[][]{{1,2},{3}}));
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(new double[][]{{1,2},null}));
+    }
+
+    /**
+     * Method that tests every operation through a storage that is not array backed, with an offset and padded rows
+     */
+    @org.junit.jupiter.api.Test
+    void storageLayout() {
+        // Plain storage with no array, forces the interface path in every kernel.
+        double[] backing = new double[40];
+        MatrixStorage storage = new MatrixStorage() {
+            public int size() { return backing.length; }
+            public double get(int index) { return backing[index]; }
+            public void set(int index, double value) { backing[index] = value; }
+        };
+
+        // 2 x 3 matrix starting at index 5, rows are 4 apart.
+        Matrix m1 = new Matrix(2, 3, storage, 5, 4);
+        m1.setElement(1,1,1);
+        m1.setElement(1,2,2);
+        m1.setElement(1,3,3);
+        m1.setElement(2,1,4);
+        m1.setElement(2,2,5);
+        m1.setElement(2,3,6);
+        assertEquals(6, backing[5 + 4 + 2]);
+
+        Matrix m2 = new Matrix(new double[][]{{1,2,3},{4,5,6}});
+        assertEquals(m2, m1);
+        assertEquals(m2.add(m2), m1.add(m2));
+        assertEquals(m2.subtract(m2), m2.subtract(m1));
+        assertEquals(m2.scalarMultiply(-1.5), m1.scalarMultiply(-1.5));
+
+        Matrix m3 = new Matrix(new double[][]{{1,0},{2,1},{0,3}});
+        assertEquals(m2.multiply(m3), m1.multiply(m3));
+        assertEquals(m2.subMatrix(1,2,2,3), m1.subMatrix(1,2,2,3));
+        assertEquals(m2.toString(), m1.toString());
+
+        m1.addInPlace(m2);
+        assertEquals(m2.scalarMultiply(2), m1);
+        assertEquals(0, backing[5 + 3]);
+
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(3, 3, storage, 30, 4));
+    }
+
+    /**
+     * Method that tests subMatrix, transpose, row and column share storage, and copy detaches
+     */
+    @org.junit.jupiter.api.Test
+    void views() {
+        Matrix m1 = new Matrix(new double[][]{{1,2,3,4},{5,6,7,8},{9,10,11,12}});
+
+        Matrix sub = m1.subMatrix(2,2,3,4);
+        sub.setElement(1,1,60);
+        assertEquals(60, m1.getElement(2,2));
+        m1.setElement(3,4,120);
+        assertEquals(120, sub.getElement(2,3));
+
+        Matrix transposed = m1.transpose();
+        assertEquals(4, transposed.getRows());
+        assertEquals(3, transposed.getCols());
+        assertEquals(m1.getElement(1,4), transposed.getElement(4,1));
+        assertEquals(m1, transposed.transpose());
+        assertEquals(new Matrix(new double[][]{{60,7},{10,11}}), transposed.subMatrix(2,2,3,3).transpose());
+
+        assertEquals(new Matrix(new double[][]{{5,60,7,8}}), m1.row(2));
+        assertEquals(new Matrix(new double[][]{{3},{7},{11}}), m1.column(3));
+        assertEquals(m1.column(3), transposed.row(3).transpose());
+
+        Matrix copy = sub.copy();
+        copy.setElement(1,1,0);
+        assertEquals(60, m1.getElement(2,2));
+        assertEquals(sub.transpose(), sub.transpose().copy());
+
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> m1.row(4));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> transposed.column(4));
+    }
+
+    /**
+     * Method that tests operations on views, including writing a matrix into itself through its transpose
+     */
+    @org.junit.jupiter.api.Test
+    void viewOperations() {
+        Matrix m1 = new Matrix(new double[][]{{1,2,3},{4,5,6},{7,8,9}});
+        Matrix expected = new Matrix(new double[][]{{2,6,10},{6,10,14},{10,14,18}});
+
+        m1.addInPlace(m1.transpose());
+        assertEquals(expected, m1);
+
+        m1.subtractInPlace(m1.transpose());
+        assertEquals(new Matrix(3,3), m1);
+
+        Matrix m2 = new Matrix(new double[][]{{1,2,3},{4,5,6}});
+        Matrix gram = new Matrix(new double[][]{{14,32},{32,77}});
+        assertEquals(gram, m2.multiply(m2.transpose()));
+        assertEquals(m2.transpose().multiply(m2), m2.transpose().copy().multiply(m2));
+        assertEquals(gram, m2.multiply(m2.transpose(), java.util.concurrent.ForkJoinPool.commonPool()));
+
+        Matrix m3 = new Matrix(new double[][]{{1,2,3,4},{5,6,7,8},{9,10,11,12},{13,14,15,16}});
+        Matrix panel = m3.subMatrix(2,2,3,3);
+        panel.scalarMultiplyInPlace(2);
+        assertEquals(new Matrix(new double[][]{{1,2,3,4},{5,12,14,8},{9,20,22,12},{13,14,15,16}}), m3);
+        assertEquals(panel.add(panel), panel.scalarMultiply(2));
+
+        // Multiplying a view in place gives it its own storage, the parent keeps its values.
+        panel.multiplyInPlace(Matrix.identity(2).scalarMultiply(0));
+        assertEquals(12, m3.getElement(2,2));
+        assertEquals(new Matrix(2,2), panel);
+    }
+
+    /**
+     * Method that tests exact, rounded and tolerance policies and how results inherit them
+     */
+    @org.junit.jupiter.api.Test
+    void numericPolicy() {
+        Matrix.setDefaultNumericPolicy(NumericPolicy.EXACT);
+        Matrix m1 = new Matrix(new double[][]{{1,2},{3,4}});
+        Matrix m2 = new Matrix(new double[][]{{-3.3,-6.6},{-9.9,-13.2}});
+        assertEquals(NumericPolicy.EXACT, m1.getNumericPolicy());
+
+        // 3 * -3.3 is not exactly -9.9 in IEEE arithmetic.
+        Matrix exact = m1.scalarMultiply(-3.3);
+        assertEquals(3 * -3.3, exact.getElement(2,1));
+        assertNotEquals(m2, exact);
+
+        m1.setNumericPolicy(NumericPolicy.ROUNDED);
+        assertEquals(m2, m1.scalarMultiply(-3.3));
+        assertEquals(NumericPolicy.ROUNDED, m1.scalarMultiply(-3.3).getNumericPolicy());
+        assertEquals(NumericPolicy.ROUNDED, m1.transpose().getNumericPolicy());
+
+        exact.setNumericPolicy(NumericPolicy.TOLERANCE);
+        m2.setNumericPolicy(NumericPolicy.TOLERANCE);
+        assertEquals(m2, exact);
+        assertEquals(exact, m2);
+        assertNotEquals(m2.scalarMultiply(1.0001), exact);
+
+        Matrix m3 = new Matrix(new double[][]{{0.1},{0.2}});
+        Matrix m4 = new Matrix(new double[][]{{1,1}});
+        assertEquals(0.1 + 0.2, m4.multiply(m3).getElement(1,1));
+        m4.setNumericPolicy(NumericPolicy.ROUNDED);
+        assertEquals(0.3, m4.multiply(m3).getElement(1,1));
+
+        assertThrows(IllegalArgumentException.class, () -> m1.setNumericPolicy(null));
+        assertThrows(IllegalArgumentException.class, () -> Matrix.setDefaultNumericPolicy(null));
+    }
+
+    /**
+     * Method that tests the selected kernel backend matches the scalar loops, including leftover tails
+     */
+    @org.junit.jupiter.api.Test
+    void kernelBackend() {
+        KernelBackend scalar = new ScalarKernels();
+        java.util.Random random = new java.util.Random(6);
+
+        for (int length = 0; length < 40; length++) {
+            double[] x = new double[length + 3];
+            double[] y = new double[length + 5];
+            for (int i = 0; i < x.length; i++) {
+                x[i] = random.nextDouble() * 100 - 50;
+            }
+            for (int i = 0; i < y.length; i++) {
+                y[i] = random.nextDouble() * 100 - 50;
+            }
+
+            double[] expected = new double[length + 2];
+            double[] actual = new double[length + 2];
+
+            scalar.add(x, 3, y, 5, expected, 2, length);
+            ElementKernels.add(x, 3, y, 5, actual, 2, length);
+            assertArrayEquals(expected, actual);
+
+            scalar.subtract(x, 1, y, 2, expected, 1, length);
+            ElementKernels.subtract(x, 1, y, 2, actual, 1, length);
+            assertArrayEquals(expected, actual);
+
+            scalar.scale(x, 2, -1.7, expected, 0, length);
+            ElementKernels.scale(x, 2, -1.7, actual, 0, length);
+            assertArrayEquals(expected, actual);
+
+            scalar.fma(0.3, y, 4, expected, 2, length);
+            ElementKernels.fma(0.3, y, 4, actual, 2, length);
+            assertArrayEquals(expected, actual);
+        }
+        assertNotNull(ElementKernels.backendName());
+    }
+
+    /**
+     * Method that tests Strassen-Winograd against the blocked kernel, including odd sizes that need padding.
+     * Strassen rounds differently, so the check is the relative max-norm error stays under 1e-12,
+     * a few hundred eps, where the worst case bound grows like n^log2(12) * eps.
+     */
+    @org.junit.jupiter.api.Test
+    void multiplyStrassen() {
+        java.util.Random random = new java.util.Random(8);
+        int n = 157;
+        Matrix m1 = new Matrix(n, n);
+        Matrix m2 = new Matrix(n, n);
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= n; j++) {
+                m1.setElement(i, j, random.nextDouble() * 2 - 1);
+                m2.setElement(i, j, random.nextDouble() * 2 - 1);
+            }
+        }
+        m1.setNumericPolicy(NumericPolicy.EXACT);
+        Matrix expected = m1.multiply(m2);
+
+        int oldCutoff = StrassenMultiply.getCutoff();
+        try {
+            // Small cutoff forces several levels of recursion and padding at 157 and 79.
+            StrassenMultiply.setCutoff(16);
+            Matrix strassen = Matrix.multiply(m1, m2, MultiplyAlgorithm.STRASSEN);
+
+            double largest = 0;
+            double error = 0;
+            for (int i = 1; i <= n; i++) {
+                for (int j = 1; j <= n; j++) {
+                    largest = Math.max(largest, Math.abs(expected.getElement(i, j)));
+                    error = Math.max(error, Math.abs(expected.getElement(i, j) - strassen.getElement(i, j)));
+                }
+            }
+            assertTrue(error / largest < 1e-12, "relative error " + error / largest);
+
+            // Integers stay exact, so the result matches the blocked kernel exactly.
+            Matrix small1 = new Matrix(new double[][]{{1,2,3},{4,5,6},{7,8,9}});
+            Matrix small2 = new Matrix(new double[][]{{9,8,7},{6,5,4},{3,2,1}});
+            StrassenMultiply.setCutoff(2);
+            assertEquals(small1.multiply(small2), Matrix.multiply(small1, small2, MultiplyAlgorithm.STRASSEN));
+
+            // Non square falls back to blocked.
+            Matrix wide = new Matrix(new double[][]{{1,2,3},{4.4,5,6}});
+            Matrix square = new Matrix(new double[][]{{1,2},{3,4}});
+            assertEquals(square.multiply(wide), Matrix.multiply(square, wide, MultiplyAlgorithm.STRASSEN));
+            assertEquals(square.multiply(wide), Matrix.multiply(square, wide, MultiplyAlgorithm.AUTO));
+            assertEquals(square.multiply(wide), Matrix.multiply(square, wide, MultiplyAlgorithm.PARALLEL));
+
+            Matrix.setMultiplyAlgorithm(MultiplyAlgorithm.STRASSEN);
+            assertEquals(small1.multiply(small2), Matrix.multiply(small1, small2));
+
+            assertThrows(IllegalArgumentException.class, () -> StrassenMultiply.setCutoff(1));
+            assertThrows(IllegalArgumentException.class, () -> Matrix.setMultiplyAlgorithm(null));
+        } finally {
+            StrassenMultiply.setCutoff(oldCutoff);
+            Matrix.setMultiplyAlgorithm(MultiplyAlgorithm.BLOCKED);
+        }
+    }
+
+    /**
+     * Method that tests lazy expressions match the eager chain exactly, including views and writing into an input
+     */
+    @org.junit.jupiter.api.Test
+    void lazyExpression() {
+        Matrix.setDefaultNumericPolicy(NumericPolicy.EXACT);
+        java.util.Random random = new java.util.Random(10);
+        // Wider than a chunk, so rows are evaluated in more than one piece.
+        Matrix m1 = new Matrix(40, 1500);
+        Matrix m2 = new Matrix(40, 1500);
+        Matrix m3 = new Matrix(1500, 40);
+        for (int i = 1; i <= 40; i++) {
+            for (int j = 1; j <= 1500; j++) {
+                m1.setElement(i, j, random.nextDouble() * 2 - 1);
+                m2.setElement(i, j, random.nextDouble() * 2 - 1);
+                m3.setElement(j, i, random.nextDouble() * 2 - 1);
+            }
+        }
+
+        Matrix eager = m1.add(m2).subtract(m3.transpose()).scalarMultiply(2);
+        MatrixExpression lazy = m1.lazy().add(m2).subtract(m3.transpose()).scalarMultiply(2);
+        assertEquals(40, lazy.getRows());
+        assertEquals(1500, lazy.getCols());
+        assertEquals(eager, lazy.evaluate());
+
+        // Nested right hand expressions and views that are not contiguous.
+        Matrix v1 = m1.subMatrix(2, 3, 30, 900);
+        Matrix v2 = m2.subMatrix(5, 1, 33, 898);
+        Matrix nested = v1.subtract(v2.scalarMultiply(3).add(v1)).scalarMultiply(-0.5);
+        assertEquals(nested, v1.lazy().subtract(v2.lazy().scalarMultiply(3).add(v1)).scalarMultiply(-0.5).evaluate());
+
+        // Into an existing matrix, into one of the inputs, and into the transpose of an input.
+        Matrix output = new Matrix(40, 1500);
+        lazy.evaluateInto(output);
+        assertEquals(eager, output);
+        m1.lazy().add(m2).subtract(m3.transpose()).scalarMultiply(2).evaluateInto(m1);
+        assertEquals(eager, m1);
+
+        Matrix m4 = new Matrix(new double[][]{{1,2,3},{4,5,6},{7,8,9}});
+        Matrix expected = m4.add(m4.transpose()).scalarMultiply(0.5);
+        m4.lazy().add(m4.transpose()).scalarMultiply(0.5).evaluateInto(m4.transpose());
+        assertEquals(expected, m4);
+
+        // Inputs are read when evaluated, not when the expression is built.
+        Matrix m5 = new Matrix(new double[][]{{1,2},{3,4}});
+        MatrixExpression doubled = m5.lazy().add(m5);
+        m5.setElement(1,1,10);
+        assertEquals(new Matrix(new double[][]{{20,4},{6,8}}), doubled.evaluate());
+
+        m5.setNumericPolicy(NumericPolicy.ROUNDED);
+        assertEquals(new Matrix(new double[][]{{-33,-6.6},{-9.9,-13.2}}), m5.lazy().scalarMultiply(-3.3).evaluate());
+
+        assertThrows(IllegalArgumentException.class, () -> m5.lazy().add(m4));
+        assertThrows(IllegalArgumentException.class, () -> doubled.evaluateInto(m4));
+        assertThrows(IllegalArgumentException.class, () -> MatrixExpression.of(null));
+    }
+}
@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 Testing for MatrixWriter Class
+ *
+ * @author augward
+ */
+
+class MatrixWriterTest {
+
+    /**
+     * Formats one double with the rounded routine.
+     *
+     * @param value the double
+     * @param digits significant digits
+     * @return String written
+     */
+    private static String rounded(double value, int digits) {
+        char[] buffer = new char[32];
+        return new String(buffer, 0, MatrixWriter.appendRounded(value, digits, buffer, 0));
+    }
+
+    /**
+     * Method that tests full precision output is toString's, through every output type
+     */
+    @org.junit.jupiter.api.Test
+    void fullPrecision() throws java.io.IOException {
+        Matrix m1 = new Matrix(new double[][]{{1,-2.5,1e-5},{0.1 + 0.2,-0.0,1e300}});
+        String expected = "[1.0, -2.5, 1.0E-5]\n[0.30000000000000004, -0.0, 1.0E300]";
+        MatrixWriter writer = new MatrixWriter();
+
+        assertEquals(expected, m1.toString());
+        assertEquals(expected, writer.format(m1));
+
+        java.io.StringWriter out = new java.io.StringWriter();
+        writer.write(m1, out);
+        assertEquals(expected, out.toString());
+
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        writer.write(m1, bytes);
+        assertEquals(expected, bytes.toString(java.nio.charset.StandardCharsets.US_ASCII));
+
+        // Bigger than the buffer, and a transposed view.
+        java.util.Random random = new java.util.Random(30);
+        Matrix m2 = new Matrix(50, 300);
+        for (int i = 1; i <= 50; i++) {
+            for (int j = 1; j <= 300; j++) {
+                m2.setElement(i, j, random.nextGaussian() * 1000);
+            }
+        }
+        assertEquals(m2.transpose().copy().toString(), writer.format(m2.transpose()));
+    }
+
+    /**
+     * Method that tests rounding to a number of significant digits and the notation it picks
+     */
+    @org.junit.jupiter.api.Test
+    void precision() {
+        assertEquals("3.14", rounded(Math.PI, 3));
+        assertEquals("-3.1415926535898", rounded(-Math.PI, 14));
+        assertEquals("1.0", rounded(0.99996, 4));
+        assertEquals("10.0", rounded(9.99, 2));
+        assertEquals("120.0", rounded(123.4, 2));
+        assertEquals("0.3", rounded(0.1 + 0.2, 15));
+        assertEquals("0.00123", rounded(0.0012345, 3));
+        assertEquals("1.23E-4", rounded(0.00012345, 3));
+        assertEquals("1234570.0", rounded(1234567, 6));
+        assertEquals("1.23E7", rounded(12345678, 3));
+        assertEquals("1.0E300", rounded(1e300, 5));
+        assertEquals("4.9E-324", rounded(Double.MIN_VALUE, 2));
+        assertEquals("1.8E308", rounded(Double.MAX_VALUE, 2));
+        assertEquals("-0.0", rounded(-0.0, 3));
+        assertEquals("NaN", rounded(Double.NaN, 3));
+        assertEquals("-Infinity", rounded(Double.NEGATIVE_INFINITY, 3));
+
+        // Every rounded value reads back within half a unit of its last digit, plus the ulp lost parsing it.
+        java.util.Random random = new java.util.Random(31);
+        for (int k = 0; k < 10000; k++) {
+            double value = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            int digits = 1 + random.nextInt(MatrixWriter.MAX_PRECISION);
+            double back = Double.parseDouble(rounded(value, digits));
+            double unit = Math.pow(10, Math.floor(Math.log10(Math.abs(value))) - digits + 1);
+            assertTrue(Math.abs(back - value) <= unit * 0.5000001 + Math.ulp(value), value + " to " + digits + " digits");
+        }
+
+        Matrix m1 = new Matrix(new double[][]{{1.0 / 3, 2.0 / 3},{-1e-9, 12345.678}});
+        assertEquals("[0.333, 0.667]\n[-1.0E-9, 12300.0]", new MatrixWriter(3).format(m1));
+        assertEquals(3, new MatrixWriter(3).getPrecision());
+        assertThrows(IllegalArgumentException.class, () -> new MatrixWriter(16));
+        assertThrows(IllegalArgumentException.class, () -> new MatrixWriter(-1));
+    }
+}
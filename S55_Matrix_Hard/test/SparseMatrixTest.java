@@ -0,0 +1,95 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 Testing for SparseMatrix Class
+ *
+ * @author augward
+ */
+
+class SparseMatrixTest {
+
+    /**
+     * Method that tests the constructors, getters and conversion both ways
+     */
+    @org.junit.jupiter.api.Test
+    void constructAndConvert() {
+        Matrix dense = new Matrix(new double[][]{{0,2,0},{0,0,0},{3,0,4}});
+        SparseMatrix s1 = SparseMatrix.fromDense(dense);
+
+        assertEquals(3, s1.getRows());
+        assertEquals(3, s1.getCols());
+        assertEquals(3, s1.nonZeroCount());
+        assertEquals(2, s1.getElement(1,2));
+        assertEquals(0, s1.getElement(2,2));
+        assertEquals(4, s1.getElement(3,3));
+        assertEquals(dense, s1.toDense());
+
+        SparseMatrix s2 = new SparseMatrix(3, 3, new int[]{0,1,1,3}, new int[]{1,0,2}, new double[]{2,3,4});
+        assertEquals(s1, s2);
+        assertEquals(s1.hashCode(), s2.hashCode());
+        assertEquals(dense.toString(), s2.toString());
+        assertEquals(0, new SparseMatrix(2,2).nonZeroCount());
+
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> s1.getElement(4,1));
+        assertThrows(IllegalArgumentException.class, () -> new SparseMatrix(0,2));
+        assertThrows(IllegalArgumentException.class, () -> new SparseMatrix(2, 2, new int[]{0,2,2}, new int[]{1,0}, new double[]{1,1}));
+        assertThrows(IllegalArgumentException.class, () -> new SparseMatrix(2, 2, new int[]{0,1,2}, new int[]{0,2}, new double[]{1,1}));
+    }
+
+    /**
+     * Method that tests add and subtract between sparse and dense matrices
+     */
+    @org.junit.jupiter.api.Test
+    void addAndSubtract() {
+        Matrix d1 = TestMatrices.sparse(20, 30, 1);
+        Matrix d2 = TestMatrices.sparse(20, 30, 2);
+        SparseMatrix s1 = SparseMatrix.fromDense(d1);
+        SparseMatrix s2 = SparseMatrix.fromDense(d2);
+
+        assertEquals(SparseMatrix.fromDense(d1.add(d2)), s1.add(s2));
+        assertEquals(SparseMatrix.fromDense(d1.subtract(d2)), s1.subtract(s2));
+        assertEquals(d1.add(d2), s1.add((MatrixLike) d2));
+        assertEquals(d1.subtract(d2), s1.subtract((MatrixLike) d2));
+        assertEquals(d1.add(d2), d1.add((MatrixLike) s2));
+        assertEquals(d1.subtract(d2), d1.subtract((MatrixLike) s2));
+
+        // Cancelled elements are dropped instead of stored as zeros.
+        assertEquals(0, s1.subtract(s1).nonZeroCount());
+        assertThrows(IllegalArgumentException.class, () -> s1.add(new SparseMatrix(2,2)));
+    }
+
+    /**
+     * Method that tests scalar multiply and the transpose, which is the CSC form
+     */
+    @org.junit.jupiter.api.Test
+    void scalarAndTranspose() {
+        Matrix d1 = TestMatrices.sparse(15, 25, 3);
+        SparseMatrix s1 = SparseMatrix.fromDense(d1);
+
+        assertEquals(d1.scalarMultiply(-2.5), s1.scalarMultiply(-2.5).toDense());
+        assertEquals(d1.transpose(), s1.transpose().toDense());
+        assertEquals(s1, s1.transpose().transpose());
+    }
+
+    /**
+     * Method that tests sparse x sparse, sparse x dense and dense x sparse multiply
+     */
+    @org.junit.jupiter.api.Test
+    void multiply() {
+        Matrix d1 = TestMatrices.sparse(30, 40, 4);
+        Matrix d2 = TestMatrices.sparse(40, 25, 5);
+        SparseMatrix s1 = SparseMatrix.fromDense(d1);
+        SparseMatrix s2 = SparseMatrix.fromDense(d2);
+        Matrix expected = d1.multiply(d2);
+
+        assertEquals(SparseMatrix.fromDense(expected), s1.multiply(s2));
+        assertEquals(expected, s1.multiply(d2));
+        assertEquals(expected, d1.multiply((MatrixLike) s2));
+        assertEquals(expected, s1.multiply((MatrixLike) d2));
+        assertEquals(expected, s1.multiply(d2.transpose().copy().transpose()));
+        assertEquals(s1, s1.multiply(SparseMatrix.identity(40)));
+
+        assertThrows(IllegalArgumentException.class, () -> s1.multiply(s1));
+        assertThrows(IllegalArgumentException.class, () -> d1.multiply((MatrixLike) s1));
+    }
+}
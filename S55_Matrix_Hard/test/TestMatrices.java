@@ -0,0 +1,87 @@
+/**
+ * Seeded random matrices shared by the test classes and the benchmarks
+ *
+ * @author augward
+ */
+
+final class TestMatrices {
+
+    // Static factories only, no reason to create one.
+    private TestMatrices() {
+    }
+
+    /**
+     * Makes a matrix of uniform values in [-1, 1) with a fixed seed.
+     *
+     * @param rows rows of the matrix
+     * @param cols columns of the matrix
+     * @param seed random seed
+     * @return Matrix of random elements
+     */
+    static Matrix uniform(int rows, int cols, long seed) {
+        java.util.Random random = new java.util.Random(seed);
+        Matrix m = new Matrix(rows, cols);
+        for (int i = 1; i <= rows; i++) {
+            for (int j = 1; j <= cols; j++) {
+                m.setElement(i, j, random.nextDouble() * 2 - 1);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Makes an array of uniform values in [-1, 1) with a fixed seed.
+     *
+     * @param length number of values
+     * @param seed random seed
+     * @return double[] of random values
+     */
+    static double[] uniform(int length, long seed) {
+        java.util.Random random = new java.util.Random(seed);
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextDouble() * 2 - 1;
+        }
+        return values;
+    }
+
+    /**
+     * Makes a matrix of whole numbers from -9 to 9 with a fixed seed, so float and int results are exact.
+     *
+     * @param rows rows of the matrix
+     * @param cols columns of the matrix
+     * @param seed random seed
+     * @return Matrix of random elements
+     */
+    static Matrix whole(int rows, int cols, long seed) {
+        java.util.Random random = new java.util.Random(seed);
+        Matrix m = new Matrix(rows, cols);
+        for (int i = 1; i <= rows; i++) {
+            for (int j = 1; j <= cols; j++) {
+                m.setElement(i, j, random.nextInt(19) - 9);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Makes a mostly zero matrix of whole numbers from -9 to 9 with a fixed seed.
+     *
+     * @param rows rows of the matrix
+     * @param cols columns of the matrix
+     * @param seed random seed
+     * @return Matrix with roughly 1 in 10 elements set
+     */
+    static Matrix sparse(int rows, int cols, long seed) {
+        java.util.Random random = new java.util.Random(seed);
+        Matrix m = new Matrix(rows, cols);
+        for (int i = 1; i <= rows; i++) {
+            for (int j = 1; j <= cols; j++) {
+                if (random.nextInt(10) == 0) {
+                    m.setElement(i, j, random.nextInt(19) - 9);
+                }
+            }
+        }
+        return m;
+    }
+}